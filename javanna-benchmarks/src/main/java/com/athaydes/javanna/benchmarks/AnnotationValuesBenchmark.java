@@ -0,0 +1,64 @@
+package com.athaydes.javanna.benchmarks;
+
+import com.athaydes.javanna.Javanna;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading all member values of annotations with {@link Javanna#getAnnotationValues(java.lang.annotation.Annotation)}.
+ * <p>
+ * Baseline: invoking every member method of the JDK annotation instance reflectively.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class AnnotationValuesBenchmark {
+
+    private Annotations.Nested nested;
+    private Method[] members;
+
+    @Setup
+    public void setup() {
+        nested = Javanna.createAnnotation( Annotations.Nested.class, Annotations.nestedValues() );
+        members = Annotations.Nested.class.getDeclaredMethods();
+    }
+
+    @Benchmark
+    public Map<String, Object> javanna() {
+        return Javanna.getAnnotationValues( nested );
+    }
+
+    @Benchmark
+    public Map<String, Object> javannaRecursive() {
+        return Javanna.getAnnotationValues( nested, true );
+    }
+
+    @Benchmark
+    public Map<String, Object> javannaOfJdkAnnotation() {
+        return Javanna.getAnnotationValues( Annotations.JDK_NESTED );
+    }
+
+    @Benchmark
+    public void jdkReflectionBaseline( Blackhole blackhole ) throws Exception {
+        for (Method member : members) {
+            blackhole.consume( member.invoke( Annotations.JDK_NESTED ) );
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.athaydes.javanna.benchmarks;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Annotation types used by the benchmarks, with equivalent JDK instances (created by the compiler) and the
+ * values used to create Javanna instances.
+ */
+final class Annotations {
+
+    private Annotations() {
+        // private
+    }
+
+    enum Level {LOW, MEDIUM, HIGH}
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface Simple {
+        String name();
+
+        int count() default 1;
+
+        boolean enabled() default true;
+
+        Level level() default Level.MEDIUM;
+    }
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface WithArrays {
+        String[] names();
+
+        int[] ports();
+
+        long[] ids() default { 1L, 2L, 3L };
+    }
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface Nested {
+        String id();
+
+        Simple simple();
+
+        WithArrays arrays();
+    }
+
+    @Simple( name = "simple", count = 10 )
+    @WithArrays( names = { "a", "b", "c", "d" }, ports = { 80, 443, 8080, 8443 } )
+    @Nested( id = "nested",
+            simple = @Simple( name = "inner" ),
+            arrays = @WithArrays( names = { "x", "y" }, ports = { 1, 2 } ) )
+    private static final class Annotated {
+    }
+
+    static final Simple JDK_SIMPLE = Annotated.class.getAnnotation( Simple.class );
+    static final WithArrays JDK_WITH_ARRAYS = Annotated.class.getAnnotation( WithArrays.class );
+    static final Nested JDK_NESTED = Annotated.class.getAnnotation( Nested.class );
+
+    static Class<?> annotatedClass() {
+        return Annotated.class;
+    }
+
+    /**
+     * @return values equivalent to {@link #JDK_SIMPLE}.
+     */
+    static Map<String, Object> simpleValues() {
+        Map<String, Object> values = new HashMap<>();
+        values.put( "name", "simple" );
+        values.put( "count", 10 );
+        return values;
+    }
+
+    /**
+     * @return values equivalent to {@link #JDK_WITH_ARRAYS}.
+     */
+    static Map<String, Object> withArraysValues() {
+        Map<String, Object> values = new HashMap<>();
+        values.put( "names", new String[]{ "a", "b", "c", "d" } );
+        values.put( "ports", new int[]{ 80, 443, 8080, 8443 } );
+        return values;
+    }
+
+    /**
+     * @return values equivalent to {@link #JDK_NESTED}, with nested annotations given as maps.
+     */
+    static Map<String, Object> nestedValues() {
+        Map<String, Object> arrays = new HashMap<>();
+        arrays.put( "names", Arrays.asList( "x", "y" ) );
+        arrays.put( "ports", new int[]{ 1, 2 } );
+
+        Map<String, Object> values = new HashMap<>();
+        values.put( "id", "nested" );
+        values.put( "simple", Collections.singletonMap( "name", "inner" ) );
+        values.put( "arrays", arrays );
+        return values;
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.athaydes.javanna.benchmarks;
+
+import com.athaydes.javanna.AnnotationBuilder;
+import com.athaydes.javanna.AnnotationFactory;
+import com.athaydes.javanna.Javanna;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation of annotation instances with simple members, arrays and nested annotations.
+ * <p>
+ * Baseline: obtaining the equivalent JDK annotation instances from an annotated class.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class CreateAnnotationBenchmark {
+
+    private Map<String, Object> simpleValues;
+    private Map<String, Object> withArraysValues;
+    private Map<String, Object> nestedValues;
+    private AnnotationFactory<Annotations.Simple> simpleFactory;
+    private AnnotationBuilder<Annotations.Simple> simpleBuilder;
+
+    @Setup
+    public void setup() {
+        simpleValues = Annotations.simpleValues();
+        withArraysValues = Annotations.withArraysValues();
+        nestedValues = Annotations.nestedValues();
+        simpleFactory = Javanna.parseAnnotation( Annotations.Simple.class ).factory();
+        simpleBuilder = Javanna.parseAnnotation( Annotations.Simple.class ).builder();
+    }
+
+    @Benchmark
+    public Annotations.Simple simple() {
+        return Javanna.createAnnotation( Annotations.Simple.class, simpleValues );
+    }
+
+    @Benchmark
+    public Annotations.Simple simpleWithFactory() {
+        return simpleFactory.create( simpleValues );
+    }
+
+    @Benchmark
+    public Annotations.Simple simpleWithBuilder() {
+        return simpleBuilder.set( "name", "simple" ).set( "count", 10 ).build();
+    }
+
+    @Benchmark
+    public Annotations.WithArrays withArrays() {
+        return Javanna.createAnnotation( Annotations.WithArrays.class, withArraysValues );
+    }
+
+    @Benchmark
+    public Annotations.Nested nested() {
+        return Javanna.createAnnotation( Annotations.Nested.class, nestedValues );
+    }
+
+    @Benchmark
+    public Annotations.Simple jdkSimpleBaseline() {
+        return Annotations.annotatedClass().getAnnotation( Annotations.Simple.class );
+    }
+
+    @Benchmark
+    public Annotations.WithArrays jdkWithArraysBaseline() {
+        return Annotations.annotatedClass().getAnnotation( Annotations.WithArrays.class );
+    }
+
+    @Benchmark
+    public Annotations.Nested jdkNestedBaseline() {
+        return Annotations.annotatedClass().getAnnotation( Annotations.Nested.class );
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.athaydes.javanna.benchmarks;
+
+import com.athaydes.javanna.gson.JavannaGson;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing JSON into annotations and writing annotations as JSON with {@link JavannaGson}.
+ * <p>
+ * Baseline: Gson reading and writing plain Java objects with the same structure.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class JsonBenchmark {
+
+    static final String NESTED_JSON = "{\"id\":\"nested\",\"simple\":{\"name\":\"inner\",\"count\":1," +
+            "\"enabled\":true,\"level\":\"MEDIUM\"},\"arrays\":{\"names\":[\"x\",\"y\"],\"ports\":[1,2]," +
+            "\"ids\":[1,2,3]}}";
+
+    static final class SimplePojo {
+        String name;
+        int count;
+        boolean enabled;
+        Annotations.Level level;
+    }
+
+    static final class WithArraysPojo {
+        String[] names;
+        int[] ports;
+        long[] ids;
+    }
+
+    static final class NestedPojo {
+        String id;
+        SimplePojo simple;
+        WithArraysPojo arrays;
+    }
+
+    private final JavannaGson javannaGson = new JavannaGson();
+    private final Gson gson = new Gson();
+
+    private Annotations.Nested nested;
+    private NestedPojo nestedPojo;
+
+    @Setup
+    public void setup() {
+        nested = javannaGson.parse( NESTED_JSON, Annotations.Nested.class );
+        nestedPojo = gson.fromJson( NESTED_JSON, NestedPojo.class );
+    }
+
+    @Benchmark
+    public Annotations.Nested parse() {
+        return javannaGson.parse( NESTED_JSON, Annotations.Nested.class );
+    }
+
+    @Benchmark
+    public String toJson() {
+        return javannaGson.toJson( nested );
+    }
+
+    @Benchmark
+    public NestedPojo gsonParseBaseline() {
+        return gson.fromJson( NESTED_JSON, NestedPojo.class );
+    }
+
+    @Benchmark
+    public String gsonToJsonBaseline() {
+        return gson.toJson( nestedPojo );
+    }
+
+}
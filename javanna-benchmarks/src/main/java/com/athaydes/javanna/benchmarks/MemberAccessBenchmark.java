@@ -0,0 +1,87 @@
+package com.athaydes.javanna.benchmarks;
+
+import com.athaydes.javanna.Javanna;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invocation of annotation members on instances created by each Javanna engine.
+ * <p>
+ * Baseline: invoking the same members on the equivalent JDK annotation instances.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class MemberAccessBenchmark {
+
+    @Param( { "PROXY", "GENERATED" } )
+    public Javanna.Engine engine;
+
+    private Javanna.Engine previousEngine;
+    private Annotations.Simple simple;
+    private Annotations.WithArrays withArrays;
+
+    @Setup
+    public void setup() {
+        previousEngine = Javanna.getEngine();
+        Javanna.setEngine( engine );
+        simple = Javanna.createAnnotation( Annotations.Simple.class, Annotations.simpleValues() );
+        withArrays = Javanna.createAnnotation( Annotations.WithArrays.class, Annotations.withArraysValues() );
+    }
+
+    @TearDown
+    public void tearDown() {
+        Javanna.setEngine( previousEngine );
+    }
+
+    @Benchmark
+    public String stringMember() {
+        return simple.name();
+    }
+
+    @Benchmark
+    public int intMember() {
+        return simple.count();
+    }
+
+    @Benchmark
+    public int[] arrayMember() {
+        return withArrays.ports();
+    }
+
+    @Benchmark
+    public int arrayMemberView() {
+        return Javanna.readIntArray( withArrays, "ports" ).get( 0 );
+    }
+
+    @Benchmark
+    public String jdkStringMemberBaseline() {
+        return Annotations.JDK_SIMPLE.name();
+    }
+
+    @Benchmark
+    public int jdkIntMemberBaseline() {
+        return Annotations.JDK_SIMPLE.count();
+    }
+
+    @Benchmark
+    public int[] jdkArrayMemberBaseline() {
+        return Annotations.JDK_WITH_ARRAYS.ports();
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.athaydes.javanna.benchmarks;
+
+import com.athaydes.javanna.Javanna;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code equals}, {@code hashCode} and {@code toString} of annotations created by Javanna.
+ * <p>
+ * Baseline: the same methods on the equivalent JDK annotation instances.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class ObjectMethodsBenchmark {
+
+    private Annotations.Nested nested;
+    private Annotations.Nested otherNested;
+
+    @Setup
+    public void setup() {
+        nested = Javanna.createAnnotation( Annotations.Nested.class, Annotations.nestedValues() );
+        otherNested = Javanna.createAnnotation( Annotations.Nested.class, Annotations.nestedValues() );
+    }
+
+    @Benchmark
+    public boolean equalsJavanna() {
+        return nested.equals( otherNested );
+    }
+
+    @Benchmark
+    public boolean equalsJdk() {
+        return nested.equals( Annotations.JDK_NESTED );
+    }
+
+    @Benchmark
+    public int hashCodeJavanna() {
+        return nested.hashCode();
+    }
+
+    @Benchmark
+    public String toStringJavanna() {
+        return nested.toString();
+    }
+
+    @Benchmark
+    public boolean jdkEqualsBaseline() {
+        return Annotations.JDK_NESTED.equals( nested );
+    }
+
+    @Benchmark
+    public int jdkHashCodeBaseline() {
+        return Annotations.JDK_NESTED.hashCode();
+    }
+
+    @Benchmark
+    public String jdkToStringBaseline() {
+        return Annotations.JDK_NESTED.toString();
+    }
+
+}
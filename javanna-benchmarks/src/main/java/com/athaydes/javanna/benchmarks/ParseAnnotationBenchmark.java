@@ -0,0 +1,49 @@
+package com.athaydes.javanna.benchmarks;
+
+import com.athaydes.javanna.JavaAnnotation;
+import com.athaydes.javanna.Javanna;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of annotation types by {@link Javanna#parseAnnotation(Class)}, with and without the cache.
+ * <p>
+ * Baseline: reading the member types and default values of the same annotation type with JDK reflection.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ParseAnnotationBenchmark {
+
+    @Benchmark
+    public JavaAnnotation<?> javannaCached() {
+        return Javanna.parseAnnotation( Annotations.Nested.class );
+    }
+
+    @Benchmark
+    public JavaAnnotation<?> javannaUncached() {
+        Javanna.invalidateCache( Annotations.Nested.class );
+        return Javanna.parseAnnotation( Annotations.Nested.class );
+    }
+
+    @Benchmark
+    public void jdkReflectionBaseline( Blackhole blackhole ) {
+        for (Method method : Annotations.Nested.class.getDeclaredMethods()) {
+            blackhole.consume( method.getName() );
+            blackhole.consume( method.getReturnType() );
+            blackhole.consume( method.getDefaultValue() );
+        }
+    }
+
+}
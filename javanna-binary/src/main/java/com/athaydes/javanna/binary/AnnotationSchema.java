@@ -0,0 +1,431 @@
+package com.athaydes.javanna.binary;
+
+import com.athaydes.javanna.AnnotationBuilder;
+import com.athaydes.javanna.JavaAnnotation;
+import com.athaydes.javanna.Javanna;
+import com.athaydes.javanna.MemberKind;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * The binary layout of an annotation type.
+ * <p>
+ * Members are written sorted by name, as the order of {@link JavaAnnotation#getTypeByMember()} may differ between
+ * JVM runs. No names or type tags are written, so the same annotation type must be used to read and write the bytes.
+ * To detect a different annotation type, top-level annotations are preceded by the {@link #getFingerprint()
+ * fingerprint} of their schema. Members are written as follows:
+ * <ul>
+ * <li>{@code boolean} and {@code byte}: a single byte.</li>
+ * <li>{@code char}: unsigned varint.</li>
+ * <li>{@code short}, {@code int} and {@code long}: zig-zag encoded varint.</li>
+ * <li>{@code float} and {@code double}: 4 and 8 bytes, big-endian.</li>
+ * <li>String and Class: varint length followed by the UTF-8 bytes of the String or class name.</li>
+ * <li>enum: varint ordinal of the constant.</li>
+ * <li>annotation: varint length, in bytes, followed by the annotation members.</li>
+ * <li>array: varint number of items, followed by the items.</li>
+ * </ul>
+ * Instances are immutable and are created only once for each annotation type.
+ */
+final class AnnotationSchema {
+
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>( 16 );
+
+    static {
+        for (Class<?> type : new Class<?>[]{ boolean.class, byte.class, char.class, short.class, int.class,
+                long.class, float.class, double.class, void.class }) {
+            PRIMITIVE_TYPES.put( type.getName(), type );
+        }
+    }
+
+    private static final ClassValue<AnnotationSchema> SCHEMAS = new ClassValue<AnnotationSchema>() {
+        @Override
+        @SuppressWarnings( "unchecked" )
+        protected AnnotationSchema computeValue( Class<?> type ) {
+            return new AnnotationSchema( Javanna.parseAnnotation( ( Class<? extends Annotation> ) type ) );
+        }
+    };
+
+    private final JavaAnnotation<?> annotation;
+    private final int fingerprint;
+
+    // all arrays are indexed by the position of members in the binary format
+
+    // slots of the members in the annotation
+    private final int[] slots;
+    private final String[] names;
+    private final MemberKind[] kinds;
+    private final boolean[] arrays;
+    private final Class<?>[] itemTypes;
+
+    // only set for enum and annotation members
+    private final Object[][] enumConstants;
+    private final AnnotationSchema[] nestedSchemas;
+
+    static AnnotationSchema of( Class<? extends Annotation> annotationType ) {
+        return SCHEMAS.get( annotationType );
+    }
+
+    private AnnotationSchema( JavaAnnotation<?> annotation ) {
+        this.annotation = annotation;
+        Map<String, Class<?>> typeByMember = annotation.getTypeByMember();
+        int memberCount = typeByMember.size();
+
+        Map<String, Integer> slotByName = new TreeMap<>();
+        for (String member : typeByMember.keySet()) {
+            slotByName.put( member, slotByName.size() );
+        }
+
+        this.slots = new int[ memberCount ];
+        this.names = new String[ memberCount ];
+        this.kinds = new MemberKind[ memberCount ];
+        this.arrays = new boolean[ memberCount ];
+        this.itemTypes = new Class<?>[ memberCount ];
+        this.enumConstants = new Object[ memberCount ][];
+        this.nestedSchemas = new AnnotationSchema[ memberCount ];
+
+        // description of everything the format depends on, from which the fingerprint is computed
+        StringBuilder description = new StringBuilder( annotation.getAnnotationType().getName() );
+
+        int position = 0;
+        for (Map.Entry<String, Integer> entry : slotByName.entrySet()) {
+            int slot = entry.getValue();
+            Class<?> type = typeByMember.get( entry.getKey() );
+            boolean isArray = type.isArray();
+            Class<?> itemType = isArray ? type.getComponentType() : type;
+            MemberKind kind = annotation.getMemberKind( slot );
+
+            slots[ position ] = slot;
+            names[ position ] = entry.getKey();
+            kinds[ position ] = kind;
+            arrays[ position ] = isArray;
+            itemTypes[ position ] = itemType;
+            description.append( ';' ).append( entry.getKey() ).append( ':' ).append( type.getName() );
+
+            if ( kind == MemberKind.ENUM ) {
+                enumConstants[ position ] = itemType.getEnumConstants();
+                for (Object constant : enumConstants[ position ]) {
+                    description.append( ',' ).append( ( ( Enum<?> ) constant ).name() );
+                }
+            } else if ( kind == MemberKind.ANNOTATION ) {
+                // annotation types cannot be nested in themselves, directly or indirectly, so this always terminates
+                nestedSchemas[ position ] = of( itemType.asSubclass( Annotation.class ) );
+                description.append( '#' ).append( nestedSchemas[ position ].fingerprint );
+            }
+            position++;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update( description.toString().getBytes( StandardCharsets.UTF_8 ) );
+        this.fingerprint = ( int ) crc.getValue();
+    }
+
+    JavaAnnotation<?> getAnnotation() {
+        return annotation;
+    }
+
+    /**
+     * @return a checksum of the member names and types (including enum constants and nested annotation schemas)
+     * of the annotation, which changes whenever the annotation type changes in a way that affects the format.
+     */
+    int getFingerprint() {
+        return fingerprint;
+    }
+
+    void write( Annotation instance, BinaryWriter out ) {
+        for (int slot = 0; slot < names.length; slot++) {
+            Object value = annotation.getMemberValue( instance, slots[ slot ] );
+            if ( arrays[ slot ] ) {
+                writeArray( slot, value, out );
+            } else {
+                writeValue( slot, value, out );
+            }
+        }
+    }
+
+    Annotation read( ByteBuffer in ) {
+        AnnotationBuilder<?> builder = annotation.builder();
+        for (int slot = 0; slot < names.length; slot++) {
+            if ( arrays[ slot ] ) {
+                readArray( slot, in, builder );
+            } else {
+                readValue( slot, in, builder );
+            }
+        }
+        return builder.build();
+    }
+
+    private void writeValue( int slot, Object value, BinaryWriter out ) {
+        switch ( kinds[ slot ] ) {
+            case BOOLEAN:
+                out.writeBoolean( ( Boolean ) value );
+                break;
+            case BYTE:
+                out.writeByte( ( Byte ) value );
+                break;
+            case CHAR:
+                out.writeVarint( ( Character ) value );
+                break;
+            case SHORT:
+                out.writeSignedVarint( ( Short ) value );
+                break;
+            case INT:
+                out.writeSignedVarint( ( Integer ) value );
+                break;
+            case LONG:
+                out.writeSignedVarlong( ( Long ) value );
+                break;
+            case FLOAT:
+                out.writeFloat( ( Float ) value );
+                break;
+            case DOUBLE:
+                out.writeDouble( ( Double ) value );
+                break;
+            default:
+                writeItem( slot, value, out );
+        }
+    }
+
+    private void writeItem( int slot, Object value, BinaryWriter out ) {
+        switch ( kinds[ slot ] ) {
+            case STRING:
+                out.writeString( ( String ) value );
+                break;
+            case CLASS:
+                out.writeString( ( ( Class<?> ) value ).getName() );
+                break;
+            case ENUM:
+                out.writeVarint( ( ( Enum<?> ) value ).ordinal() );
+                break;
+            case ANNOTATION:
+                int start = out.beginLengthPrefixed();
+                nestedSchemas[ slot ].write( ( Annotation ) value, out );
+                out.endLengthPrefixed( start );
+                break;
+            default:
+                throw new IllegalStateException( "Unexpected member kind: " + kinds[ slot ] );
+        }
+    }
+
+    private void writeArray( int slot, Object value, BinaryWriter out ) {
+        switch ( kinds[ slot ] ) {
+            case BOOLEAN: {
+                boolean[] array = ( boolean[] ) value;
+                out.writeVarint( array.length );
+                for (boolean item : array) out.writeBoolean( item );
+                break;
+            }
+            case BYTE: {
+                byte[] array = ( byte[] ) value;
+                out.writeVarint( array.length );
+                for (byte item : array) out.writeByte( item );
+                break;
+            }
+            case CHAR: {
+                char[] array = ( char[] ) value;
+                out.writeVarint( array.length );
+                for (char item : array) out.writeVarint( item );
+                break;
+            }
+            case SHORT: {
+                short[] array = ( short[] ) value;
+                out.writeVarint( array.length );
+                for (short item : array) out.writeSignedVarint( item );
+                break;
+            }
+            case INT: {
+                int[] array = ( int[] ) value;
+                out.writeVarint( array.length );
+                for (int item : array) out.writeSignedVarint( item );
+                break;
+            }
+            case LONG: {
+                long[] array = ( long[] ) value;
+                out.writeVarint( array.length );
+                for (long item : array) out.writeSignedVarlong( item );
+                break;
+            }
+            case FLOAT: {
+                float[] array = ( float[] ) value;
+                out.writeVarint( array.length );
+                for (float item : array) out.writeFloat( item );
+                break;
+            }
+            case DOUBLE: {
+                double[] array = ( double[] ) value;
+                out.writeVarint( array.length );
+                for (double item : array) out.writeDouble( item );
+                break;
+            }
+            default: {
+                Object[] array = ( Object[] ) value;
+                out.writeVarint( array.length );
+                for (Object item : array) writeItem( slot, item, out );
+            }
+        }
+    }
+
+    private void readValue( int slot, ByteBuffer in, AnnotationBuilder<?> builder ) {
+        String name = names[ slot ];
+        switch ( kinds[ slot ] ) {
+            case BOOLEAN:
+                builder.set( name, BinaryReader.readBoolean( in ) );
+                break;
+            case BYTE:
+                builder.set( name, in.get() );
+                break;
+            case CHAR:
+                builder.set( name, readChar( in ) );
+                break;
+            case SHORT:
+                builder.set( name, readShort( in ) );
+                break;
+            case INT:
+                builder.set( name, BinaryReader.readSignedVarint( in ) );
+                break;
+            case LONG:
+                builder.set( name, BinaryReader.readSignedVarlong( in ) );
+                break;
+            case FLOAT:
+                builder.set( name, BinaryReader.readFloat( in ) );
+                break;
+            case DOUBLE:
+                builder.set( name, BinaryReader.readDouble( in ) );
+                break;
+            default:
+                builder.set( name, readItem( slot, in ) );
+        }
+    }
+
+    private Object readItem( int slot, ByteBuffer in ) {
+        switch ( kinds[ slot ] ) {
+            case STRING:
+                return BinaryReader.readString( in );
+            case CLASS:
+                return classForName( BinaryReader.readString( in ) );
+            case ENUM:
+                int ordinal = BinaryReader.readVarint( in );
+                Object[] constants = enumConstants[ slot ];
+                if ( ordinal < 0 || ordinal >= constants.length ) {
+                    throw BinaryReader.invalid( "no constant of " + itemTypes[ slot ].getName() +
+                            " with ordinal " + ( ordinal & 0xFFFFFFFFL ) );
+                }
+                return constants[ ordinal ];
+            case ANNOTATION:
+                int length = BinaryReader.readLength( in );
+                int end = in.position() + length;
+                Annotation result = nestedSchemas[ slot ].read( in );
+                if ( in.position() != end ) {
+                    throw BinaryReader.invalid( "nested annotation of type " + itemTypes[ slot ].getName() +
+                            " does not match its length" );
+                }
+                return result;
+            default:
+                throw new IllegalStateException( "Unexpected member kind: " + kinds[ slot ] );
+        }
+    }
+
+    private void readArray( int slot, ByteBuffer in, AnnotationBuilder<?> builder ) {
+        String name = names[ slot ];
+        int length = BinaryReader.readLength( in );
+        switch ( kinds[ slot ] ) {
+            case BOOLEAN: {
+                boolean[] array = new boolean[ length ];
+                for (int i = 0; i < length; i++) array[ i ] = BinaryReader.readBoolean( in );
+                builder.setOwned( name, array );
+                break;
+            }
+            case BYTE: {
+                byte[] array = new byte[ length ];
+                in.get( array );
+                builder.setOwned( name, array );
+                break;
+            }
+            case CHAR: {
+                char[] array = new char[ length ];
+                for (int i = 0; i < length; i++) array[ i ] = readChar( in );
+                builder.setOwned( name, array );
+                break;
+            }
+            case SHORT: {
+                short[] array = new short[ length ];
+                for (int i = 0; i < length; i++) array[ i ] = readShort( in );
+                builder.setOwned( name, array );
+                break;
+            }
+            case INT: {
+                int[] array = new int[ length ];
+                for (int i = 0; i < length; i++) array[ i ] = BinaryReader.readSignedVarint( in );
+                builder.setOwned( name, array );
+                break;
+            }
+            case LONG: {
+                long[] array = new long[ length ];
+                for (int i = 0; i < length; i++) array[ i ] = BinaryReader.readSignedVarlong( in );
+                builder.setOwned( name, array );
+                break;
+            }
+            case FLOAT: {
+                float[] array = new float[ length ];
+                for (int i = 0; i < length; i++) array[ i ] = BinaryReader.readFloat( in );
+                builder.setOwned( name, array );
+                break;
+            }
+            case DOUBLE: {
+                double[] array = new double[ length ];
+                for (int i = 0; i < length; i++) array[ i ] = BinaryReader.readDouble( in );
+                builder.setOwned( name, array );
+                break;
+            }
+            default: {
+                Object[] array = ( Object[] ) Array.newInstance( itemTypes[ slot ], length );
+                for (int i = 0; i < length; i++) array[ i ] = readItem( slot, in );
+                builder.setOwned( name, array );
+            }
+        }
+    }
+
+    private static char readChar( ByteBuffer in ) {
+        int value = BinaryReader.readVarint( in );
+        if ( value < 0 || value > Character.MAX_VALUE ) {
+            throw BinaryReader.invalid( "char value out of range: " + ( value & 0xFFFFFFFFL ) );
+        }
+        return ( char ) value;
+    }
+
+    private static short readShort( ByteBuffer in ) {
+        int value = BinaryReader.readSignedVarint( in );
+        if ( value < Short.MIN_VALUE || value > Short.MAX_VALUE ) {
+            throw BinaryReader.invalid( "short value out of range: " + value );
+        }
+        return ( short ) value;
+    }
+
+    private Class<?> classForName( String name ) {
+        Class<?> primitive = PRIMITIVE_TYPES.get( name );
+        if ( primitive != null ) {
+            return primitive;
+        }
+        ClassLoader loader = annotation.getAnnotationType().getClassLoader();
+        try {
+            return Class.forName( name, false, loader );
+        } catch ( ClassNotFoundException e ) {
+            ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+            if ( contextLoader != null && contextLoader != loader ) {
+                try {
+                    return Class.forName( name, false, contextLoader );
+                } catch ( ClassNotFoundException e2 ) {
+                    // fall through
+                }
+            }
+            throw BinaryReader.invalid( "class not found: " + name );
+        }
+    }
+
+}
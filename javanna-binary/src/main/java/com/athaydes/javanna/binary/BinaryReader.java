@@ -0,0 +1,108 @@
+package com.athaydes.javanna.binary;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the primitives of the binary annotation format directly from a {@link ByteBuffer}.
+ * <p>
+ * Reading past the limit of the buffer causes a {@link java.nio.BufferUnderflowException}.
+ */
+final class BinaryReader {
+
+    private BinaryReader() {
+        // private
+    }
+
+    static boolean readBoolean( ByteBuffer in ) {
+        byte value = in.get();
+        if ( value == 0 ) return false;
+        if ( value == 1 ) return true;
+        throw invalid( "invalid boolean value: " + value );
+    }
+
+    static int readVarint( ByteBuffer in ) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            result |= ( b & 0x7F ) << shift;
+            if ( b >= 0 ) {
+                return result;
+            }
+        }
+        throw invalid( "malformed varint" );
+    }
+
+    static long readVarlong( ByteBuffer in ) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            result |= ( long ) ( b & 0x7F ) << shift;
+            if ( b >= 0 ) {
+                return result;
+            }
+        }
+        throw invalid( "malformed varint" );
+    }
+
+    static int readSignedVarint( ByteBuffer in ) {
+        int value = readVarint( in );
+        return ( value >>> 1 ) ^ -( value & 1 );
+    }
+
+    static long readSignedVarlong( ByteBuffer in ) {
+        long value = readVarlong( in );
+        return ( value >>> 1 ) ^ -( value & 1 );
+    }
+
+    static float readFloat( ByteBuffer in ) {
+        return Float.intBitsToFloat( readFixedInt( in ) );
+    }
+
+    static double readDouble( ByteBuffer in ) {
+        long high = readFixedInt( in ) & 0xFFFFFFFFL;
+        long low = readFixedInt( in ) & 0xFFFFFFFFL;
+        return Double.longBitsToDouble( ( high << 32 ) | low );
+    }
+
+    static String readString( ByteBuffer in ) {
+        int length = readLength( in );
+        String result;
+        if ( in.hasArray() ) {
+            result = new String( in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8 );
+            in.position( in.position() + length );
+        } else {
+            byte[] bytes = new byte[ length ];
+            in.get( bytes );
+            result = new String( bytes, StandardCharsets.UTF_8 );
+        }
+        return result;
+    }
+
+    /**
+     * Read the length of an array, String or nested annotation, checking that it is within the buffer's limit.
+     */
+    static int readLength( ByteBuffer in ) {
+        int length = readVarint( in );
+        if ( length < 0 ) {
+            throw invalid( "length out of bounds: " + ( length & 0xFFFFFFFFL ) );
+        }
+        if ( length > in.remaining() ) {
+            throw new BufferUnderflowException();
+        }
+        return length;
+    }
+
+    static IllegalArgumentException invalid( String reason ) {
+        return new IllegalArgumentException( "Not a valid binary annotation: " + reason );
+    }
+
+    static int readFixedInt( ByteBuffer in ) {
+        return ( ( in.get() & 0xFF ) << 24 ) |
+                ( ( in.get() & 0xFF ) << 16 ) |
+                ( ( in.get() & 0xFF ) << 8 ) |
+                ( in.get() & 0xFF );
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.athaydes.javanna.binary;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable output buffer for the binary annotation format.
+ * <p>
+ * Instances are not thread-safe.
+ */
+final class BinaryWriter {
+
+    private byte[] buffer;
+    private int size;
+
+    BinaryWriter( int initialCapacity ) {
+        this.buffer = new byte[ Math.max( 16, initialCapacity ) ];
+    }
+
+    int size() {
+        return size;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf( buffer, size );
+    }
+
+    void writeTo( ByteBuffer target ) {
+        target.put( buffer, 0, size );
+    }
+
+    void writeByte( int value ) {
+        ensureCapacity( 1 );
+        buffer[ size++ ] = ( byte ) value;
+    }
+
+    void writeBoolean( boolean value ) {
+        writeByte( value ? 1 : 0 );
+    }
+
+    /**
+     * Write an unsigned varint: 7 bits per byte, least significant group first.
+     */
+    void writeVarint( int value ) {
+        ensureCapacity( 5 );
+        while ( ( value & ~0x7F ) != 0 ) {
+            buffer[ size++ ] = ( byte ) ( ( value & 0x7F ) | 0x80 );
+            value >>>= 7;
+        }
+        buffer[ size++ ] = ( byte ) value;
+    }
+
+    void writeVarlong( long value ) {
+        ensureCapacity( 10 );
+        while ( ( value & ~0x7FL ) != 0 ) {
+            buffer[ size++ ] = ( byte ) ( ( value & 0x7F ) | 0x80 );
+            value >>>= 7;
+        }
+        buffer[ size++ ] = ( byte ) value;
+    }
+
+    /**
+     * Write a signed value as a zig-zag encoded varint, so that small negative values are also short.
+     */
+    void writeSignedVarint( int value ) {
+        writeVarint( ( value << 1 ) ^ ( value >> 31 ) );
+    }
+
+    void writeSignedVarlong( long value ) {
+        writeVarlong( ( value << 1 ) ^ ( value >> 63 ) );
+    }
+
+    void writeFloat( float value ) {
+        writeFixedInt( Float.floatToRawIntBits( value ) );
+    }
+
+    void writeDouble( double value ) {
+        long bits = Double.doubleToRawLongBits( value );
+        writeFixedInt( ( int ) ( bits >>> 32 ) );
+        writeFixedInt( ( int ) bits );
+    }
+
+    void writeString( String value ) {
+        byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+        writeVarint( bytes.length );
+        ensureCapacity( bytes.length );
+        System.arraycopy( bytes, 0, buffer, size, bytes.length );
+        size += bytes.length;
+    }
+
+    /**
+     * Start a length-prefixed section.
+     * <p>
+     * A single byte is reserved for the length, which is enough for sections shorter than 128 bytes.
+     * Longer sections are shifted when the section ends.
+     *
+     * @return the start of the section, which must be passed to {@link #endLengthPrefixed(int)}.
+     */
+    int beginLengthPrefixed() {
+        ensureCapacity( 1 );
+        return size++;
+    }
+
+    void endLengthPrefixed( int start ) {
+        int length = size - start - 1;
+        int prefixSize = varintSize( length );
+        if ( prefixSize > 1 ) {
+            ensureCapacity( prefixSize - 1 );
+            System.arraycopy( buffer, start + 1, buffer, start + prefixSize, length );
+            size += prefixSize - 1;
+        }
+        int position = start;
+        while ( ( length & ~0x7F ) != 0 ) {
+            buffer[ position++ ] = ( byte ) ( ( length & 0x7F ) | 0x80 );
+            length >>>= 7;
+        }
+        buffer[ position ] = ( byte ) length;
+    }
+
+    void writeFixedInt( int value ) {
+        ensureCapacity( 4 );
+        buffer[ size++ ] = ( byte ) ( value >>> 24 );
+        buffer[ size++ ] = ( byte ) ( value >>> 16 );
+        buffer[ size++ ] = ( byte ) ( value >>> 8 );
+        buffer[ size++ ] = ( byte ) value;
+    }
+
+    private static int varintSize( int value ) {
+        int result = 1;
+        while ( ( value & ~0x7F ) != 0 ) {
+            value >>>= 7;
+            result++;
+        }
+        return result;
+    }
+
+    private void ensureCapacity( int extra ) {
+        if ( size + extra > buffer.length ) {
+            buffer = Arrays.copyOf( buffer, Math.max( buffer.length * 2, size + extra ) );
+        }
+    }
+
+}
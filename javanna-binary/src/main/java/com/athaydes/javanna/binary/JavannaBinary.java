@@ -0,0 +1,106 @@
+package com.athaydes.javanna.binary;
+
+import java.lang.annotation.Annotation;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A <a href="https://github.com/renatoathaydes/javanna">Javanna</a> extension
+ * to write annotation instances to, and read them from, a compact binary format.
+ * <p>
+ * The format is driven by the annotation type: member values are written sorted by member name, without
+ * member names or type tags, using varints for integral values. For this reason, the bytes can only be read
+ * with the same version of the annotation type that was used to write them. Enum constants are written as their
+ * ordinal, so re-ordering the constants of an enum also changes the format.
+ * <p>
+ * Each annotation starts with a 4-byte fingerprint of the names and types of its members, so that bytes written
+ * with a different version of the annotation type are rejected instead of being read into the wrong members.
+ * <p>
+ * Values are read directly from a {@link ByteBuffer} into annotation instances, without any intermediate
+ * {@link java.util.Map}. Several annotations may be written one after the other to the same buffer.
+ * <p>
+ * No instance of this class can be created. It only contains static methods, which are thread-safe.
+ */
+public final class JavannaBinary {
+
+    private JavannaBinary() {
+        // private
+    }
+
+    /**
+     * Write an annotation in the binary format.
+     *
+     * @param annotation annotation instance. It may or may not have been created by Javanna.
+     * @return the bytes of the annotation.
+     */
+    public static byte[] encode( Annotation annotation ) {
+        return write( annotation ).toByteArray();
+    }
+
+    /**
+     * Write an annotation in the binary format into the given buffer, starting at its position.
+     *
+     * @param annotation annotation instance. It may or may not have been created by Javanna.
+     * @param buffer     buffer to write to. Its position is advanced by the number of bytes written.
+     * @return the number of bytes written.
+     * @throws BufferOverflowException if there is not enough space remaining in the buffer, in which case
+     *                                 nothing is written.
+     */
+    public static int encode( Annotation annotation, ByteBuffer buffer ) {
+        BinaryWriter writer = write( annotation );
+        writer.writeTo( buffer );
+        return writer.size();
+    }
+
+    /**
+     * Read an annotation that was written with {@link #encode(Annotation)}.
+     *
+     * @param bytes      the bytes of the annotation
+     * @param annotation annotation type
+     * @param <A>        type of the annotation
+     * @return the annotation instance.
+     * @throws IllegalArgumentException if the bytes are not a valid binary representation of the annotation type.
+     */
+    public static <A extends Annotation> A decode( byte[] bytes, Class<A> annotation ) {
+        ByteBuffer buffer = ByteBuffer.wrap( bytes );
+        A result = decode( buffer, annotation );
+        if ( buffer.hasRemaining() ) {
+            throw BinaryReader.invalid( buffer.remaining() + " unexpected byte(s) after annotation of type " +
+                    annotation.getName() );
+        }
+        return result;
+    }
+
+    /**
+     * Read an annotation from the given buffer, starting at its position.
+     *
+     * @param buffer     buffer to read from. Its position is advanced to the end of the annotation.
+     * @param annotation annotation type
+     * @param <A>        type of the annotation
+     * @return the annotation instance.
+     * @throws IllegalArgumentException if the bytes are not a valid binary representation of the annotation type.
+     */
+    public static <A extends Annotation> A decode( ByteBuffer buffer, Class<A> annotation ) {
+        AnnotationSchema schema = AnnotationSchema.of( annotation );
+        try {
+            if ( BinaryReader.readFixedInt( buffer ) != schema.getFingerprint() ) {
+                throw BinaryReader.invalid( "fingerprint does not match annotation type " + annotation.getName() +
+                        " (the bytes were written with a different version of the type)" );
+            }
+            return annotation.cast( schema.read( buffer ) );
+        } catch ( BufferUnderflowException e ) {
+            throw BinaryReader.invalid( "unexpected end of input reading annotation of type " +
+                    annotation.getName() );
+        }
+    }
+
+    private static BinaryWriter write( Annotation annotation ) {
+        AnnotationSchema schema = AnnotationSchema.of( annotation.annotationType() );
+        BinaryWriter writer = new BinaryWriter( 4 + 8 * schema.getAnnotation().getMembers().size() );
+        writer.writeFixedInt( schema.getFingerprint() );
+        schema.write( annotation, writer );
+        return writer;
+    }
+
+}
@@ -0,0 +1,249 @@
+package com.athaydes.javanna.binary;
+
+import com.athaydes.javanna.Javanna;
+import org.junit.Test;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JavannaBinaryTest {
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface Port {
+        int value();
+    }
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface OtherPort {
+        int value();
+    }
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface Pair {
+        int second();
+
+        int first();
+    }
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface Everything {
+        boolean flag() default true;
+
+        byte b() default -1;
+
+        char c() default 'é';
+
+        short s() default -300;
+
+        int i() default Integer.MIN_VALUE;
+
+        long l() default Long.MAX_VALUE;
+
+        float f() default Float.NaN;
+
+        double d() default -0.5;
+
+        String text() default "héllo";
+
+        Class<?> type() default int[].class;
+
+        ElementType element() default ElementType.METHOD;
+
+        Port port() default @Port( 8080 );
+
+        boolean[] flags() default { true, false };
+
+        byte[] bytes() default { 1, -2 };
+
+        char[] chars() default { 'a', 'ሴ' };
+
+        short[] shorts() default { Short.MIN_VALUE };
+
+        int[] ints() default { 0, -1, 1000000 };
+
+        long[] longs() default { Long.MIN_VALUE };
+
+        float[] floats() default { 1.5f };
+
+        double[] doubles() default { Double.NEGATIVE_INFINITY };
+
+        String[] texts() default { "a", "" };
+
+        Class<?>[] types() default { String.class, void.class };
+
+        ElementType[] elements() default { ElementType.TYPE, ElementType.FIELD };
+
+        Port[] ports() default { @Port( 1 ), @Port( -1 ) };
+    }
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface Wrapper {
+        Everything value();
+
+        String after();
+    }
+
+    @Everything
+    @Wrapper( value = @Everything( text = "nested" ), after = "end" )
+    private static class Annotated {
+    }
+
+    @Test
+    public void canEncodeAndDecodeCompilerCreatedAnnotations() {
+        Everything everything = Annotated.class.getAnnotation( Everything.class );
+
+        Everything decoded = JavannaBinary.decode( JavannaBinary.encode( everything ), Everything.class );
+
+        assertEquals( everything, decoded );
+        assertEquals( everything.hashCode(), decoded.hashCode() );
+    }
+
+    @Test
+    public void canEncodeAndDecodeJavannaCreatedAnnotations() {
+        Map<String, Object> values = new HashMap<>();
+        values.put( "text", "created" );
+        values.put( "ints", new int[]{ 42 } );
+        values.put( "port", Javanna.createAnnotation( Port.class, singleValue( 22 ) ) );
+        Everything everything = Javanna.createAnnotation( Everything.class, values );
+
+        Everything decoded = JavannaBinary.decode( JavannaBinary.encode( everything ), Everything.class );
+
+        assertEquals( everything, decoded );
+        assertEquals( "created", decoded.text() );
+        assertArrayEquals( new int[]{ 42 }, decoded.ints() );
+        assertEquals( 22, decoded.port().value() );
+    }
+
+    @Test
+    public void canEncodeAndDecodeLongNestedAnnotations() {
+        Wrapper wrapper = Annotated.class.getAnnotation( Wrapper.class );
+
+        byte[] bytes = JavannaBinary.encode( wrapper );
+
+        // the nested annotation is longer than 127 bytes, so its length prefix takes 2 bytes
+        assertTrue( bytes.length > 130 );
+        assertEquals( wrapper, JavannaBinary.decode( bytes, Wrapper.class ) );
+    }
+
+    @Test
+    public void smallValuesAreEncodedCompactly() {
+        assertArrayEquals( new byte[]{ 0 }, withoutFingerprint( JavannaBinary.encode( port( 0 ) ) ) );
+        assertArrayEquals( new byte[]{ 1 }, withoutFingerprint( JavannaBinary.encode( port( -1 ) ) ) );
+        assertArrayEquals( new byte[]{ 2 }, withoutFingerprint( JavannaBinary.encode( port( 1 ) ) ) );
+        assertEquals( 2, withoutFingerprint( JavannaBinary.encode( port( 8080 ) ) ).length );
+        assertEquals( 5, withoutFingerprint( JavannaBinary.encode( port( Integer.MIN_VALUE ) ) ).length );
+    }
+
+    @Test
+    public void membersAreWrittenSortedByName() {
+        Map<String, Object> values = new HashMap<>();
+        values.put( "first", 1 );
+        values.put( "second", 2 );
+
+        byte[] bytes = JavannaBinary.encode( Javanna.createAnnotation( Pair.class, values ) );
+
+        assertArrayEquals( new byte[]{ 2, 4 }, withoutFingerprint( bytes ) );
+    }
+
+    @Test
+    public void bytesOfAnotherAnnotationTypeAreRejected() {
+        try {
+            JavannaBinary.decode( JavannaBinary.encode( port( 1 ) ), OtherPort.class );
+            fail( "Should not be able to decode bytes of another annotation type" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "Not a valid binary annotation: fingerprint does not match annotation type " +
+                    OtherPort.class.getName() + " (the bytes were written with a different version of the type)",
+                    e.getMessage() );
+        }
+    }
+
+    @Test
+    public void canWriteAndReadManyAnnotationsInTheSameBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect( 128 );
+        for (int i = 0; i < 10; i++) {
+            JavannaBinary.encode( port( i * 1000 ), buffer );
+        }
+        buffer.flip();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals( i * 1000, JavannaBinary.decode( buffer, Port.class ).value() );
+        }
+        assertEquals( 0, buffer.remaining() );
+    }
+
+    @Test
+    public void truncatedInputIsRejected() {
+        byte[] bytes = JavannaBinary.encode( Annotated.class.getAnnotation( Everything.class ) );
+
+        // input may be truncated within any member
+        for (int length = 0; length < bytes.length; length++) {
+            try {
+                JavannaBinary.decode( Arrays.copyOf( bytes, length ), Everything.class );
+                fail( "Should not be able to decode input truncated to " + length + " bytes" );
+            } catch ( IllegalArgumentException e ) {
+                assertEquals( "Not a valid binary annotation: unexpected end of input reading annotation of type " +
+                        Everything.class.getName(), e.getMessage() );
+            }
+        }
+    }
+
+    @Test
+    public void trailingBytesAreRejected() {
+        try {
+            JavannaBinary.decode( Arrays.copyOf( JavannaBinary.encode( port( 1 ) ), 6 ), Port.class );
+            fail( "Should not be able to decode input with trailing bytes" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "Not a valid binary annotation: 1 unexpected byte(s) after annotation of type " +
+                    Port.class.getName(), e.getMessage() );
+        }
+    }
+
+    @Test
+    public void invalidEnumOrdinalIsRejected() {
+        byte[] bytes = JavannaBinary.encode( Annotated.class.getAnnotation( Everything.class ) );
+        Everything everything = Javanna.createAnnotation( Everything.class, singleValue( "element", ElementType.TYPE ) );
+        byte[] typeBytes = JavannaBinary.encode( everything );
+
+        // the only difference is the ordinal of the 'element' member
+        int index = 0;
+        while ( bytes[ index ] == typeBytes[ index ] ) index++;
+        bytes[ index ] = 127;
+
+        try {
+            JavannaBinary.decode( bytes, Everything.class );
+            fail( "Should not be able to decode an invalid enum ordinal" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "Not a valid binary annotation: no constant of java.lang.annotation.ElementType " +
+                    "with ordinal 127", e.getMessage() );
+        }
+    }
+
+    private static byte[] withoutFingerprint( byte[] bytes ) {
+        return Arrays.copyOfRange( bytes, 4, bytes.length );
+    }
+
+    private static Port port( int value ) {
+        return Javanna.createAnnotation( Port.class, singleValue( value ) );
+    }
+
+    private static Map<String, Object> singleValue( Object value ) {
+        return singleValue( "value", value );
+    }
+
+    private static Map<String, Object> singleValue( String member, Object value ) {
+        Map<String, Object> values = new HashMap<>( 2 );
+        values.put( member, value );
+        return values;
+    }
+
+}
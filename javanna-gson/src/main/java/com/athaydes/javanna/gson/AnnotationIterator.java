@@ -0,0 +1,135 @@
+package com.athaydes.javanna.gson;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy iterator over the annotations contained in a JSON document.
+ * <p>
+ * The document may be either a JSON array of objects, or a sequence of JSON objects such as
+ * newline-delimited JSON (NDJSON). Each annotation is only parsed when {@link #next()} is called, so memory usage
+ * does not depend on the size of the document.
+ * <p>
+ * If an element cannot be converted into an annotation, {@link #next()} throws an {@link IllegalArgumentException}
+ * whose message contains the index of the element, but the iteration may continue with the next element.
+ * If the document is not valid JSON, a {@link JsonSyntaxException} is thrown and the iteration ends.
+ * <p>
+ * Instances of this class are not thread-safe. {@link #close()} closes the underlying reader.
+ *
+ * @param <A> type of the annotations
+ * @see JavannaGson#parseAll(java.io.Reader, Class)
+ */
+public final class AnnotationIterator<A extends Annotation> implements Iterator<A>, Closeable {
+
+    private final JsonReader reader;
+    private final AnnotationSchema<A> schema;
+
+    private boolean started;
+    private boolean inArray;
+    private boolean finished;
+    private int index;
+
+    AnnotationIterator( JsonReader reader, AnnotationSchema<A> schema ) {
+        this.reader = reader;
+        this.schema = schema;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if ( finished ) {
+            return false;
+        }
+        try {
+            if ( !started ) {
+                started = true;
+                if ( reader.peek() == JsonToken.BEGIN_ARRAY ) {
+                    reader.beginArray();
+                    inArray = true;
+                }
+            }
+            if ( inArray ) {
+                if ( reader.hasNext() ) {
+                    return true;
+                }
+                reader.endArray();
+                if ( reader.peek() != JsonToken.END_DOCUMENT ) {
+                    finished = true;
+                    throw new JsonIOException( "JSON document was not fully consumed." );
+                }
+            } else if ( reader.peek() != JsonToken.END_DOCUMENT ) {
+                return true;
+            }
+            finished = true;
+            return false;
+        } catch ( IOException | IllegalStateException e ) {
+            throw fail( e );
+        }
+    }
+
+    /**
+     * @return the next annotation.
+     * @throws IllegalArgumentException if the next element cannot be converted into an annotation.
+     *                                  The iteration may continue.
+     * @throws NoSuchElementException   if there are no more elements.
+     */
+    @Override
+    public A next() {
+        if ( !hasNext() ) {
+            throw new NoSuchElementException();
+        }
+        int elementIndex = index++;
+        try {
+            if ( reader.peek() != JsonToken.BEGIN_OBJECT ) {
+                JsonToken token = reader.peek();
+                reader.skipValue();
+                throw new IllegalArgumentException( "Expected a JSON object but found " + token );
+            }
+            return schema.read( reader );
+        } catch ( IllegalArgumentException e ) {
+            throw new IllegalArgumentException( "Invalid annotation at index " + elementIndex + ": " +
+                    e.getMessage(), e );
+        } catch ( IOException | IllegalStateException e ) {
+            throw fail( e );
+        }
+    }
+
+    /**
+     * @return the number of elements returned (or rejected) by {@link #next()} so far.
+     */
+    public int getCount() {
+        return index;
+    }
+
+    /**
+     * Unsupported operation.
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException( "remove" );
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        reader.close();
+    }
+
+    private RuntimeException fail( Exception e ) {
+        finished = true;
+        if ( e instanceof EOFException || e instanceof MalformedJsonException || e instanceof IllegalStateException ) {
+            return new JsonSyntaxException( e );
+        }
+        return new JsonIOException( e );
+    }
+
+}
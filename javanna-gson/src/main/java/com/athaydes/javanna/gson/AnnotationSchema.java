@@ -0,0 +1,641 @@
+package com.athaydes.javanna.gson;
+
+import com.athaydes.javanna.AnnotationBuilder;
+import com.athaydes.javanna.JavaAnnotation;
+import com.athaydes.javanna.Javanna;
+import com.athaydes.javanna.MemberKind;
+import com.athaydes.javanna.MetricsListener;
+import com.athaydes.javanna.ValidationFailure;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JSON layout of an annotation type.
+ * <p>
+ * Annotations are written member by member, in the order given by {@link JavaAnnotation#getTypeByMember()},
+ * reading member values through {@link JavaAnnotation#getMemberValue(Annotation, int)}.
+ * Enums are written as their names, classes as their type names (e.g. {@code java.lang.String[]})
+ * and chars as Strings.
+ * <p>
+ * JSON documents are read token by token, guided by the type of each member: numbers are read straight into
+ * the member's primitive type, and arrays and nested annotations straight into their final form.
+ * Values that do not have the expected form are handed over to Javanna as generic values
+ * (String, Boolean, Long, Double, List or Map), so that they are converted or reported in the same way as by
+ * {@link Javanna#createAnnotation(Class, Map)}.
+ * <p>
+ * The time taken to read or write each top-level annotation is reported to the current {@link MetricsListener},
+ * if any.
+ * <p>
+ * Instances are immutable and are created only once for each annotation type.
+ */
+final class AnnotationSchema<A extends Annotation> {
+
+    /**
+     * Name of the JSON format, as reported to the {@link MetricsListener}.
+     */
+    static final String FORMAT = "json";
+
+    private static final ClassValue<AnnotationSchema<?>> SCHEMAS = new ClassValue<AnnotationSchema<?>>() {
+        @Override
+        @SuppressWarnings( "unchecked" )
+        protected AnnotationSchema<?> computeValue( Class<?> type ) {
+            return new AnnotationSchema<>( Javanna.parseAnnotation( ( Class<? extends Annotation> ) type ) );
+        }
+    };
+
+    private final JavaAnnotation<A> annotation;
+    private final Map<String, Integer> slotByName;
+    private final String[] names;
+    private final MemberKind[] kinds;
+    private final boolean[] arrays;
+    private final boolean[] mandatory;
+    private final Class<?>[] itemTypes;
+
+    // only set for annotation members
+    private final AnnotationSchema<?>[] nestedSchemas;
+
+    private final TypeAdapter<A> typeAdapter = new AnnotationTypeAdapter<>( this ).nullSafe();
+
+    @SuppressWarnings( "unchecked" )
+    static <A extends Annotation> AnnotationSchema<A> of( Class<A> annotationType ) {
+        return ( AnnotationSchema<A> ) SCHEMAS.get( annotationType );
+    }
+
+    private AnnotationSchema( JavaAnnotation<A> annotation ) {
+        this.annotation = annotation;
+        Map<String, Class<?>> typeByMember = annotation.getTypeByMember();
+        int memberCount = typeByMember.size();
+        this.slotByName = new HashMap<>( memberCount * 2 );
+        this.names = new String[ memberCount ];
+        this.kinds = new MemberKind[ memberCount ];
+        this.arrays = new boolean[ memberCount ];
+        this.mandatory = new boolean[ memberCount ];
+        this.itemTypes = new Class<?>[ memberCount ];
+        this.nestedSchemas = new AnnotationSchema<?>[ memberCount ];
+
+        int slot = 0;
+        for (Map.Entry<String, Class<?>> entry : typeByMember.entrySet()) {
+            Class<?> type = entry.getValue();
+            boolean isArray = type.isArray();
+            Class<?> itemType = isArray ? type.getComponentType() : type;
+            MemberKind kind = annotation.getMemberKind( slot );
+
+            slotByName.put( entry.getKey(), slot );
+            names[ slot ] = entry.getKey();
+            kinds[ slot ] = kind;
+            arrays[ slot ] = isArray;
+            mandatory[ slot ] = !annotation.getDefaultValueByMember().containsKey( entry.getKey() );
+            itemTypes[ slot ] = itemType;
+
+            if ( kind == MemberKind.ANNOTATION ) {
+                // annotation types cannot be nested in themselves, directly or indirectly, so this always terminates
+                nestedSchemas[ slot ] = of( itemType.asSubclass( Annotation.class ) );
+            }
+            slot++;
+        }
+    }
+
+    JavaAnnotation<A> getAnnotation() {
+        return annotation;
+    }
+
+    /**
+     * @return the Gson type adapter of this annotation type, which also handles null values.
+     */
+    TypeAdapter<A> getTypeAdapter() {
+        return typeAdapter;
+    }
+
+    /**
+     * Read a JSON object into an annotation instance.
+     * <p>
+     * If the object is not valid JSON, it is always read until its end before an {@link IllegalArgumentException}
+     * is thrown, so that the reader can be used to read the next JSON value.
+     *
+     * @param in reader positioned at the start of the JSON object
+     * @return the annotation instance.
+     * @throws IOException              if the reader throws
+     * @throws IllegalArgumentException if a mandatory value is missing, a value has an invalid type or values are
+     *                                  provided for non-existing members.
+     */
+    A read( JsonReader in ) throws IOException {
+        MetricsListener metrics = Javanna.getMetricsListener();
+        if ( metrics == null ) {
+            return readObject( in );
+        }
+        long start = System.nanoTime();
+        A result = readObject( in );
+        metrics.annotationDeserialized( annotation.getAnnotationType(), FORMAT, System.nanoTime() - start );
+        return result;
+    }
+
+    /**
+     * Write an annotation instance as a JSON object.
+     *
+     * @param out      writer
+     * @param instance instance of this annotation. It may or may not have been created by Javanna.
+     * @throws IOException if the writer throws
+     */
+    void write( JsonWriter out, Annotation instance ) throws IOException {
+        MetricsListener metrics = Javanna.getMetricsListener();
+        if ( metrics == null ) {
+            writeObject( out, instance );
+            return;
+        }
+        long start = System.nanoTime();
+        writeObject( out, instance );
+        metrics.annotationSerialized( annotation.getAnnotationType(), FORMAT, System.nanoTime() - start );
+    }
+
+    private A readObject( JsonReader in ) throws IOException {
+        MetricsListener metrics = Javanna.getMetricsListener();
+        long start = metrics == null ? 0L : System.nanoTime();
+        AnnotationBuilder<A> builder = annotation.builder();
+        boolean[] found = new boolean[ names.length ];
+        List<String> notMembers = null;
+        IllegalArgumentException nestedError = null;
+
+        in.beginObject();
+        while ( in.hasNext() ) {
+            String name = in.nextName();
+            Integer slot = slotByName.get( name );
+            if ( slot == null ) {
+                in.skipValue();
+                if ( notMembers == null ) {
+                    notMembers = new ArrayList<>( 2 );
+                }
+                notMembers.add( name );
+            } else {
+                found[ slot ] = true;
+                try {
+                    if ( arrays[ slot ] ) {
+                        readArray( slot, in, builder );
+                    } else {
+                        readValue( slot, in, builder );
+                    }
+                } catch ( IllegalArgumentException e ) {
+                    // invalid nested annotations have already been fully read. As in Javanna, values are only
+                    // checked until the first non-existing member is found
+                    if ( nestedError == null && notMembers == null ) {
+                        nestedError = e;
+                    }
+                }
+            }
+        }
+        in.endObject();
+
+        if ( nestedError != null ) {
+            throw nestedError;
+        }
+        if ( notMembers != null ) {
+            // missing members are reported first, as by Javanna (otherwise, they are reported by the builder)
+            List<String> missingMembers = missingMembers( found );
+            if ( !missingMembers.isEmpty() ) {
+                if ( metrics != null ) {
+                    metrics.validationFailed( annotation.getAnnotationType(), ValidationFailure.MISSING_MEMBERS,
+                            System.nanoTime() - start );
+                }
+                throw new IllegalArgumentException( String.format(
+                        "Missing values for mandatory annotation members [%s]: %s",
+                        annotation.getAnnotationType().getName(), missingMembers ) );
+            }
+            if ( metrics != null ) {
+                metrics.validationFailed( annotation.getAnnotationType(), ValidationFailure.NON_EXISTING_MEMBERS,
+                        System.nanoTime() - start );
+            }
+            throw new IllegalArgumentException( String.format( "Values provided for non-existing members [%s]: %s",
+                    annotation.getAnnotationType().getName(), joinWith( ", ", notMembers ) ) );
+        }
+
+        return builder.build();
+    }
+
+    private List<String> missingMembers( boolean[] found ) {
+        List<String> result = new ArrayList<>( 2 );
+        for (int slot = 0; slot < names.length; slot++) {
+            if ( mandatory[ slot ] && !found[ slot ] ) {
+                result.add( names[ slot ] );
+            }
+        }
+        return result;
+    }
+
+    private void writeObject( JsonWriter out, Annotation instance ) throws IOException {
+        out.beginObject();
+        for (int slot = 0; slot < names.length; slot++) {
+            out.name( names[ slot ] );
+            Object value = annotation.getMemberValue( instance, slot );
+            if ( arrays[ slot ] ) {
+                writeArray( slot, value, out );
+            } else {
+                writeValue( slot, value, out );
+            }
+        }
+        out.endObject();
+    }
+
+    private void writeValue( int slot, Object value, JsonWriter out ) throws IOException {
+        switch ( kinds[ slot ] ) {
+            case BOOLEAN:
+                out.value( ( boolean ) ( Boolean ) value );
+                break;
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+                out.value( ( ( Number ) value ).longValue() );
+                break;
+            case FLOAT:
+                // written as a Float so that its shortest representation is used
+                out.value( ( Number ) value );
+                break;
+            case DOUBLE:
+                out.value( ( double ) ( Double ) value );
+                break;
+            case CHAR:
+                out.value( String.valueOf( ( char ) ( Character ) value ) );
+                break;
+            default:
+                writeItem( slot, value, out );
+        }
+    }
+
+    private void writeItem( int slot, Object value, JsonWriter out ) throws IOException {
+        switch ( kinds[ slot ] ) {
+            case STRING:
+                out.value( ( String ) value );
+                break;
+            case ENUM:
+                out.value( ( ( Enum<?> ) value ).name() );
+                break;
+            case CLASS:
+                out.value( typeName( ( Class<?> ) value ) );
+                break;
+            case ANNOTATION:
+                nestedSchemas[ slot ].writeObject( out, ( Annotation ) value );
+                break;
+            default:
+                throw new IllegalStateException( "Unexpected member kind: " + kinds[ slot ] );
+        }
+    }
+
+    private void writeArray( int slot, Object value, JsonWriter out ) throws IOException {
+        out.beginArray();
+        switch ( kinds[ slot ] ) {
+            case BOOLEAN:
+                for (boolean item : ( boolean[] ) value) out.value( item );
+                break;
+            case BYTE:
+                for (byte item : ( byte[] ) value) out.value( item );
+                break;
+            case SHORT:
+                for (short item : ( short[] ) value) out.value( item );
+                break;
+            case INT:
+                for (int item : ( int[] ) value) out.value( item );
+                break;
+            case LONG:
+                for (long item : ( long[] ) value) out.value( item );
+                break;
+            case FLOAT:
+                for (float item : ( float[] ) value) out.value( ( Number ) item );
+                break;
+            case DOUBLE:
+                for (double item : ( double[] ) value) out.value( item );
+                break;
+            case CHAR:
+                for (char item : ( char[] ) value) out.value( String.valueOf( item ) );
+                break;
+            default:
+                for (Object item : ( Object[] ) value) writeItem( slot, item, out );
+        }
+        out.endArray();
+    }
+
+    private static String typeName( Class<?> type ) {
+        if ( !type.isArray() ) {
+            return type.getName();
+        }
+        StringBuilder builder = new StringBuilder();
+        int dimensions = 0;
+        while ( type.isArray() ) {
+            type = type.getComponentType();
+            dimensions++;
+        }
+        builder.append( type.getName() );
+        for (int i = 0; i < dimensions; i++) {
+            builder.append( "[]" );
+        }
+        return builder.toString();
+    }
+
+    private void readValue( int slot, JsonReader in, AnnotationBuilder<A> builder ) throws IOException {
+        String name = names[ slot ];
+        JsonToken token = in.peek();
+
+        switch ( kinds[ slot ] ) {
+            case BOOLEAN:
+                if ( token == JsonToken.BOOLEAN ) {
+                    builder.set( name, in.nextBoolean() );
+                    return;
+                }
+                break;
+            case CHAR:
+                if ( token == JsonToken.STRING ) {
+                    String value = in.nextString();
+                    if ( value.length() == 1 ) {
+                        builder.set( name, value.charAt( 0 ) );
+                    } else {
+                        builder.set( name, ( Object ) value );
+                    }
+                    return;
+                }
+                break;
+            case INT:
+                if ( token == JsonToken.NUMBER ) {
+                    try {
+                        builder.set( name, in.nextInt() );
+                    } catch ( NumberFormatException e ) {
+                        // the number is still available, let Javanna report the error
+                        builder.set( name, ( Object ) in.nextDouble() );
+                    }
+                    return;
+                }
+                break;
+            case BYTE:
+            case SHORT:
+            case LONG:
+                if ( token == JsonToken.NUMBER ) {
+                    try {
+                        long value = in.nextLong();
+                        if ( kinds[ slot ] == MemberKind.LONG ) {
+                            builder.set( name, value );
+                        } else {
+                            builder.set( name, ( Object ) value );
+                        }
+                    } catch ( NumberFormatException e ) {
+                        builder.set( name, ( Object ) in.nextDouble() );
+                    }
+                    return;
+                }
+                break;
+            case FLOAT:
+            case DOUBLE:
+                if ( token == JsonToken.NUMBER ) {
+                    double value = in.nextDouble();
+                    if ( kinds[ slot ] == MemberKind.DOUBLE ) {
+                        builder.set( name, value );
+                    } else {
+                        builder.set( name, ( Object ) value );
+                    }
+                    return;
+                }
+                break;
+            case STRING:
+                if ( token == JsonToken.STRING ) {
+                    builder.set( name, in.nextString() );
+                    return;
+                }
+                break;
+            case ANNOTATION:
+                if ( token == JsonToken.BEGIN_OBJECT ) {
+                    builder.set( name, ( Object ) nestedSchemas[ slot ].readObject( in ) );
+                    return;
+                }
+                break;
+        }
+
+        builder.set( name, readGeneric( in ) );
+    }
+
+    private void readArray( int slot, JsonReader in, AnnotationBuilder<A> builder ) throws IOException {
+        String name = names[ slot ];
+
+        if ( in.peek() != JsonToken.BEGIN_ARRAY ) {
+            builder.set( name, readGeneric( in ) );
+            return;
+        }
+
+        in.beginArray();
+        Object value;
+        switch ( kinds[ slot ] ) {
+            case BOOLEAN:
+                value = readBooleans( in );
+                break;
+            case INT:
+                value = readInts( in );
+                break;
+            case BYTE:
+            case SHORT:
+            case LONG:
+                value = readLongs( in );
+                break;
+            case FLOAT:
+            case DOUBLE:
+                value = readDoubles( in );
+                break;
+            case ANNOTATION:
+                value = readAnnotations( slot, in );
+                break;
+            default:
+                value = readStrings( in );
+        }
+        in.endArray();
+
+        // values which are not of the member type are converted (or reported) by Javanna
+        builder.setOwned( name, value );
+    }
+
+    private static Object readBooleans( JsonReader in ) throws IOException {
+        boolean[] result = new boolean[ 8 ];
+        int size = 0;
+        while ( in.hasNext() ) {
+            if ( in.peek() != JsonToken.BOOLEAN ) {
+                List<Object> items = new ArrayList<>( size + 8 );
+                for (int i = 0; i < size; i++) items.add( result[ i ] );
+                return readRemaining( items, in );
+            }
+            if ( size == result.length ) result = Arrays.copyOf( result, size * 2 );
+            result[ size++ ] = in.nextBoolean();
+        }
+        return Arrays.copyOf( result, size );
+    }
+
+    private static Object readInts( JsonReader in ) throws IOException {
+        int[] result = new int[ 8 ];
+        int size = 0;
+        while ( in.hasNext() ) {
+            boolean notIntegral = false;
+            if ( in.peek() == JsonToken.NUMBER ) {
+                if ( size == result.length ) result = Arrays.copyOf( result, size * 2 );
+                try {
+                    result[ size ] = in.nextInt();
+                    size++;
+                    continue;
+                } catch ( NumberFormatException e ) {
+                    // the number is still available, let Javanna report the error
+                    notIntegral = true;
+                }
+            }
+            List<Object> items = new ArrayList<>( size + 8 );
+            for (int i = 0; i < size; i++) items.add( result[ i ] );
+            if ( notIntegral ) {
+                items.add( in.nextDouble() );
+            }
+            return readRemaining( items, in );
+        }
+        return Arrays.copyOf( result, size );
+    }
+
+    private static Object readLongs( JsonReader in ) throws IOException {
+        long[] result = new long[ 8 ];
+        int size = 0;
+        while ( in.hasNext() ) {
+            boolean notIntegral = false;
+            if ( in.peek() == JsonToken.NUMBER ) {
+                if ( size == result.length ) result = Arrays.copyOf( result, size * 2 );
+                try {
+                    result[ size ] = in.nextLong();
+                    size++;
+                    continue;
+                } catch ( NumberFormatException e ) {
+                    // the number is still available, let Javanna report the error
+                    notIntegral = true;
+                }
+            }
+            List<Object> items = new ArrayList<>( size + 8 );
+            for (int i = 0; i < size; i++) items.add( result[ i ] );
+            if ( notIntegral ) {
+                items.add( in.nextDouble() );
+            }
+            return readRemaining( items, in );
+        }
+        return Arrays.copyOf( result, size );
+    }
+
+    private static Object readDoubles( JsonReader in ) throws IOException {
+        double[] result = new double[ 8 ];
+        int size = 0;
+        while ( in.hasNext() ) {
+            if ( in.peek() != JsonToken.NUMBER ) {
+                List<Object> items = new ArrayList<>( size + 8 );
+                for (int i = 0; i < size; i++) items.add( result[ i ] );
+                return readRemaining( items, in );
+            }
+            if ( size == result.length ) result = Arrays.copyOf( result, size * 2 );
+            result[ size++ ] = in.nextDouble();
+        }
+        return Arrays.copyOf( result, size );
+    }
+
+    /*
+     * Strings are also used for chars, enums and classes, which Javanna converts from Strings.
+     */
+    private static Object readStrings( JsonReader in ) throws IOException {
+        List<String> result = new ArrayList<>();
+        while ( in.hasNext() ) {
+            if ( in.peek() != JsonToken.STRING ) {
+                return readRemaining( new ArrayList<Object>( result ), in );
+            }
+            result.add( in.nextString() );
+        }
+        return result.toArray( new String[ result.size() ] );
+    }
+
+    private Object readAnnotations( int slot, JsonReader in ) throws IOException {
+        AnnotationSchema<?> schema = nestedSchemas[ slot ];
+        List<Object> result = new ArrayList<>();
+        IllegalArgumentException error = null;
+        while ( in.hasNext() ) {
+            if ( in.peek() != JsonToken.BEGIN_OBJECT ) {
+                if ( error == null ) {
+                    return readRemaining( result, in );
+                }
+                // the first error is reported
+                in.skipValue();
+                continue;
+            }
+            try {
+                result.add( schema.readObject( in ) );
+            } catch ( IllegalArgumentException e ) {
+                // keep reading until the end of the array, so the error is thrown at a consistent position
+                if ( error == null ) {
+                    error = e;
+                }
+            }
+        }
+        if ( error != null ) {
+            in.endArray();
+            throw error;
+        }
+        return result.toArray( ( Object[] ) Array.newInstance( itemTypes[ slot ], result.size() ) );
+    }
+
+    private static List<Object> readRemaining( List<Object> items, JsonReader in ) throws IOException {
+        while ( in.hasNext() ) {
+            items.add( readGeneric( in ) );
+        }
+        return items;
+    }
+
+    /**
+     * Read any JSON value as a generic value, in the same form as Gson would, except that integral numbers are read
+     * as {@code Long}s, so they are never rounded.
+     */
+    private static Object readGeneric( JsonReader in ) throws IOException {
+        switch ( in.peek() ) {
+            case STRING:
+                return in.nextString();
+            case NUMBER:
+                String number = in.nextString();
+                try {
+                    return Long.parseLong( number );
+                } catch ( NumberFormatException e ) {
+                    return Double.parseDouble( number );
+                }
+            case BOOLEAN:
+                return in.nextBoolean();
+            case NULL:
+                in.nextNull();
+                return null;
+            case BEGIN_ARRAY:
+                List<Object> list = new ArrayList<>();
+                in.beginArray();
+                readRemaining( list, in );
+                in.endArray();
+                return list;
+            case BEGIN_OBJECT:
+                Map<String, Object> map = new LinkedHashMap<>();
+                in.beginObject();
+                while ( in.hasNext() ) {
+                    map.put( in.nextName(), readGeneric( in ) );
+                }
+                in.endObject();
+                return map;
+            default:
+                throw new IllegalStateException( "Unexpected JSON token: " + in.peek() );
+        }
+    }
+
+    private static String joinWith( String separator, List<String> items ) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < items.size(); i++) {
+            if ( i > 0 ) builder.append( separator );
+            builder.append( items.get( i ) );
+        }
+        return builder.toString();
+    }
+
+}
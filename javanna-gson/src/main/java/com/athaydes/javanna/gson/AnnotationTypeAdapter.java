@@ -0,0 +1,38 @@
+package com.athaydes.javanna.gson;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+
+/**
+ * Gson {@link TypeAdapter} of an annotation type.
+ * <p>
+ * Null values are not handled by this adapter, which is only used through its {@link #nullSafe()} wrapper.
+ */
+final class AnnotationTypeAdapter<A extends Annotation> extends TypeAdapter<A> {
+
+    private final AnnotationSchema<A> schema;
+
+    AnnotationTypeAdapter( AnnotationSchema<A> schema ) {
+        this.schema = schema;
+    }
+
+    @Override
+    public void write( JsonWriter out, A value ) throws IOException {
+        schema.write( out, value );
+    }
+
+    @Override
+    public A read( JsonReader in ) throws IOException {
+        try {
+            return schema.read( in );
+        } catch ( IllegalArgumentException e ) {
+            throw new JsonSyntaxException( e.getMessage(), e );
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.athaydes.javanna.gson;
+
+import java.lang.annotation.Annotation;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Result of parsing many JSON files into annotations.
+ * <p>
+ * Instances of this class are immutable.
+ *
+ * @param <A> type of the annotations
+ * @see JavannaGson#parseFiles(Path, String, Class)
+ */
+public final class FileParseResult<A extends Annotation> {
+
+    private final Map<Path, A> annotations;
+    private final Map<Path, Exception> errors;
+
+    FileParseResult( Map<Path, A> annotations, Map<Path, Exception> errors ) {
+        this.annotations = Collections.unmodifiableMap( annotations );
+        this.errors = Collections.unmodifiableMap( errors );
+    }
+
+    /**
+     * @return the annotation parsed from each file that could be parsed, by path, in the order the files were found.
+     */
+    public Map<Path, A> getAnnotations() {
+        return annotations;
+    }
+
+    /**
+     * @return the errors which prevented files from being parsed, by path.
+     */
+    public Map<Path, Exception> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return true if at least one file could not be parsed.
+     */
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "FileParseResult{" +
+                "annotations=" + annotations.size() +
+                ", errors=" + errors +
+                '}';
+    }
+
+}
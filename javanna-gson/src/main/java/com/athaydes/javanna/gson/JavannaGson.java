@@ -1,22 +1,35 @@
 package com.athaydes.javanna.gson;
 
-import com.athaydes.javanna.Javanna;
 import com.google.gson.Gson;
 import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
 
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.annotation.Annotation;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 
 /**
  * A <a href="https://github.com/renatoathaydes/javanna">Javanna</a> extension
  * to create annotation instances from JSON and vice-versa.
  * <p>
  * JSON parsing/creation is delegated to the <a href="https://github.com/google/gson">Gson</a> library.
+ * <p>
+ * JSON documents are parsed token by token, guided by the annotation type, so that values are read straight into
+ * the type of each member: no intermediate tree is created, and integral numbers are never rounded.
  */
 public final class JavannaGson {
 
@@ -49,8 +62,7 @@ public final class JavannaGson {
      * @return an annotation instance that is equivalent to the JSON provided.
      */
     public <A extends Annotation> A parse( String json, Class<A> annotation ) {
-        Map<?, ?> map = gson.fromJson( json, Map.class );
-        return createAnnotation( annotation, map );
+        return parse( new StringReader( json ), annotation );
     }
 
     /**
@@ -62,8 +74,38 @@ public final class JavannaGson {
      * @return an annotation instance that is equivalent to the JSON provided.
      */
     public <A extends Annotation> A parse( Reader reader, Class<A> annotation ) {
-        Map<?, ?> map = gson.fromJson( reader, Map.class );
-        return createAnnotation( annotation, map );
+        JsonReader jsonReader = gson.newJsonReader( reader );
+        jsonReader.setLenient( true );
+        try {
+            A result = AnnotationSchema.of( annotation ).read( jsonReader );
+            if ( jsonReader.peek() != JsonToken.END_DOCUMENT ) {
+                throw new JsonIOException( "JSON document was not fully consumed." );
+            }
+            return result;
+        } catch ( EOFException | MalformedJsonException | IllegalStateException e ) {
+            throw new JsonSyntaxException( e );
+        } catch ( IOException e ) {
+            throw new JsonIOException( e );
+        }
+    }
+
+    /**
+     * Parse a JSON document containing many annotations, lazily.
+     * <p>
+     * The document may be either a JSON array of objects, or a sequence of JSON objects such as
+     * newline-delimited JSON (NDJSON). Annotations are parsed one at a time, as the returned iterator is advanced,
+     * so memory usage does not depend on the size of the document.
+     *
+     * @param reader     reader of the JSON document. It is closed when the returned iterator is closed.
+     * @param annotation annotation type.
+     * @param <A>        type of the annotation.
+     * @return an iterator over the annotations in the document.
+     * @see AnnotationIterator
+     */
+    public <A extends Annotation> AnnotationIterator<A> parseAll( Reader reader, Class<A> annotation ) {
+        JsonReader jsonReader = gson.newJsonReader( reader );
+        jsonReader.setLenient( true );
+        return new AnnotationIterator<>( jsonReader, AnnotationSchema.of( annotation ) );
     }
 
     /**
@@ -75,14 +117,54 @@ public final class JavannaGson {
      * @return an annotation instance that is equivalent to the JSON provided.
      */
     public <A extends Annotation> A parse( File jsonFile, Class<A> annotation ) {
-        try {
-            Map<?, ?> map = gson.fromJson( new FileReader( jsonFile ), Map.class );
-            return createAnnotation( annotation, map );
-        } catch ( FileNotFoundException e ) {
+        try ( Reader reader = Files.newBufferedReader( jsonFile.toPath(), StandardCharsets.UTF_8 ) ) {
+            return parse( reader, annotation );
+        } catch ( NoSuchFileException e ) {
             throw new IllegalArgumentException( "File does not exist: " + jsonFile );
+        } catch ( IOException e ) {
+            throw new JsonIOException( e );
         }
     }
 
+    /**
+     * Parse the JSON documents in all files of a directory matching a glob pattern, in parallel, using as many
+     * Threads as there are available processors.
+     *
+     * @param directory  directory containing the files to parse.
+     * @param glob       glob pattern, relative to the directory, that files must match (e.g. {@code "**.json"}).
+     * @param annotation annotation type.
+     * @param <A>        type of the annotation.
+     * @return the annotation parsed from each file, and the errors which prevented other files from being parsed.
+     * @throws IOException              if the directory cannot be listed.
+     * @throws IllegalArgumentException if the directory does not exist.
+     * @see java.nio.file.FileSystem#getPathMatcher(String)
+     */
+    public <A extends Annotation> FileParseResult<A> parseFiles( Path directory, String glob, Class<A> annotation )
+            throws IOException {
+        return parseFiles( directory, glob, annotation, Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Parse the JSON documents in all files of a directory matching a glob pattern, in parallel.
+     * <p>
+     * Files are read through NIO channels (large files are memory-mapped) and decoded as UTF-8.
+     *
+     * @param directory   directory containing the files to parse.
+     * @param glob        glob pattern, relative to the directory, that files must match (e.g. {@code "**.json"}).
+     * @param annotation  annotation type.
+     * @param parallelism maximum number of Threads used to read and parse files.
+     * @param <A>         type of the annotation.
+     * @return the annotation parsed from each file, and the errors which prevented other files from being parsed.
+     * @throws IOException              if the directory cannot be listed.
+     * @throws IllegalArgumentException if the directory does not exist or parallelism is not positive.
+     * @see java.nio.file.FileSystem#getPathMatcher(String)
+     */
+    public <A extends Annotation> FileParseResult<A> parseFiles( Path directory, String glob, Class<A> annotation,
+                                                                 int parallelism )
+            throws IOException {
+        return new JsonFileParser( this, parallelism ).parseFiles( directory, glob, annotation );
+    }
+
     /**
      * Convert the given annotation instance to a JSON String.
      *
@@ -90,27 +172,61 @@ public final class JavannaGson {
      * @return JSON String.
      */
     public String toJson( Annotation annotation ) {
-        return gson.toJson( Javanna.getAnnotationValues( annotation, true ) );
+        StringWriter writer = new StringWriter();
+        toJson( annotation, writer );
+        return writer.toString();
     }
 
     /**
      * Convert the given annotation instance to a JSON document and write it using the provided writer.
+     * <p>
+     * Members are written straight to the writer, without creating any intermediate representation of
+     * the annotation.
      *
      * @param annotation annotation to read.
      * @throws JsonIOException if Gson throws.
      */
     public void toJson( Annotation annotation, Appendable writer )
             throws JsonIOException {
-        gson.toJson( Javanna.getAnnotationValues( annotation, true ), writer );
+        try {
+            JsonWriter jsonWriter = gson.newJsonWriter( asWriter( writer ) );
+            AnnotationSchema.of( annotation.annotationType() ).write( jsonWriter, annotation );
+            jsonWriter.flush();
+        } catch ( IOException e ) {
+            throw new JsonIOException( e );
+        }
     }
 
-    private static <A extends Annotation> A createAnnotation(
-            Class<A> annotation, Map<?, ?> map ) {
-        Map<String, Object> typedMap = new HashMap<>( map.size() );
-        for (Map.Entry entry : map.entrySet()) {
-            typedMap.put( entry.getKey().toString(), entry.getValue() );
+    private static Writer asWriter( final Appendable appendable ) {
+        if ( appendable instanceof Writer ) {
+            return ( Writer ) appendable;
         }
-        return Javanna.createAnnotation( annotation, typedMap );
+        return new Writer() {
+            @Override
+            public void write( char[] buffer, int offset, int length ) throws IOException {
+                appendable.append( CharBuffer.wrap( buffer, offset, length ) );
+            }
+
+            @Override
+            public void write( int c ) throws IOException {
+                appendable.append( ( char ) c );
+            }
+
+            @Override
+            public void write( String string, int offset, int length ) throws IOException {
+                appendable.append( string, offset, offset + length );
+            }
+
+            @Override
+            public void flush() {
+                // nothing to flush
+            }
+
+            @Override
+            public void close() {
+                // the appendable is not owned by this writer
+            }
+        };
     }
 
 }
@@ -0,0 +1,65 @@
+package com.athaydes.javanna.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+
+/**
+ * Gson {@link TypeAdapterFactory} that lets Gson read and write annotations anywhere in an object graph,
+ * for example, in fields of annotation types or in lists of annotations.
+ * <p>
+ * Annotations are read and written in the same way as by {@link JavannaGson}. The adapter of each annotation type is
+ * created only once, on first use, and shared by all Gson instances.
+ * <p>
+ * Example usage:
+ * <pre>
+ * Gson gson = new GsonBuilder()
+ *         .registerTypeAdapterFactory( new JavannaTypeAdapterFactory() )
+ *         .create();
+ * </pre>
+ * Values of types which implement annotations, rather than being annotation types themselves, can only be written.
+ * This is the case, for example, of annotations held by fields of type {@code Object}.
+ */
+public final class JavannaTypeAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public <T> TypeAdapter<T> create( Gson gson, TypeToken<T> type ) {
+        Class<? super T> rawType = type.getRawType();
+        if ( rawType.isAnnotation() ) {
+            return ( TypeAdapter<T> ) AnnotationSchema.of( rawType.asSubclass( Annotation.class ) ).getTypeAdapter();
+        }
+        if ( Annotation.class.isAssignableFrom( rawType ) && !rawType.isInterface() ) {
+            return ( TypeAdapter<T> ) IMPLEMENTATION_ADAPTER;
+        }
+        return null;
+    }
+
+    /**
+     * Writes instances of any annotation implementation class according to their annotation type.
+     */
+    private static final TypeAdapter<Annotation> IMPLEMENTATION_ADAPTER = new TypeAdapter<Annotation>() {
+        @Override
+        public void write( JsonWriter out, Annotation value ) throws IOException {
+            if ( value == null ) {
+                out.nullValue();
+            } else {
+                AnnotationSchema.of( value.annotationType() ).write( out, value );
+            }
+        }
+
+        @Override
+        public Annotation read( JsonReader in ) throws IOException {
+            throw new JsonParseException( "Cannot read annotation implementation class, " +
+                    "use the annotation type instead. Path: " + in.getPath() );
+        }
+    };
+
+}
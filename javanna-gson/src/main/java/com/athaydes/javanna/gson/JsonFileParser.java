@@ -0,0 +1,236 @@
+package com.athaydes.javanna.gson;
+
+import com.google.gson.JsonIOException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.lang.annotation.Annotation;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parser of many JSON files in parallel.
+ * <p>
+ * Files are parsed by a bounded number of Threads. Files up to {@link #MAPPED_FILE_THRESHOLD} are read whole
+ * through a {@link FileChannel} and decoded as UTF-8 at once. Larger files are memory-mapped and decoded
+ * incrementally while they are parsed, so their contents are never copied into the heap as a whole.
+ */
+final class JsonFileParser {
+
+    static final long MAPPED_FILE_THRESHOLD = 1024 * 1024;
+
+    private final JavannaGson javannaGson;
+    private final int parallelism;
+
+    JsonFileParser( JavannaGson javannaGson, int parallelism ) {
+        if ( parallelism < 1 ) {
+            throw new IllegalArgumentException( "parallelism must be positive: " + parallelism );
+        }
+        this.javannaGson = javannaGson;
+        this.parallelism = parallelism;
+    }
+
+    <A extends Annotation> FileParseResult<A> parseFiles( Path directory, String glob, final Class<A> annotation )
+            throws IOException {
+        List<Path> files = findFiles( directory, glob );
+
+        Map<Path, A> annotations = new LinkedHashMap<>( files.size() * 2 );
+        Map<Path, Exception> errors = new LinkedHashMap<>();
+
+        if ( files.isEmpty() ) {
+            return new FileParseResult<>( annotations, errors );
+        }
+
+        List<Future<A>> tasks = new ArrayList<>( files.size() );
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min( parallelism, files.size() ), PARSER_THREADS );
+        try {
+            for (final Path file : files) {
+                tasks.add( executor.submit( new Callable<A>() {
+                    @Override
+                    public A call() throws IOException {
+                        return parseFile( file, annotation );
+                    }
+                } ) );
+            }
+
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    annotations.put( files.get( i ), tasks.get( i ).get() );
+                } catch ( ExecutionException e ) {
+                    Throwable cause = e.getCause();
+                    if ( cause instanceof Exception ) {
+                        errors.put( files.get( i ), ( Exception ) cause );
+                    } else if ( cause instanceof Error ) {
+                        throw ( Error ) cause;
+                    } else {
+                        throw new IllegalStateException( cause );
+                    }
+                }
+            }
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while parsing JSON files" );
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new FileParseResult<>( annotations, errors );
+    }
+
+    private <A extends Annotation> A parseFile( Path file, Class<A> annotation ) throws IOException {
+        try ( Reader reader = openFile( file ) ) {
+            return javannaGson.parse( reader, annotation );
+        } catch ( JsonIOException e ) {
+            // report decoding errors in the same way for all files, whether or not they are decoded while parsed
+            if ( e.getCause() instanceof IOException ) {
+                throw ( IOException ) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    static Reader openFile( Path file ) throws IOException {
+        try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) ) {
+            long size = channel.size();
+            if ( size > MAPPED_FILE_THRESHOLD ) {
+                // the mapping remains valid after the channel is closed
+                return new ByteBufferReader( channel.map( FileChannel.MapMode.READ_ONLY, 0, size ) );
+            }
+            ByteBuffer bytes = ByteBuffer.allocate( ( int ) size );
+            while ( bytes.hasRemaining() && channel.read( bytes ) >= 0 ) {
+                // keep reading
+            }
+            bytes.flip();
+            return new CharBufferReader( utf8Decoder().decode( bytes ) );
+        }
+    }
+
+    private static CharsetDecoder utf8Decoder() {
+        return StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput( CodingErrorAction.REPORT )
+                .onUnmappableCharacter( CodingErrorAction.REPORT );
+    }
+
+    private static List<Path> findFiles( Path directory, String glob ) throws IOException {
+        if ( !Files.isDirectory( directory ) ) {
+            throw new IllegalArgumentException( "Not a directory: " + directory );
+        }
+        final Path root = directory;
+        final PathMatcher matcher = FileSystems.getDefault().getPathMatcher( "glob:" + glob );
+        final List<Path> files = new ArrayList<>();
+        Files.walkFileTree( root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile( Path file, BasicFileAttributes attributes ) {
+                if ( attributes.isRegularFile() && matcher.matches( root.relativize( file ) ) ) {
+                    files.add( file );
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        } );
+        Collections.sort( files );
+        return files;
+    }
+
+    private static final class CharBufferReader extends Reader {
+
+        private final CharBuffer buffer;
+
+        CharBufferReader( CharBuffer buffer ) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read( char[] chars, int offset, int length ) {
+            if ( !buffer.hasRemaining() ) {
+                return -1;
+            }
+            int count = Math.min( length, buffer.remaining() );
+            buffer.get( chars, offset, count );
+            return count;
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+
+    /**
+     * Reader decoding UTF-8 bytes as they are read, so that only the characters requested by each read are decoded.
+     */
+    private static final class ByteBufferReader extends Reader {
+
+        private final ByteBuffer bytes;
+        private final CharsetDecoder decoder = utf8Decoder();
+        private boolean done;
+
+        ByteBufferReader( ByteBuffer bytes ) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read( char[] chars, int offset, int length ) throws IOException {
+            if ( done ) {
+                return -1;
+            }
+            CharBuffer out = CharBuffer.wrap( chars, offset, length );
+
+            // the buffer holds the whole file, so it is always the end of the input
+            CoderResult result = decoder.decode( bytes, out, true );
+            if ( result.isUnderflow() ) {
+                result = decoder.flush( out );
+                done = result.isUnderflow();
+            }
+            if ( result.isError() ) {
+                result.throwException();
+            }
+
+            int count = out.position() - offset;
+            return count == 0 && done ? -1 : count;
+        }
+
+        @Override
+        public void close() {
+            // the mapping is released when the buffer is garbage collected
+        }
+    }
+
+    private static final ThreadFactory PARSER_THREADS = new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread( Runnable runnable ) {
+            Thread thread = new Thread( runnable, "javanna-gson-parser-" + count.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        }
+    };
+
+}
@@ -1,23 +1,43 @@
 package com.athaydes.javanna.gson;
 
+import com.athaydes.javanna.Javanna;
+import com.athaydes.javanna.MetricsRegistry;
+import com.athaydes.javanna.MetricsSnapshot;
 import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class JavannaGsonTest {
 
     private final JavannaGson javannaGson = new JavannaGson();
 
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void testSimpleJsonParsing() throws Exception {
         Server server = javannaGson.parse( testResource( "/server.json" ), Server.class );
@@ -56,6 +76,266 @@ public class JavannaGsonTest {
         assertEquals( expectedMap, javannaGsonMap );
     }
 
+    @Test
+    public void testJsonCreationWithAllMemberTypes() throws Exception {
+        Numbers numbers = javannaGson.parse( "{\"big\": 9007199254740993, \"smalls\": [1, -2], " +
+                "\"ratio\": 0.1, \"letter\": \"\\\"\", \"policies\": [\"SOURCE\", \"CLASS\"], " +
+                "\"type\": \"java.lang.String[][]\", " +
+                "\"servers\": [{\"name\": \"a\"}, {\"whiteLists\": {\"ports\": [1, 2]}}]}", Numbers.class );
+
+        String json = javannaGson.toJson( numbers );
+
+        // member order is not defined, so compare the JSON objects
+        Gson gson = new Gson();
+        assertEquals( gson.fromJson( "{\"big\":9007199254740993,\"bigs\":[],\"small\":0,\"smalls\":[1,-2],\"ratio\":0.1," +
+                "\"ratios\":[],\"letter\":\"\\\"\",\"policy\":\"RUNTIME\",\"policies\":[\"SOURCE\",\"CLASS\"]," +
+                "\"type\":\"java.lang.String[][]\",\"bool\":false,\"servers\":[" +
+                "{\"name\":\"a\",\"port\":80,\"logFile\":\"/var/log/server.log\"," +
+                "\"whiteLists\":{\"ips\":[],\"ports\":[]}}," +
+                "{\"name\":\"-\",\"port\":80,\"logFile\":\"/var/log/server.log\"," +
+                "\"whiteLists\":{\"ips\":[],\"ports\":[1,2]}}]}", Map.class ), gson.fromJson( json, Map.class ) );
+        assertTrue( json, json.contains( "\"big\":9007199254740993" ) );
+
+        assertEquals( numbers, javannaGson.parse( json, Numbers.class ) );
+    }
+
+    @Test
+    public void testLongValuesAreParsedExactly() throws Exception {
+        Numbers numbers = javannaGson.parse( "{\"big\": 9007199254740993, \"bigs\": [9007199254740993, -1]}",
+                Numbers.class );
+
+        assertEquals( 9007199254740993L, numbers.big() );
+        assertArrayEquals( new long[]{ 9007199254740993L, -1L }, numbers.bigs() );
+    }
+
+    @Test
+    public void testAllMemberTypesAreParsed() throws Exception {
+        Numbers numbers = javannaGson.parse( "{\"big\": 1, \"small\": -2, \"smalls\": [1, 2.0], " +
+                "\"ratio\": 0.5, \"ratios\": [1, 2.5], \"letter\": \"x\", \"policy\": \"CLASS\", " +
+                "\"policies\": [\"SOURCE\"], \"type\": \"java.lang.String\", \"bool\": true, " +
+                "\"servers\": [{\"name\": \"a\"}, {\"port\": 8080}]}", Numbers.class );
+
+        assertEquals( 1L, numbers.big() );
+        assertEquals( ( short ) -2, numbers.small() );
+        assertArrayEquals( new byte[]{ 1, 2 }, numbers.smalls() );
+        assertEquals( 0.5f, numbers.ratio(), 0.0f );
+        assertArrayEquals( new double[]{ 1.0, 2.5 }, numbers.ratios(), 0.0 );
+        assertEquals( 'x', numbers.letter() );
+        assertEquals( RetentionPolicy.CLASS, numbers.policy() );
+        assertArrayEquals( new RetentionPolicy[]{ RetentionPolicy.SOURCE }, numbers.policies() );
+        assertEquals( String.class, numbers.type() );
+        assertTrue( numbers.bool() );
+        assertEquals( 2, numbers.servers().length );
+        assertEquals( "a", numbers.servers()[ 0 ].name() );
+        assertEquals( 8080, numbers.servers()[ 1 ].port() );
+    }
+
+    @Test
+    public void testInvalidValuesAreReported() throws Exception {
+        try {
+            javannaGson.parse( "{\"big\": 1, \"smalls\": [1, 1000]}", Numbers.class );
+            fail( "Should not parse out-of-range byte" );
+        } catch ( IllegalArgumentException e ) {
+            assertTrue( e.getMessage(), e.getMessage().startsWith( "Errors:\n* member 'smalls" ) );
+        }
+
+        try {
+            javannaGson.parse( "{\"big\": 1.5}", Numbers.class );
+            fail( "Should not parse non-integral long" );
+        } catch ( IllegalArgumentException e ) {
+            assertTrue( e.getMessage(), e.getMessage().startsWith( "Errors:\n* member 'big'" ) );
+        }
+
+        try {
+            javannaGson.parse( "{\"big\": 1, \"other\": [1, {}]}", Numbers.class );
+            fail( "Should not parse non-existing member" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "Values provided for non-existing members [" + Numbers.class.getName() + "]: other",
+                    e.getMessage() );
+        }
+
+        try {
+            javannaGson.parse( "{}", Numbers.class );
+            fail( "Should not parse without mandatory member" );
+        } catch ( IllegalArgumentException e ) {
+            assertTrue( e.getMessage(), e.getMessage().startsWith( "Missing values for mandatory annotation members" ) );
+        }
+
+        try {
+            javannaGson.parse( "{\"other\": 1}", Numbers.class );
+            fail( "Should not parse without mandatory member" );
+        } catch ( IllegalArgumentException e ) {
+            assertTrue( e.getMessage(), e.getMessage().startsWith( "Missing values for mandatory annotation members" ) );
+        }
+
+        try {
+            javannaGson.parse( "{\"big\": 1, \"servers\": [{\"name\": \"a\", \"other\": 1}, 42]}", Numbers.class );
+            fail( "Should not parse invalid nested annotation" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "Values provided for non-existing members [" + Server.class.getName() + "]: other",
+                    e.getMessage() );
+        }
+    }
+
+    @Test( expected = JsonSyntaxException.class )
+    public void testMalformedJsonIsRejected() throws Exception {
+        javannaGson.parse( "{\"big\": 1,", Numbers.class );
+    }
+
+    @Test
+    public void testParseAllFromJsonArray() throws Exception {
+        String json = "[{\"name\": \"a\"}, {\"port\": \"x\", \"whiteLists\": {\"ports\": [1]}}, " +
+                "{\"name\": \"b\", \"whiteLists\": {\"ips\": [\"x\"], \"other\": {\"a\": [1]}}}, " +
+                "42, {\"port\": 8080}]";
+
+        List<String> results = new ArrayList<>();
+        try ( AnnotationIterator<Server> iterator = javannaGson.parseAll( new StringReader( json ), Server.class ) ) {
+            while ( iterator.hasNext() ) {
+                try {
+                    Server server = iterator.next();
+                    results.add( server.name() + ":" + server.port() );
+                } catch ( IllegalArgumentException e ) {
+                    results.add( e.getMessage().substring( 0, e.getMessage().indexOf( ':' ) ) );
+                }
+            }
+            assertEquals( 5, iterator.getCount() );
+        }
+
+        assertEquals( Arrays.asList( "a:80",
+                "Invalid annotation at index 1",
+                "Invalid annotation at index 2",
+                "Invalid annotation at index 3",
+                "-:8080" ), results );
+    }
+
+    @Test
+    public void testParseAllFromNdJson() throws Exception {
+        String json = "{\"name\": \"a\"}\n{\"name\": \"b\"}\n\n{\"name\": \"c\"}\n";
+
+        AnnotationIterator<Server> iterator = javannaGson.parseAll( new StringReader( json ), Server.class );
+        List<String> names = new ArrayList<>();
+        while ( iterator.hasNext() ) {
+            names.add( iterator.next().name() );
+        }
+
+        assertEquals( Arrays.asList( "a", "b", "c" ), names );
+        assertFalse( iterator.hasNext() );
+    }
+
+    @Test
+    public void testParseAllStopsOnMalformedJson() throws Exception {
+        AnnotationIterator<Server> iterator = javannaGson.parseAll(
+                new StringReader( "[{\"name\": \"a\"}, {\"name\" \"b\"}]" ), Server.class );
+
+        assertEquals( "a", iterator.next().name() );
+        try {
+            iterator.next();
+            fail( "Should not parse malformed JSON" );
+        } catch ( JsonSyntaxException e ) {
+            // expected
+        }
+        assertFalse( iterator.hasNext() );
+    }
+
+    @Test
+    public void testParseFile() throws Exception {
+        File file = temporaryFolder.newFile( "server.json" );
+        Files.write( file.toPath(), "{\"name\": \"Caf\u00e9\"}".getBytes( StandardCharsets.UTF_8 ) );
+
+        assertEquals( "Caf\u00e9", javannaGson.parse( file, Server.class ).name() );
+    }
+
+    @Test
+    public void testParseFilesInParallel() throws Exception {
+        Path directory = temporaryFolder.getRoot().toPath();
+        Path sub = Files.createDirectory( directory.resolve( "sub" ) );
+
+        // large enough to be memory-mapped
+        StringBuilder largeJson = new StringBuilder( "{\"name\": \"large\"" );
+        while ( largeJson.length() <= JsonFileParser.MAPPED_FILE_THRESHOLD ) {
+            largeJson.append( "                " );
+        }
+        largeJson.append( '}' );
+
+        Files.write( directory.resolve( "a.json" ), "{\"port\": 1}".getBytes( StandardCharsets.UTF_8 ) );
+        Files.write( directory.resolve( "b.json" ), "{\"port\": \"x\"}".getBytes( StandardCharsets.UTF_8 ) );
+        Files.write( directory.resolve( "c.txt" ), "{\"port\": 3}".getBytes( StandardCharsets.UTF_8 ) );
+        Files.write( sub.resolve( "d.json" ), "{\"port\": 4".getBytes( StandardCharsets.UTF_8 ) );
+        Files.write( sub.resolve( "e.json" ), new byte[]{ '{', '"', 'n', 'a', 'm', 'e', '"', ':', '"', ( byte ) 0xFF, '"', '}' } );
+        Files.write( sub.resolve( "large.json" ), largeJson.toString().getBytes( StandardCharsets.UTF_8 ) );
+        for (int i = 0; i < 20; i++) {
+            Files.write( sub.resolve( "many-" + i + ".json" ),
+                    ( "{\"port\": " + i + "}" ).getBytes( StandardCharsets.UTF_8 ) );
+        }
+
+        FileParseResult<Server> result = javannaGson.parseFiles( directory, "**.json", Server.class, 4 );
+
+        assertEquals( 22, result.getAnnotations().size() );
+        assertEquals( 1, result.getAnnotations().get( directory.resolve( "a.json" ) ).port() );
+        assertEquals( "large", result.getAnnotations().get( sub.resolve( "large.json" ) ).name() );
+        assertEquals( 19, result.getAnnotations().get( sub.resolve( "many-19.json" ) ).port() );
+
+        assertTrue( result.hasErrors() );
+        assertEquals( new HashSet<>( Arrays.asList( directory.resolve( "b.json" ), sub.resolve( "d.json" ),
+                sub.resolve( "e.json" ) ) ), result.getErrors().keySet() );
+        assertTrue( result.getErrors().get( directory.resolve( "b.json" ) ) instanceof IllegalArgumentException );
+        assertTrue( result.getErrors().get( sub.resolve( "d.json" ) ) instanceof JsonSyntaxException );
+        assertTrue( result.getErrors().get( sub.resolve( "e.json" ) ) instanceof CharacterCodingException );
+
+        FileParseResult<Server> topLevelOnly = javannaGson.parseFiles( directory, "*.json", Server.class );
+        assertEquals( Collections.singleton( directory.resolve( "a.json" ) ), topLevelOnly.getAnnotations().keySet() );
+    }
+
+    @Test
+    public void testLargeFilesAreDecodedWhileParsed() throws Exception {
+        Path directory = temporaryFolder.getRoot().toPath();
+
+        // large enough to be memory-mapped
+        StringBuilder padding = new StringBuilder();
+        while ( padding.length() <= JsonFileParser.MAPPED_FILE_THRESHOLD ) {
+            padding.append( "                " );
+        }
+        byte[] valid = ( "{" + padding + "\"name\": \"Caf\u00e9 \ud83d\ude00\"}" ).getBytes( StandardCharsets.UTF_8 );
+        byte[] invalid = ( "{" + padding + "\"name\": \"x\"}" ).getBytes( StandardCharsets.UTF_8 );
+        invalid[ invalid.length - 3 ] = ( byte ) 0xFF;
+
+        Files.write( directory.resolve( "valid.json" ), valid );
+        Files.write( directory.resolve( "invalid.json" ), invalid );
+
+        FileParseResult<Server> result = javannaGson.parseFiles( directory, "*.json", Server.class, 2 );
+
+        assertEquals( "Caf\u00e9 \ud83d\ude00",
+                result.getAnnotations().get( directory.resolve( "valid.json" ) ).name() );
+        assertTrue( result.getErrors().get( directory.resolve( "invalid.json" ) ) instanceof CharacterCodingException );
+    }
+
+    @Test
+    public void testParsingAndWritingJsonIsReportedToMetricsListener() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        Javanna.setMetricsListener( registry );
+        try {
+            Server server = javannaGson.parse( testResource( "/server.json" ), Server.class );
+            javannaGson.toJson( server );
+            javannaGson.toJson( server );
+            try {
+                javannaGson.parse( "{\"name\": \"a\", \"other\": 1}", Server.class );
+                fail( "Should not be able to parse a non-existing member" );
+            } catch ( IllegalArgumentException e ) {
+                // expected
+            }
+        } finally {
+            Javanna.setMetricsListener( null );
+        }
+
+        MetricsSnapshot snapshot = registry.snapshot();
+
+        // nested annotations are not reported separately
+        assertEquals( 1L, snapshot.getHistogram( "deserialize[json:" + Server.class.getName() + "]" ).getCount() );
+        assertEquals( 2L, snapshot.getHistogram( "serialize[json:" + Server.class.getName() + "]" ).getCount() );
+        assertEquals( null, snapshot.getHistogram( "serialize[json:" + WhiteLists.class.getName() + "]" ) );
+        assertEquals( 1L, snapshot.getCounter( "validationFailure[NON_EXISTING_MEMBERS]" ) );
+    }
+
     private InputStreamReader testResource( String resource ) {
         return new InputStreamReader( getClass().getResourceAsStream( resource ),
                 StandardCharsets.UTF_8 );
@@ -89,3 +369,30 @@ public class JavannaGsonTest {
 
     int[] ports() default { };
 }
+
+@Retention( RetentionPolicy.RUNTIME )
+@interface Numbers {
+    long big();
+
+    long[] bigs() default { };
+
+    short small() default 0;
+
+    byte[] smalls() default { };
+
+    float ratio() default 0;
+
+    double[] ratios() default { };
+
+    char letter() default ' ';
+
+    RetentionPolicy policy() default RetentionPolicy.RUNTIME;
+
+    RetentionPolicy[] policies() default { };
+
+    Class<?> type() default Object.class;
+
+    boolean bool() default false;
+
+    Server[] servers() default { };
+}
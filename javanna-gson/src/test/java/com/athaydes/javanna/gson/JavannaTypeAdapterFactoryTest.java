@@ -0,0 +1,103 @@
+package com.athaydes.javanna.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import org.junit.Test;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JavannaTypeAdapterFactoryTest {
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapterFactory( new JavannaTypeAdapterFactory() )
+            .create();
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface Host {
+        String name() default "-";
+
+        int port() default 80;
+
+        Allowed allowed() default @Allowed;
+    }
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface Allowed {
+        int[] ports() default { };
+    }
+
+    static class Deployment {
+        String environment;
+        Host server;
+        List<Host> backups;
+        Object anything;
+    }
+
+    @Test
+    public void canReadAnnotationsInObjectGraph() {
+        Deployment deployment = gson.fromJson( "{\"environment\": \"prod\", " +
+                "\"server\": {\"name\": \"main\", \"allowed\": {\"ports\": [1, 2]}}, " +
+                "\"backups\": [{\"port\": 81}, null, {\"port\": 82}]}", Deployment.class );
+
+        assertEquals( "prod", deployment.environment );
+        assertEquals( "main", deployment.server.name() );
+        assertEquals( 2, deployment.server.allowed().ports()[ 1 ] );
+        assertEquals( 3, deployment.backups.size() );
+        assertEquals( 81, deployment.backups.get( 0 ).port() );
+        assertNull( deployment.backups.get( 1 ) );
+        assertEquals( 82, deployment.backups.get( 2 ).port() );
+    }
+
+    @Test
+    public void canWriteAnnotationsInObjectGraph() {
+        JavannaGson javannaGson = new JavannaGson();
+        Deployment deployment = new Deployment();
+        deployment.environment = "test";
+        deployment.server = javannaGson.parse( "{\"name\": \"main\"}", Host.class );
+        deployment.backups = Arrays.asList( javannaGson.parse( "{\"port\": 81}", Host.class ) );
+        deployment.anything = javannaGson.parse( "{\"port\": 82}", Host.class );
+
+        String json = gson.toJson( deployment );
+
+        Map<?, ?> map = new Gson().fromJson( json, Map.class );
+        assertEquals( "test", map.get( "environment" ) );
+        assertEquals( "main", ( ( Map<?, ?> ) map.get( "server" ) ).get( "name" ) );
+        assertEquals( 81.0, ( ( Map<?, ?> ) ( ( List<?> ) map.get( "backups" ) ).get( 0 ) ).get( "port" ) );
+        assertEquals( 82.0, ( ( Map<?, ?> ) map.get( "anything" ) ).get( "port" ) );
+
+        Deployment copy = gson.fromJson( json, Deployment.class );
+        assertEquals( deployment.server, copy.server );
+        assertEquals( deployment.backups, copy.backups );
+    }
+
+    @Test
+    public void adaptersAreCreatedOnlyOnce() {
+        Gson other = new GsonBuilder().registerTypeAdapterFactory( new JavannaTypeAdapterFactory() ).create();
+
+        assertSame( gson.getAdapter( Host.class ), other.getAdapter( Host.class ) );
+    }
+
+    @Test
+    public void invalidAnnotationsAreReportedAsSyntaxErrors() {
+        try {
+            gson.fromJson( "[{\"port\": \"x\"}]", new TypeToken<List<Host>>() {
+            }.getType() );
+        } catch ( JsonSyntaxException e ) {
+            assertTrue( e.getMessage(), e.getMessage().startsWith( "Errors:" ) );
+            return;
+        }
+        throw new AssertionError( "Should not read invalid annotation" );
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.athaydes.javanna.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name( "com.athaydes.javanna.AnnotationCreate" )
+@Label( "Annotation Creation" )
+@Description( "An annotation instance was created, including the validation and conversion of its values" )
+@StackTrace( false )
+final class AnnotationCreateEvent extends AnnotationEvent {
+
+    @Label( "Member Count" )
+    int memberCount;
+
+    @Label( "Largest Array Size" )
+    @Description( "Size of the largest array value, or 0 if the annotation has no array members" )
+    int largestArraySize;
+
+}
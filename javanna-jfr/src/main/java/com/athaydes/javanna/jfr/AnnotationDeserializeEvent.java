@@ -0,0 +1,17 @@
+package com.athaydes.javanna.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name( "com.athaydes.javanna.AnnotationDeserialize" )
+@Label( "Annotation Deserialization" )
+@Description( "An annotation was read from a serialized form, such as JSON" )
+@StackTrace( false )
+final class AnnotationDeserializeEvent extends AnnotationEvent {
+
+    @Label( "Format" )
+    String format;
+
+}
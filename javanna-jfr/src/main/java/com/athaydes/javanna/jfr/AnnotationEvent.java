@@ -0,0 +1,26 @@
+package com.athaydes.javanna.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Timespan;
+
+/**
+ * Base class of all Javanna events.
+ * <p>
+ * Javanna reports operations after they complete, so their duration is recorded in the {@link #elapsedTime} field
+ * rather than in the built-in duration of the event.
+ */
+@Category( "Javanna" )
+abstract class AnnotationEvent extends Event {
+
+    @Label( "Annotation Type" )
+    String annotationType;
+
+    @Label( "Elapsed Time" )
+    @Description( "Time taken by the operation" )
+    @Timespan( Timespan.NANOSECONDS )
+    long elapsedTime;
+
+}
@@ -0,0 +1,11 @@
+package com.athaydes.javanna.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name( "com.athaydes.javanna.AnnotationParse" )
+@Label( "Annotation Type Parse" )
+@Description( "An annotation type was parsed" )
+final class AnnotationParseEvent extends AnnotationEvent {
+}
@@ -0,0 +1,17 @@
+package com.athaydes.javanna.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name( "com.athaydes.javanna.AnnotationSerialize" )
+@Label( "Annotation Serialization" )
+@Description( "An annotation was written in a serialized form, such as JSON" )
+@StackTrace( false )
+final class AnnotationSerializeEvent extends AnnotationEvent {
+
+    @Label( "Format" )
+    String format;
+
+}
@@ -0,0 +1,66 @@
+package com.athaydes.javanna.jfr;
+
+import com.athaydes.javanna.Javanna;
+import com.athaydes.javanna.MetricsListener;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * A <a href="https://github.com/renatoathaydes/javanna">Javanna</a> extension
+ * to emit JDK Flight Recorder events for the operations performed by Javanna.
+ * <p>
+ * Javanna itself does not depend on JFR. Events are only emitted after {@link #install()} is called,
+ * which does nothing on JVMs where JFR is not available.
+ * <p>
+ * No instance of this class can be created. It only contains static methods.
+ *
+ * @see JfrMetricsListener
+ */
+public final class JavannaJfr {
+
+    private JavannaJfr() {
+        // private
+    }
+
+    /**
+     * @return true if JFR is available in the running JVM, false otherwise.
+     */
+    public static boolean isAvailable() {
+        try {
+            return FlightRecorder.isAvailable();
+        } catch ( LinkageError e ) {
+            // the jdk.jfr module is not present
+            return false;
+        }
+    }
+
+    /**
+     * Start emitting JFR events for the operations performed by Javanna.
+     * <p>
+     * The current {@link MetricsListener}, if any, keeps being notified of all operations.
+     *
+     * @return true if JFR events are emitted, false if JFR is not available.
+     * @see Javanna#setMetricsListener(MetricsListener)
+     */
+    public static synchronized boolean install() {
+        if ( !isAvailable() ) {
+            return false;
+        }
+        MetricsListener current = Javanna.getMetricsListener();
+        if ( !( current instanceof JfrMetricsListener ) ) {
+            Javanna.setMetricsListener( new JfrMetricsListener( current ) );
+        }
+        return true;
+    }
+
+    /**
+     * Stop emitting JFR events, restoring the {@link MetricsListener} that was set before
+     * {@link #install()} was called.
+     */
+    public static synchronized void uninstall() {
+        MetricsListener current = Javanna.getMetricsListener();
+        if ( current instanceof JfrMetricsListener ) {
+            Javanna.setMetricsListener( ( ( JfrMetricsListener ) current ).getDelegate() );
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.athaydes.javanna.jfr;
+
+import com.athaydes.javanna.MetricsListener;
+import com.athaydes.javanna.ValidationFailure;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * {@link MetricsListener} that emits JDK Flight Recorder events.
+ * <p>
+ * Events are emitted for annotation type parsing, annotation creation, validation failures and
+ * serialization (for example, by Javanna-Gson). Each event records the name of the annotation type
+ * and the time taken by the operation. Events are only created when they are enabled in a running recording.
+ * <p>
+ * Value conversions, calls to {@code getAnnotationValues} and cache accesses are too frequent and cheap to be
+ * recorded as events: they are only passed on to the delegate listener, if any.
+ * <p>
+ * Instances of this class are thread-safe if the delegate listener is.
+ *
+ * @see JavannaJfr#install()
+ */
+public final class JfrMetricsListener implements MetricsListener {
+
+    private final MetricsListener delegate;
+
+    /**
+     * Create a listener that only emits JFR events.
+     */
+    public JfrMetricsListener() {
+        this( null );
+    }
+
+    /**
+     * Create a listener that emits JFR events and also notifies the given listener, for example
+     * a {@link com.athaydes.javanna.MetricsRegistry}.
+     *
+     * @param delegate listener to notify of all operations, or null.
+     */
+    public JfrMetricsListener( MetricsListener delegate ) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @return the listener notified of all operations besides JFR, or null if there is none.
+     */
+    public MetricsListener getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void annotationParsed( Class<? extends Annotation> annotationType, long durationNanos ) {
+        AnnotationParseEvent event = new AnnotationParseEvent();
+        if ( event.isEnabled() ) {
+            event.annotationType = annotationType.getName();
+            event.elapsedTime = durationNanos;
+            event.commit();
+        }
+        if ( delegate != null ) {
+            delegate.annotationParsed( annotationType, durationNanos );
+        }
+    }
+
+    @Override
+    public void annotationCreated( Class<? extends Annotation> annotationType, int memberCount,
+                                   int largestArraySize, long durationNanos ) {
+        AnnotationCreateEvent event = new AnnotationCreateEvent();
+        if ( event.isEnabled() ) {
+            event.annotationType = annotationType.getName();
+            event.elapsedTime = durationNanos;
+            event.memberCount = memberCount;
+            event.largestArraySize = largestArraySize;
+            event.commit();
+        }
+        if ( delegate != null ) {
+            delegate.annotationCreated( annotationType, memberCount, largestArraySize, durationNanos );
+        }
+    }
+
+    @Override
+    public void validationFailed( Class<? extends Annotation> annotationType, ValidationFailure reason,
+                                  long durationNanos ) {
+        ValidationFailureEvent event = new ValidationFailureEvent();
+        if ( event.isEnabled() ) {
+            event.annotationType = annotationType.getName();
+            event.elapsedTime = durationNanos;
+            event.reason = reason.name();
+            event.commit();
+        }
+        if ( delegate != null ) {
+            delegate.validationFailed( annotationType, reason, durationNanos );
+        }
+    }
+
+    @Override
+    public void valueConverted( Class<?> sourceType, Class<?> targetType, boolean converted ) {
+        if ( delegate != null ) {
+            delegate.valueConverted( sourceType, targetType, converted );
+        }
+    }
+
+    @Override
+    public void annotationValuesRead( Class<? extends Annotation> annotationType, long durationNanos ) {
+        if ( delegate != null ) {
+            delegate.annotationValuesRead( annotationType, durationNanos );
+        }
+    }
+
+    @Override
+    public void annotationDeserialized( Class<? extends Annotation> annotationType, String format,
+                                        long durationNanos ) {
+        AnnotationDeserializeEvent event = new AnnotationDeserializeEvent();
+        if ( event.isEnabled() ) {
+            event.annotationType = annotationType.getName();
+            event.elapsedTime = durationNanos;
+            event.format = format;
+            event.commit();
+        }
+        if ( delegate != null ) {
+            delegate.annotationDeserialized( annotationType, format, durationNanos );
+        }
+    }
+
+    @Override
+    public void annotationSerialized( Class<? extends Annotation> annotationType, String format,
+                                      long durationNanos ) {
+        AnnotationSerializeEvent event = new AnnotationSerializeEvent();
+        if ( event.isEnabled() ) {
+            event.annotationType = annotationType.getName();
+            event.elapsedTime = durationNanos;
+            event.format = format;
+            event.commit();
+        }
+        if ( delegate != null ) {
+            delegate.annotationSerialized( annotationType, format, durationNanos );
+        }
+    }
+
+    @Override
+    public void cacheAccessed( String cache, boolean hit ) {
+        if ( delegate != null ) {
+            delegate.cacheAccessed( cache, hit );
+        }
+    }
+
+}
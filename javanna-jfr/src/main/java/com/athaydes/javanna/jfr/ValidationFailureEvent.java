@@ -0,0 +1,15 @@
+package com.athaydes.javanna.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name( "com.athaydes.javanna.ValidationFailure" )
+@Label( "Annotation Validation Failure" )
+@Description( "The values provided to create an annotation were rejected" )
+final class ValidationFailureEvent extends AnnotationEvent {
+
+    @Label( "Reason" )
+    String reason;
+
+}
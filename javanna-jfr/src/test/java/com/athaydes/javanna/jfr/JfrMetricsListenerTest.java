@@ -0,0 +1,161 @@
+package com.athaydes.javanna.jfr;
+
+import com.athaydes.javanna.Javanna;
+import com.athaydes.javanna.MetricsRegistry;
+import com.athaydes.javanna.gson.JavannaGson;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JfrMetricsListenerTest {
+
+    @Retention( RetentionPolicy.RUNTIME )
+    public @interface Server {
+        String name();
+
+        int[] ports() default { 80, 8080 };
+    }
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @After
+    public void cleanup() {
+        Javanna.setMetricsListener( null );
+    }
+
+    @Test
+    public void eventsAreEmittedForJavannaOperations() throws Exception {
+        Javanna.invalidateCache( Server.class );
+        MetricsRegistry registry = new MetricsRegistry();
+        Javanna.setMetricsListener( new JfrMetricsListener( registry ) );
+        JavannaGson javannaGson = new JavannaGson();
+
+        List<RecordedEvent> events = record( () -> {
+            Server server = Javanna.createAnnotation( Server.class, values( "name", "a" ) );
+            javannaGson.parse( javannaGson.toJson( server ), Server.class );
+            try {
+                Javanna.createAnnotation( Server.class, values( "ports", new int[]{ 1 } ) );
+                fail( "Should not be able to create annotation without mandatory value" );
+            } catch ( IllegalArgumentException e ) {
+                // expected
+            }
+        } );
+
+        RecordedEvent parse = single( events, "com.athaydes.javanna.AnnotationParse" );
+        assertTrue( parse.getDuration( "elapsedTime" ).toNanos() > 0L );
+
+        List<RecordedEvent> creations = all( events, "com.athaydes.javanna.AnnotationCreate" );
+        // one creation from the Map of values, one from parsing the JSON document
+        assertEquals( 2, creations.size() );
+        for (RecordedEvent creation : creations) {
+            assertEquals( 2, creation.getInt( "memberCount" ) );
+            assertEquals( 2, creation.getInt( "largestArraySize" ) );
+        }
+
+        RecordedEvent failure = single( events, "com.athaydes.javanna.ValidationFailure" );
+        assertEquals( "MISSING_MEMBERS", failure.getString( "reason" ) );
+
+        assertEquals( "json", single( events, "com.athaydes.javanna.AnnotationSerialize" ).getString( "format" ) );
+        assertEquals( "json", single( events, "com.athaydes.javanna.AnnotationDeserialize" ).getString( "format" ) );
+
+        // the delegate is also notified
+        assertEquals( 2L, registry.snapshot().getHistogram( "create[" + Server.class.getName() + "]" ).getCount() );
+    }
+
+    @Test
+    public void canInstallAndUninstall() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Javanna.setMetricsListener( registry );
+
+        assertTrue( JavannaJfr.isAvailable() );
+        assertTrue( JavannaJfr.install() );
+        assertTrue( JavannaJfr.install() );
+
+        JfrMetricsListener listener = ( JfrMetricsListener ) Javanna.getMetricsListener();
+        assertSame( registry, listener.getDelegate() );
+
+        JavannaJfr.uninstall();
+        assertSame( registry, Javanna.getMetricsListener() );
+
+        Javanna.setMetricsListener( null );
+        JavannaJfr.install();
+        assertNull( ( ( JfrMetricsListener ) Javanna.getMetricsListener() ).getDelegate() );
+        JavannaJfr.uninstall();
+        assertNull( Javanna.getMetricsListener() );
+    }
+
+    @Test
+    public void noEventsAreEmittedWhenNotInstalled() throws Exception {
+        List<RecordedEvent> events = record( () ->
+                Javanna.createAnnotation( Server.class, values( "name", "b" ) ) );
+
+        assertFalse( events.stream().anyMatch( event ->
+                event.getEventType().getName().startsWith( "com.athaydes.javanna." ) ) );
+    }
+
+    private List<RecordedEvent> record( Runnable action ) throws Exception {
+        Path file = temporaryFolder.newFile( "javanna.jfr" ).toPath();
+        try ( Recording recording = new Recording() ) {
+            recording.enable( AnnotationParseEvent.class );
+            recording.enable( AnnotationCreateEvent.class );
+            recording.enable( ValidationFailureEvent.class );
+            recording.enable( AnnotationSerializeEvent.class );
+            recording.enable( AnnotationDeserializeEvent.class );
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump( file );
+        }
+        List<RecordedEvent> events = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents( file )) {
+            if ( !event.hasField( "annotationType" ) ||
+                    Server.class.getName().equals( event.getString( "annotationType" ) ) ) {
+                events.add( event );
+            }
+        }
+        return events;
+    }
+
+    private static List<RecordedEvent> all( List<RecordedEvent> events, String name ) {
+        List<RecordedEvent> result = new ArrayList<>();
+        for (RecordedEvent event : events) {
+            if ( event.getEventType().getName().equals( name ) ) {
+                result.add( event );
+            }
+        }
+        return result;
+    }
+
+    private static RecordedEvent single( List<RecordedEvent> events, String name ) {
+        List<RecordedEvent> result = all( events, name );
+        assertEquals( "Events of type " + name, 1, result.size() );
+        return result.get( 0 );
+    }
+
+    private static Map<String, Object> values( String member, Object value ) {
+        Map<String, Object> values = new HashMap<>( 2 );
+        values.put( member, value );
+        return values;
+    }
+
+}
@@ -0,0 +1,414 @@
+package com.athaydes.javanna;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builder of instances of an annotation type.
+ * <p>
+ * Values are written directly into the slot layout of the annotation, without going through a {@link java.util.Map}.
+ * Values set through the primitive setters of members of the same primitive type are boxed once, when set, and
+ * need no conversion.
+ * All values are validated when {@link #build()} is called.
+ * <p>
+ * A builder may be used to build any number of annotations: values are kept after each build, so only the values
+ * that differ between annotations need to be set again. Array values are copied when set, so the caller may
+ * modify them afterwards, unless they are set through {@link #setOwned(String, Object)}.
+ * <p>
+ * Instances of this class are not thread-safe.
+ *
+ * @param <A> type of the annotation
+ * @see JavaAnnotation#builder()
+ */
+public final class AnnotationBuilder<A extends Annotation> {
+
+    private final JavaAnnotation<A> annotation;
+    private final AnnotationFactory<A> factory;
+    private final Object[] slots;
+
+    // slots holding values that must still be converted into the member type
+    private final boolean[] unconverted;
+
+    AnnotationBuilder( AnnotationFactory<A> factory ) {
+        this.annotation = factory.getAnnotation();
+        this.factory = factory;
+        this.slots = annotation.newSlots();
+        this.unconverted = new boolean[ slots.length ];
+    }
+
+    /**
+     * @return the annotation whose instances this builder creates.
+     */
+    public JavaAnnotation<A> getAnnotation() {
+        return annotation;
+    }
+
+    /**
+     * Set the value of a member.
+     * <p>
+     * Values are converted into the member type, if necessary, in the same way as by
+     * {@link Javanna#createAnnotation(JavaAnnotation, java.util.Map)}. Array values are copied.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, Object value ) {
+        int slot = slotOf( member );
+        Class<?> type = annotation.memberType( slot );
+        slots[ slot ] = copyIfArray( value );
+        unconverted[ slot ] = type.isPrimitive() || type.isArray() || !type.isInstance( value );
+        return this;
+    }
+
+    /**
+     * Set the value of a {@code String} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, String value ) {
+        return put( member, value, String.class );
+    }
+
+    /**
+     * Set the value of a {@code boolean} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, boolean value ) {
+        return put( member, value, boolean.class );
+    }
+
+    /**
+     * Set the value of a {@code byte} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, byte value ) {
+        return put( member, value, byte.class );
+    }
+
+    /**
+     * Set the value of a {@code char} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, char value ) {
+        return put( member, value, char.class );
+    }
+
+    /**
+     * Set the value of a {@code short} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, short value ) {
+        return put( member, value, short.class );
+    }
+
+    /**
+     * Set the value of an {@code int} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, int value ) {
+        return put( member, value, int.class );
+    }
+
+    /**
+     * Set the value of a {@code long} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, long value ) {
+        return put( member, value, long.class );
+    }
+
+    /**
+     * Set the value of a {@code float} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, float value ) {
+        return put( member, value, float.class );
+    }
+
+    /**
+     * Set the value of a {@code double} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, double value ) {
+        return put( member, value, double.class );
+    }
+
+    /**
+     * Set the value of a {@code String[]} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, String[] value ) {
+        return put( member, value == null ? null : value.clone(), String[].class );
+    }
+
+    /**
+     * Set the value of a {@code boolean[]} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, boolean[] value ) {
+        return put( member, value == null ? null : value.clone(), boolean[].class );
+    }
+
+    /**
+     * Set the value of a {@code byte[]} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, byte[] value ) {
+        return put( member, value == null ? null : value.clone(), byte[].class );
+    }
+
+    /**
+     * Set the value of a {@code char[]} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, char[] value ) {
+        return put( member, value == null ? null : value.clone(), char[].class );
+    }
+
+    /**
+     * Set the value of a {@code short[]} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, short[] value ) {
+        return put( member, value == null ? null : value.clone(), short[].class );
+    }
+
+    /**
+     * Set the value of an {@code int[]} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, int[] value ) {
+        return put( member, value == null ? null : value.clone(), int[].class );
+    }
+
+    /**
+     * Set the value of a {@code long[]} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, long[] value ) {
+        return put( member, value == null ? null : value.clone(), long[].class );
+    }
+
+    /**
+     * Set the value of a {@code float[]} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, float[] value ) {
+        return put( member, value == null ? null : value.clone(), float[].class );
+    }
+
+    /**
+     * Set the value of a {@code double[]} member.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> set( String member, double[] value ) {
+        return put( member, value == null ? null : value.clone(), double[].class );
+    }
+
+    /**
+     * Set the value of an array member without copying the array.
+     * <p>
+     * The builder takes ownership of the array, so it must not be modified afterwards. This is meant for
+     * arrays created only to be passed to this builder, such as arrays read by decoders.
+     * Values that are not arrays of the member type are converted, if necessary, as by {@link #set(String, Object)}.
+     *
+     * @param member name of the member
+     * @param value  value of the member
+     * @return this builder
+     * @throws IllegalArgumentException if the annotation has no member with the given name.
+     */
+    public AnnotationBuilder<A> setOwned( String member, Object value ) {
+        int slot = slotOf( member );
+        if ( value != null && value.getClass() == annotation.memberType( slot ) && !hasNullItem( value ) ) {
+            slots[ slot ] = value;
+            unconverted[ slot ] = false;
+            return this;
+        }
+        return set( member, value );
+    }
+
+    /**
+     * Restore the default value of all members, removing the values of mandatory members.
+     *
+     * @return this builder
+     */
+    public AnnotationBuilder<A> reset() {
+        System.arraycopy( annotation.newSlots(), 0, slots, 0, slots.length );
+        for (int slot = 0; slot < unconverted.length; slot++) {
+            unconverted[ slot ] = false;
+        }
+        return this;
+    }
+
+    /**
+     * Create an instance of the annotation with the values set in this builder.
+     * <p>
+     * Default values are used for members whose value has not been set.
+     *
+     * @return new instance of the annotation.
+     * @throws IllegalArgumentException if a mandatory value is missing or a value has an invalid type.
+     */
+    public A build() {
+        MetricsListener metrics = Metrics.listener;
+        long start = metrics == null ? 0L : System.nanoTime();
+        Object[] result = slots.clone();
+        List<String> missingMembers = null;
+        List<String> errors = null;
+
+        for (int slot = 0; slot < result.length; slot++) {
+            if ( unconverted[ slot ] ) {
+                MemberConverter converter = factory.converter( slot );
+                Object value = converter.convert( result[ slot ] );
+                if ( value != MemberConverter.INVALID ) {
+                    result[ slot ] = value;
+                } else {
+                    if ( errors == null ) {
+                        errors = new ArrayList<>( 2 );
+                    }
+                    errors.add( converter.describeFailure( result[ slot ] ) );
+                }
+            } else if ( result[ slot ] == null ) {
+                if ( missingMembers == null ) {
+                    missingMembers = new ArrayList<>( 2 );
+                }
+                missingMembers.add( annotation.memberName( slot ) );
+            }
+        }
+
+        if ( missingMembers != null ) {
+            Metrics.validationFailed( metrics, annotation, ValidationFailure.MISSING_MEMBERS, start );
+            throw AnnotationFactory.missingMembersError( annotation, missingMembers );
+        }
+        if ( errors != null ) {
+            Metrics.validationFailed( metrics, annotation, ValidationFailure.INVALID_VALUES, start );
+            throw AnnotationFactory.invalidValuesError( errors );
+        }
+
+        // keep converted values so they are not converted again by the next build
+        for (int slot = 0; slot < result.length; slot++) {
+            if ( unconverted[ slot ] ) {
+                slots[ slot ] = result[ slot ];
+                unconverted[ slot ] = false;
+            }
+        }
+
+        A instance = Javanna.newInstance( annotation, result );
+        if ( metrics != null ) {
+            Metrics.annotationCreated( metrics, annotation, result, start );
+        }
+        return instance;
+    }
+
+    private AnnotationBuilder<A> put( String member, Object value, Class<?> valueType ) {
+        int slot = slotOf( member );
+        slots[ slot ] = value;
+        unconverted[ slot ] = value == null || annotation.memberType( slot ) != valueType;
+        return this;
+    }
+
+    private static Object copyIfArray( Object value ) {
+        if ( value == null || !value.getClass().isArray() ) {
+            return value;
+        }
+        int length = Array.getLength( value );
+        Object copy = Array.newInstance( value.getClass().getComponentType(), length );
+        System.arraycopy( value, 0, copy, 0, length );
+        return copy;
+    }
+
+    private static boolean hasNullItem( Object array ) {
+        if ( array instanceof Object[] ) {
+            for (Object item : ( Object[] ) array) {
+                if ( item == null ) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int slotOf( String member ) {
+        int slot = annotation.slotOf( member );
+        if ( slot == JavaAnnotation.NO_SLOT ) {
+            throw new IllegalArgumentException( String.format( "Not a member of annotation [%s]: %s",
+                    annotation.getAnnotationType().getName(), member ) );
+        }
+        return slot;
+    }
+
+}
@@ -0,0 +1,387 @@
+package com.athaydes.javanna;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Generates, at runtime, one concrete implementation class for each annotation type.
+ * <p>
+ * Each generated class extends {@link GeneratedAnnotation} and implements the annotation interface by reading
+ * the value of each member straight from the slot array shared with the instance's handler, so that calling
+ * a member method is just an (inlined) array read, plus unboxing, for primitives, and a copy, for arrays.
+ * <p>
+ * Generated classes are defined in their own {@link ClassLoader}, a child of the annotation type's
+ * {@link ClassLoader}. For this reason, only public annotation types whose members also have public types
+ * can be implemented this way. For all other annotation types, {@link #constructorFor(JavaAnnotation)}
+ * returns null.
+ */
+final class AnnotationClassGenerator {
+
+    private static final String GENERATED_PACKAGE = "com.athaydes.javanna.generated.";
+    private static final String GENERATED_SUFFIX = "$JavannaImpl";
+
+    private static final String BASE_CLASS = internalName( GeneratedAnnotation.class );
+    private static final String CONSTRUCTOR_DESCRIPTOR =
+            "(" + descriptor( InvocationHandler.class ) + descriptor( GeneratedAnnotation.Token.class ) + ")V";
+    private static final String SLOT_DESCRIPTOR = "(I)Ljava/lang/Object;";
+
+    /**
+     * Type of the constructor {@link MethodHandle}s returned by {@link #constructorFor(JavaAnnotation)}.
+     */
+    static final MethodType CONSTRUCTOR_TYPE =
+            MethodType.methodType( GeneratedAnnotation.class,
+                    InvocationHandler.class, GeneratedAnnotation.Token.class );
+
+    private static final Map<Class<?>, String> UNBOXING_METHODS = new HashMap<Class<?>, String>() {{
+        put( boolean.class, "booleanValue" );
+        put( byte.class, "byteValue" );
+        put( char.class, "charValue" );
+        put( short.class, "shortValue" );
+        put( int.class, "intValue" );
+        put( long.class, "longValue" );
+        put( float.class, "floatValue" );
+        put( double.class, "doubleValue" );
+    }};
+
+    private static final Map<Class<?>, Class<?>> BOXED_TYPES = new HashMap<Class<?>, Class<?>>() {{
+        put( boolean.class, Boolean.class );
+        put( byte.class, Byte.class );
+        put( char.class, Character.class );
+        put( short.class, Short.class );
+        put( int.class, Integer.class );
+        put( long.class, Long.class );
+        put( float.class, Float.class );
+        put( double.class, Double.class );
+    }};
+
+    private static final ClassValue<GeneratedConstructor> CONSTRUCTORS = new ClassValue<GeneratedConstructor>() {
+        @Override
+        protected GeneratedConstructor computeValue( Class<?> type ) {
+            return new GeneratedConstructor( generate(
+                    Javanna.parseAnnotation( type.asSubclass( Annotation.class ) ) ) );
+        }
+    };
+
+    private AnnotationClassGenerator() {
+        // private
+    }
+
+    /**
+     * Get the constructor of the class generated for the given annotation, generating the class if necessary.
+     * <p>
+     * The returned {@link MethodHandle} has type {@link #CONSTRUCTOR_TYPE}. It takes the handler of the
+     * annotation instance, which holds the values of all members, and {@link GeneratedAnnotation#TOKEN}.
+     *
+     * @param annotation the annotation to implement
+     * @return the constructor of the generated class, or null if a class cannot be generated for the annotation.
+     */
+    static MethodHandle constructorFor( JavaAnnotation<?> annotation ) {
+        return CONSTRUCTORS.get( annotation.getAnnotationType() ).constructor;
+    }
+
+    private static MethodHandle generate( JavaAnnotation<?> annotation ) {
+        if ( !canImplement( annotation ) ) {
+            return null;
+        }
+
+        Class<? extends Annotation> annotationType = annotation.getAnnotationType();
+        String className = GENERATED_PACKAGE + annotationType.getName() + GENERATED_SUFFIX;
+
+        try {
+            byte[] classBytes = classBytes( className.replace( '.', '/' ), annotation );
+            GeneratedClassLoader classLoader = new GeneratedClassLoader( annotationType.getClassLoader() );
+            Class<?> generatedClass = classLoader.define( className, classBytes );
+            return MethodHandles.publicLookup()
+                    .findConstructor( generatedClass, CONSTRUCTOR_TYPE.changeReturnType( void.class ) )
+                    .asType( CONSTRUCTOR_TYPE );
+        } catch ( IOException | ReflectiveOperationException | LinkageError e ) {
+            // could not generate a class, the proxy engine will be used instead
+            return null;
+        }
+    }
+
+    private static boolean canImplement( JavaAnnotation<?> annotation ) {
+        if ( !Modifier.isPublic( annotation.getAnnotationType().getModifiers() ) ) {
+            return false;
+        }
+        for (Class<?> type : annotation.getTypeByMember().values()) {
+            while ( type.isArray() ) {
+                type = type.getComponentType();
+            }
+            if ( !type.isPrimitive() && !Modifier.isPublic( type.getModifiers() ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] classBytes( String className, JavaAnnotation<?> annotation ) throws IOException {
+        ConstantPool pool = new ConstantPool();
+        int thisClass = pool.classRef( className );
+        int superClass = pool.classRef( BASE_CLASS );
+        int annotationInterface = pool.classRef( internalName( annotation.getAnnotationType() ) );
+
+        ByteArrayOutputStream methodsBytes = new ByteArrayOutputStream();
+        DataOutputStream methods = new DataOutputStream( methodsBytes );
+
+        int slotRef = pool.methodRef( BASE_CLASS, "slot", SLOT_DESCRIPTOR );
+        int memberCount = 0;
+
+        for (Map.Entry<String, Class<?>> entry : annotation.getTypeByMember().entrySet()) {
+            String member = entry.getKey();
+            Class<?> type = entry.getValue();
+            String typeDescriptor = descriptor( type );
+
+            // member method: return (type) slot( i ); (primitives are unboxed, arrays are cloned)
+            ByteArrayOutputStream accessorCode = new ByteArrayOutputStream();
+            accessorCode.write( ALOAD_0 );
+            writePushInt( accessorCode, memberCount );
+            writeInstruction( accessorCode, INVOKEVIRTUAL, slotRef );
+            if ( type.isPrimitive() ) {
+                String boxedType = internalName( BOXED_TYPES.get( type ) );
+                writeInstruction( accessorCode, CHECKCAST, pool.classRef( boxedType ) );
+                writeInstruction( accessorCode, INVOKEVIRTUAL, pool.methodRef( boxedType,
+                        UNBOXING_METHODS.get( type ), "()" + typeDescriptor ) );
+            } else {
+                int typeClass = pool.classRef( internalName( type ) );
+                writeInstruction( accessorCode, CHECKCAST, typeClass );
+                if ( type.isArray() ) {
+                    writeInstruction( accessorCode, INVOKEVIRTUAL,
+                            pool.methodRef( internalName( type ), "clone", "()Ljava/lang/Object;" ) );
+                    writeInstruction( accessorCode, CHECKCAST, typeClass );
+                }
+            }
+            accessorCode.write( returnInstruction( type ) );
+
+            writeMethod( methods, pool, ACC_PUBLIC, member, "()" + typeDescriptor,
+                    2, 1, accessorCode.toByteArray() );
+
+            memberCount++;
+        }
+
+        // constructor: super( handler, token );
+        ByteArrayOutputStream constructorCode = new ByteArrayOutputStream();
+        constructorCode.write( ALOAD_0 );
+        constructorCode.write( ALOAD_1 );
+        constructorCode.write( ALOAD_2 );
+        writeInstruction( constructorCode, INVOKESPECIAL,
+                pool.methodRef( BASE_CLASS, "<init>", CONSTRUCTOR_DESCRIPTOR ) );
+        constructorCode.write( RETURN );
+        writeMethod( methods, pool, ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR,
+                3, 3, constructorCode.toByteArray() );
+
+        ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( classBytes );
+        out.writeInt( 0xCAFEBABE );
+        out.writeShort( 0 ); // minor version
+        out.writeShort( CLASS_FILE_VERSION );
+        pool.writeTo( out );
+        out.writeShort( ACC_PUBLIC | ACC_FINAL | ACC_SUPER );
+        out.writeShort( thisClass );
+        out.writeShort( superClass );
+        out.writeShort( 1 ); // interfaces count
+        out.writeShort( annotationInterface );
+        out.writeShort( 0 ); // fields count
+        out.writeShort( memberCount + 1 ); // methods count
+        methodsBytes.writeTo( out );
+        out.writeShort( 0 ); // attributes count
+        out.flush();
+
+        return classBytes.toByteArray();
+    }
+
+    private static void writeMethod( DataOutputStream methods, ConstantPool pool,
+                                     int access, String name, String descriptor,
+                                     int maxStack, int maxLocals, byte[] code ) throws IOException {
+        methods.writeShort( access );
+        methods.writeShort( pool.utf8( name ) );
+        methods.writeShort( pool.utf8( descriptor ) );
+        methods.writeShort( 1 ); // attributes count
+        methods.writeShort( pool.utf8( "Code" ) );
+        methods.writeInt( 12 + code.length ); // attribute length
+        methods.writeShort( maxStack );
+        methods.writeShort( maxLocals );
+        methods.writeInt( code.length );
+        methods.write( code );
+        methods.writeShort( 0 ); // exception table length
+        methods.writeShort( 0 ); // attributes count
+    }
+
+    private static void writeInstruction( ByteArrayOutputStream code, int opcode, int constantIndex ) {
+        code.write( opcode );
+        code.write( constantIndex >>> 8 );
+        code.write( constantIndex );
+    }
+
+    private static void writePushInt( ByteArrayOutputStream code, int value ) {
+        if ( value <= 5 ) {
+            code.write( ICONST_0 + value );
+        } else if ( value <= Byte.MAX_VALUE ) {
+            code.write( BIPUSH );
+            code.write( value );
+        } else {
+            code.write( SIPUSH );
+            code.write( value >>> 8 );
+            code.write( value );
+        }
+    }
+
+    private static int returnInstruction( Class<?> type ) {
+        if ( type == long.class ) return LRETURN;
+        if ( type == float.class ) return FRETURN;
+        if ( type == double.class ) return DRETURN;
+        if ( type.isPrimitive() ) return IRETURN;
+        return ARETURN;
+    }
+
+    private static String internalName( Class<?> type ) {
+        // array names are already in descriptor form
+        return type.getName().replace( '.', '/' );
+    }
+
+    private static String descriptor( Class<?> type ) {
+        if ( type.isArray() ) return internalName( type );
+        if ( type == boolean.class ) return "Z";
+        if ( type == byte.class ) return "B";
+        if ( type == char.class ) return "C";
+        if ( type == short.class ) return "S";
+        if ( type == int.class ) return "I";
+        if ( type == long.class ) return "J";
+        if ( type == float.class ) return "F";
+        if ( type == double.class ) return "D";
+        if ( type == void.class ) return "V";
+        return "L" + internalName( type ) + ";";
+    }
+
+    private static final class GeneratedConstructor {
+        final MethodHandle constructor;
+
+        GeneratedConstructor( MethodHandle constructor ) {
+            this.constructor = constructor;
+        }
+    }
+
+    /**
+     * Loads classes from the annotation type's {@link ClassLoader}, except for {@link GeneratedAnnotation}
+     * and its token, which must always be the classes Javanna itself uses.
+     */
+    private static final class GeneratedClassLoader extends ClassLoader {
+
+        GeneratedClassLoader( ClassLoader parent ) {
+            super( parent );
+        }
+
+        @Override
+        protected Class<?> loadClass( String name, boolean resolve ) throws ClassNotFoundException {
+            if ( name.equals( GeneratedAnnotation.class.getName() ) ) {
+                return GeneratedAnnotation.class;
+            }
+            if ( name.equals( GeneratedAnnotation.Token.class.getName() ) ) {
+                return GeneratedAnnotation.Token.class;
+            }
+            return super.loadClass( name, resolve );
+        }
+
+        Class<?> define( String name, byte[] bytes ) {
+            return defineClass( name, bytes, 0, bytes.length );
+        }
+    }
+
+    private static final class ConstantPool {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream( bytes );
+        private final Map<String, Integer> indexByEntry = new HashMap<>();
+        private int count = 1;
+
+        int utf8( String value ) throws IOException {
+            String key = "utf8:" + value;
+            Integer index = indexByEntry.get( key );
+            if ( index == null ) {
+                out.writeByte( CONSTANT_UTF8 );
+                out.writeUTF( value );
+                index = add( key );
+            }
+            return index;
+        }
+
+        int classRef( String internalName ) throws IOException {
+            return ref( CONSTANT_CLASS, utf8( internalName ) );
+        }
+
+        int methodRef( String owner, String name, String descriptor ) throws IOException {
+            return ref( CONSTANT_METHODREF, classRef( owner ), nameAndType( name, descriptor ) );
+        }
+
+        private int nameAndType( String name, String descriptor ) throws IOException {
+            return ref( CONSTANT_NAME_AND_TYPE, utf8( name ), utf8( descriptor ) );
+        }
+
+        private int ref( int tag, int... indexes ) throws IOException {
+            StringBuilder keyBuilder = new StringBuilder().append( tag );
+            for (int i : indexes) {
+                keyBuilder.append( ':' ).append( i );
+            }
+            String key = keyBuilder.toString();
+            Integer index = indexByEntry.get( key );
+            if ( index == null ) {
+                out.writeByte( tag );
+                for (int i : indexes) {
+                    out.writeShort( i );
+                }
+                index = add( key );
+            }
+            return index;
+        }
+
+        private int add( String key ) {
+            int index = count++;
+            indexByEntry.put( key, index );
+            return index;
+        }
+
+        void writeTo( DataOutputStream classFile ) throws IOException {
+            out.flush();
+            classFile.writeShort( count );
+            bytes.writeTo( classFile );
+        }
+    }
+
+    // Java 5 class files do not require stack map frames
+    private static final int CLASS_FILE_VERSION = 49;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int IRETURN = 0xac;
+    private static final int LRETURN = 0xad;
+    private static final int FRETURN = 0xae;
+    private static final int DRETURN = 0xaf;
+    private static final int ARETURN = 0xb0;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int CHECKCAST = 0xc0;
+
+}
@@ -0,0 +1,154 @@
+package com.athaydes.javanna;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The values of an annotation, as found in a class file.
+ * <p>
+ * Only the values explicitly given to the annotation are present: default values are not stored in class files
+ * together with annotations. As the classes referenced by the annotation are not loaded, some values are
+ * represented differently than in annotation instances:
+ * <ul>
+ * <li>enum constants are represented by their names.</li>
+ * <li>classes are represented by their names, in the same format used by {@link Class#getName()} except for arrays,
+ * which look like {@code java.lang.String[]}.</li>
+ * <li>nested annotations are represented by their values, as a Map.</li>
+ * <li>arrays of enums, classes and annotations are Object arrays of the above, as are empty arrays.</li>
+ * </ul>
+ * All of these are converted back into the correct types when an annotation instance is created with
+ * {@link #create(Class)}.
+ * <p>
+ * Instances of this class are immutable. Array values must not be modified.
+ *
+ * @see ClassFileAnnotationReader
+ */
+public final class AnnotationData {
+
+    private final String typeName;
+    private final Map<String, Object> values;
+
+    AnnotationData( String typeName, Map<String, Object> values ) {
+        this.typeName = typeName;
+        this.values = Collections.unmodifiableMap( values );
+    }
+
+    /**
+     * @return the name of the annotation type, as returned by {@link Class#getName()}.
+     */
+    public String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * @return the values of the annotation members which were given explicitly.
+     */
+    public Map<String, Object> getValues() {
+        return values;
+    }
+
+    /**
+     * Create an instance of the annotation with these values.
+     *
+     * @param annotationType the annotation type
+     * @param <A>            type of the annotation
+     * @return the annotation instance
+     * @throws IllegalArgumentException if the given type is not the type of this annotation, or the values are not
+     *                                  valid for it (e.g. if the annotation type changed since the class file was
+     *                                  compiled).
+     */
+    public <A extends Annotation> A create( Class<A> annotationType ) {
+        if ( !annotationType.getName().equals( typeName ) ) {
+            throw new IllegalArgumentException( String.format( "Annotation type mismatch. Expected: %s. Found: %s.",
+                    typeName, annotationType.getName() ) );
+        }
+        return Javanna.createAnnotation( annotationType, values );
+    }
+
+    @Override
+    public boolean equals( Object other ) {
+        if ( this == other ) return true;
+        if ( other == null || getClass() != other.getClass() ) return false;
+
+        AnnotationData that = ( AnnotationData ) other;
+
+        return typeName.equals( that.typeName ) && valueEquals( values, that.values );
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * typeName.hashCode() + valueHash( values );
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder( "AnnotationData{typeName=" ).append( typeName )
+                .append( ", values={" );
+        boolean first = true;
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if ( !first ) {
+                builder.append( ", " );
+            }
+            first = false;
+            String value = Arrays.deepToString( new Object[]{ entry.getValue() } );
+            builder.append( entry.getKey() ).append( '=' ).append( value, 1, value.length() - 1 );
+        }
+        return builder.append( "}}" ).toString();
+    }
+
+    /*
+     * Values may be Maps containing arrays, which must be compared by content.
+     */
+
+    private static boolean valueEquals( Object value, Object other ) {
+        if ( value instanceof Map && other instanceof Map ) {
+            Map<?, ?> map = ( Map<?, ?> ) value;
+            Map<?, ?> otherMap = ( Map<?, ?> ) other;
+            if ( map.size() != otherMap.size() ) {
+                return false;
+            }
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if ( !otherMap.containsKey( entry.getKey() ) ||
+                        !valueEquals( entry.getValue(), otherMap.get( entry.getKey() ) ) ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if ( value instanceof Object[] && other instanceof Object[] ) {
+            Object[] array = ( Object[] ) value;
+            Object[] otherArray = ( Object[] ) other;
+            if ( array.length != otherArray.length ) {
+                return false;
+            }
+            for (int i = 0; i < array.length; i++) {
+                if ( !valueEquals( array[ i ], otherArray[ i ] ) ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return Arrays.deepEquals( new Object[]{ value }, new Object[]{ other } );
+    }
+
+    private static int valueHash( Object value ) {
+        if ( value instanceof Map ) {
+            int result = 0;
+            for (Map.Entry<?, ?> entry : ( ( Map<?, ?> ) value ).entrySet()) {
+                result += entry.getKey().hashCode() ^ valueHash( entry.getValue() );
+            }
+            return result;
+        }
+        if ( value instanceof Object[] ) {
+            int result = 1;
+            for (Object item : ( Object[] ) value) {
+                result = 31 * result + valueHash( item );
+            }
+            return result;
+        }
+        return Arrays.deepHashCode( new Object[]{ value } );
+    }
+
+}
@@ -0,0 +1,318 @@
+package com.athaydes.javanna;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Factory of instances of an annotation type.
+ * <p>
+ * Everything needed to validate the values of the annotation members, such as which members are mandatory
+ * and how to convert values into the type of each member, is worked out only once, when the factory is created.
+ * Creating an annotation then takes a single pass over the provided values.
+ * <p>
+ * Instances of this class are immutable and may be shared freely between Threads.
+ *
+ * @param <A> type of the annotation
+ * @see JavaAnnotation#factory()
+ */
+public final class AnnotationFactory<A extends Annotation> {
+
+    private final JavaAnnotation<A> annotation;
+    private final long[] mandatorySlots;
+    private final int mandatoryCount;
+    private final MemberConverter[] converters;
+
+    AnnotationFactory( JavaAnnotation<A> annotation ) {
+        int memberCount = annotation.memberCount();
+        Map<String, Object> defaults = annotation.defaultValues();
+
+        this.annotation = annotation;
+        this.mandatorySlots = new long[ ( memberCount + 63 ) / 64 ];
+        this.converters = new MemberConverter[ memberCount ];
+
+        int mandatory = 0;
+        for (int slot = 0; slot < memberCount; slot++) {
+            String member = annotation.memberName( slot );
+            if ( !defaults.containsKey( member ) ) {
+                mandatorySlots[ slot >>> 6 ] |= 1L << slot;
+                mandatory++;
+            }
+            converters[ slot ] = new MemberConverter( member, annotation.memberType( slot ) );
+        }
+
+        this.mandatoryCount = mandatory;
+    }
+
+    /**
+     * @return the annotation whose instances this factory creates.
+     */
+    public JavaAnnotation<A> getAnnotation() {
+        return annotation;
+    }
+
+    /**
+     * Create an instance of the annotation with the provided values.
+     *
+     * @param values values of the annotation members. All mandatory values must be provided.
+     * @return new instance of the annotation.
+     * @throws IllegalArgumentException if a mandatory value is missing, a value has an invalid type or values are
+     *                                  provided for non-existing members.
+     */
+    public A create( Map<String, ?> values ) {
+        return create( values, null );
+    }
+
+    /**
+     * Create an instance of the annotation with the provided values, returning the canonical instance
+     * held by the given interner, if there is one.
+     *
+     * @param values   values of the annotation members. All mandatory values must be provided.
+     * @param interner interner holding canonical annotation instances, or null to always create a new instance
+     * @return an instance of the annotation with the provided values.
+     * @throws IllegalArgumentException if a mandatory value is missing, a value has an invalid type or values are
+     *                                  provided for non-existing members.
+     */
+    A create( Map<String, ?> values, AnnotationInterner interner ) {
+        MetricsListener metrics = Metrics.listener;
+        long start = metrics == null ? 0L : System.nanoTime();
+        Object[] slots = toSlots( values, metrics, start );
+        A result = interner == null
+                ? Javanna.newInstance( annotation, slots )
+                : interner.intern( annotation, slots );
+        if ( metrics != null ) {
+            Metrics.annotationCreated( metrics, annotation, slots, start );
+        }
+        return result;
+    }
+
+    /**
+     * Create one instance of the annotation for each set of values.
+     * <p>
+     * Creating an annotation from one set of values does not stop if creating another one fails:
+     * errors are reported in the result, at the same index as the values that caused them.
+     * Unexpected errors (for example, thrown by a {@link ValueConverter}) are reported as an
+     * {@link IllegalArgumentException} whose cause is the original error.
+     *
+     * @param valuesBatch values of the annotation members, for each annotation to create
+     * @return the annotations and errors, by index.
+     */
+    public BatchResult<A> createAll( Iterable<? extends Map<String, ?>> valuesBatch ) {
+        Map<?, ?>[] batch = toArray( valuesBatch );
+        Object[] annotations = new Object[ batch.length ];
+        IllegalArgumentException[] errors = new IllegalArgumentException[ batch.length ];
+        createRange( batch, 0, batch.length, annotations, errors );
+        return new BatchResult<>( annotations, errors );
+    }
+
+    /**
+     * Create one instance of the annotation for each set of values, in parallel, using a shared {@link ForkJoinPool}
+     * with as many Threads as there are available processors.
+     *
+     * @param valuesBatch values of the annotation members, for each annotation to create
+     * @return the annotations and errors, by index.
+     * @see #createAll(Iterable)
+     */
+    public BatchResult<A> createAllParallel( List<? extends Map<String, ?>> valuesBatch ) {
+        return createAllParallel( valuesBatch, SharedPool.POOL );
+    }
+
+    /**
+     * Create one instance of the annotation for each set of values, in parallel, using the given {@link ForkJoinPool}.
+     *
+     * @param valuesBatch values of the annotation members, for each annotation to create
+     * @param pool        pool to run the work on
+     * @return the annotations and errors, by index.
+     * @see #createAll(Iterable)
+     */
+    public BatchResult<A> createAllParallel( List<? extends Map<String, ?>> valuesBatch, ForkJoinPool pool ) {
+        Map<?, ?>[] batch = toArray( valuesBatch );
+        Object[] annotations = new Object[ batch.length ];
+        IllegalArgumentException[] errors = new IllegalArgumentException[ batch.length ];
+        pool.invoke( new CreateRange( batch, 0, batch.length, annotations, errors ) );
+        return new BatchResult<>( annotations, errors );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private void createRange( Map<?, ?>[] batch, int from, int to,
+                              Object[] annotations, IllegalArgumentException[] errors ) {
+        for (int i = from; i < to; i++) {
+            try {
+                annotations[ i ] = create( ( Map<String, ?> ) batch[ i ] );
+            } catch ( IllegalArgumentException e ) {
+                errors[ i ] = e;
+            } catch ( RuntimeException e ) {
+                errors[ i ] = new IllegalArgumentException( "Unable to create annotation [" +
+                        annotation.getAnnotationType().getName() + "]: " + e, e );
+            }
+        }
+    }
+
+    private static Map<?, ?>[] toArray( Iterable<? extends Map<String, ?>> valuesBatch ) {
+        if ( valuesBatch instanceof Collection ) {
+            return ( ( Collection<? extends Map<String, ?>> ) valuesBatch ).toArray( new Map<?, ?>[ 0 ] );
+        }
+        List<Map<?, ?>> list = new ArrayList<>();
+        for (Map<String, ?> values : valuesBatch) {
+            list.add( values );
+        }
+        return list.toArray( new Map<?, ?>[ list.size() ] );
+    }
+
+    /**
+     * Creates the annotations within a range of a batch, splitting the range between Threads while it is large.
+     * <p>
+     * Each annotation and error is written to its own index, so tasks never write to the same array element.
+     */
+    private final class CreateRange extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final int THRESHOLD = 256;
+
+        private final Map<?, ?>[] batch;
+        private final int from;
+        private final int to;
+        private final Object[] annotations;
+        private final IllegalArgumentException[] errors;
+
+        CreateRange( Map<?, ?>[] batch, int from, int to,
+                     Object[] annotations, IllegalArgumentException[] errors ) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+            this.annotations = annotations;
+            this.errors = errors;
+        }
+
+        @Override
+        protected void compute() {
+            if ( to - from <= THRESHOLD ) {
+                createRange( batch, from, to, annotations, errors );
+            } else {
+                int middle = ( from + to ) >>> 1;
+                invokeAll( new CreateRange( batch, from, middle, annotations, errors ),
+                        new CreateRange( batch, middle, to, annotations, errors ) );
+            }
+        }
+    }
+
+    private static final class SharedPool {
+        // only created when first used
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    /**
+     * Validate the given values and convert them into a slot array.
+     * <p>
+     * Validation failures are reported to the given metrics listener, unless it is null.
+     */
+    Object[] toSlots( Map<String, ?> values, MetricsListener metrics, long startNanos ) {
+        Object[] slots = annotation.newSlots();
+        int mandatoryFound = 0;
+
+        // only allocated if there are errors
+        List<String> notMembers = null;
+        List<String> errors = null;
+
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            String member = entry.getKey();
+            int slot = annotation.slotOf( member );
+
+            if ( slot == JavaAnnotation.NO_SLOT ) {
+                if ( notMembers == null ) {
+                    notMembers = new ArrayList<>( 2 );
+                }
+                notMembers.add( member );
+                continue;
+            }
+
+            if ( isMandatory( slot ) ) {
+                mandatoryFound++;
+            }
+
+            // once there are errors, values are only checked so that all errors can be reported
+            if ( notMembers == null ) {
+                MemberConverter converter = converters[ slot ];
+                Object value = converter.convert( entry.getValue() );
+                if ( value != MemberConverter.INVALID ) {
+                    slots[ slot ] = value;
+                } else {
+                    if ( errors == null ) {
+                        errors = new ArrayList<>( 2 );
+                    }
+                    errors.add( converter.describeFailure( entry.getValue() ) );
+                }
+            }
+        }
+
+        if ( mandatoryFound < mandatoryCount ) {
+            Metrics.validationFailed( metrics, annotation, ValidationFailure.MISSING_MEMBERS, startNanos );
+            throw missingMembersError( annotation, missingMembers( values ) );
+        }
+
+        if ( notMembers != null ) {
+            Metrics.validationFailed( metrics, annotation, ValidationFailure.NON_EXISTING_MEMBERS, startNanos );
+            throw new IllegalArgumentException( String.format(
+                    "Values provided for non-existing members [%s]: %s",
+                    annotation.getAnnotationType().getName(), joinWith( ", ", notMembers ) ) );
+        }
+
+        if ( errors != null ) {
+            Metrics.validationFailed( metrics, annotation, ValidationFailure.INVALID_VALUES, startNanos );
+            throw invalidValuesError( errors );
+        }
+
+        return slots;
+    }
+
+    MemberConverter converter( int slot ) {
+        return converters[ slot ];
+    }
+
+    static IllegalArgumentException missingMembersError( JavaAnnotation<?> annotation, List<String> missingMembers ) {
+        return new IllegalArgumentException( String.format(
+                "Missing values for mandatory annotation members [%s]: %s",
+                annotation.getAnnotationType().getName(), missingMembers ) );
+    }
+
+    static IllegalArgumentException invalidValuesError( List<String> errors ) {
+        StringBuilder builder = new StringBuilder();
+        builder.append( "Errors:" );
+        for (String error : errors) {
+            builder.append( "\n* " ).append( error );
+        }
+        return new IllegalArgumentException( builder.toString() );
+    }
+
+    private boolean isMandatory( int slot ) {
+        return ( mandatorySlots[ slot >>> 6 ] & ( 1L << slot ) ) != 0L;
+    }
+
+    private List<String> missingMembers( Map<String, ?> values ) {
+        List<String> result = new ArrayList<>( mandatoryCount );
+        for (int slot = 0; slot < converters.length; slot++) {
+            String member = annotation.memberName( slot );
+            if ( isMandatory( slot ) && !values.containsKey( member ) ) {
+                result.add( member );
+            }
+        }
+        return result;
+    }
+
+    private static String joinWith( String separator, List<String> values ) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if ( i > 0 ) {
+                builder.append( separator );
+            }
+            builder.append( values.get( i ) );
+        }
+        return builder.toString();
+    }
+
+}
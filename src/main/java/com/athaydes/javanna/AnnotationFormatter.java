@@ -0,0 +1,228 @@
+package com.athaydes.javanna;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+
+/**
+ * Writes the String representation of annotations, using the same format as the JDK's own annotations.
+ * <p>
+ * Example: {@code @com.acme.Config(name="server", ports={80, 8080}, timeout=10L)}.
+ */
+final class AnnotationFormatter {
+
+    private AnnotationFormatter() {
+        // private
+    }
+
+    static void appendTo( Annotation annotation, Appendable appendable ) throws IOException {
+        JavannaInvocationHandler handler = JavannaInvocationHandler.of( annotation );
+        if ( handler != null ) {
+            handler.appendTo( appendable );
+        } else {
+            JavaAnnotation<?> javaAnnotation = Javanna.parseAnnotation( annotation.annotationType() );
+            Object[] values = new Object[ javaAnnotation.memberCount() ];
+            for (int slot = 0; slot < values.length; slot++) {
+                values[ slot ] = javaAnnotation.memberValue( annotation, slot );
+            }
+            appendTo( javaAnnotation, values, appendable );
+        }
+    }
+
+    static void appendTo( JavaAnnotation<?> annotation, Object[] slots, Appendable appendable ) throws IOException {
+        appendable.append( '@' ).append( annotation.getAnnotationType().getName() ).append( '(' );
+
+        boolean loneValue = slots.length == 1 && annotation.memberName( 0 ).equals( "value" );
+
+        for (int slot = 0; slot < slots.length; slot++) {
+            if ( slot > 0 ) {
+                appendable.append( ", " );
+            }
+            if ( !loneValue ) {
+                appendable.append( annotation.memberName( slot ) ).append( '=' );
+            }
+            appendValue( slots[ slot ], appendable );
+        }
+
+        appendable.append( ')' );
+    }
+
+    private static void appendValue( Object value, Appendable appendable ) throws IOException {
+        Class<?> type = value.getClass();
+
+        if ( type.isArray() ) {
+            appendable.append( '{' );
+            if ( value instanceof Object[] ) {
+                Object[] array = ( Object[] ) value;
+                for (int i = 0; i < array.length; i++) {
+                    if ( i > 0 ) appendable.append( ", " );
+                    appendValue( array[ i ], appendable );
+                }
+            } else if ( type == int[].class ) {
+                int[] array = ( int[] ) value;
+                for (int i = 0; i < array.length; i++) {
+                    if ( i > 0 ) appendable.append( ", " );
+                    appendable.append( Integer.toString( array[ i ] ) );
+                }
+            } else if ( type == long[].class ) {
+                long[] array = ( long[] ) value;
+                for (int i = 0; i < array.length; i++) {
+                    if ( i > 0 ) appendable.append( ", " );
+                    appendLong( array[ i ], appendable );
+                }
+            } else if ( type == boolean[].class ) {
+                boolean[] array = ( boolean[] ) value;
+                for (int i = 0; i < array.length; i++) {
+                    if ( i > 0 ) appendable.append( ", " );
+                    appendable.append( array[ i ] ? "true" : "false" );
+                }
+            } else if ( type == double[].class ) {
+                double[] array = ( double[] ) value;
+                for (int i = 0; i < array.length; i++) {
+                    if ( i > 0 ) appendable.append( ", " );
+                    appendDouble( array[ i ], appendable );
+                }
+            } else if ( type == float[].class ) {
+                float[] array = ( float[] ) value;
+                for (int i = 0; i < array.length; i++) {
+                    if ( i > 0 ) appendable.append( ", " );
+                    appendFloat( array[ i ], appendable );
+                }
+            } else if ( type == byte[].class ) {
+                byte[] array = ( byte[] ) value;
+                for (int i = 0; i < array.length; i++) {
+                    if ( i > 0 ) appendable.append( ", " );
+                    appendByte( array[ i ], appendable );
+                }
+            } else if ( type == short[].class ) {
+                short[] array = ( short[] ) value;
+                for (int i = 0; i < array.length; i++) {
+                    if ( i > 0 ) appendable.append( ", " );
+                    appendable.append( Short.toString( array[ i ] ) );
+                }
+            } else {
+                char[] array = ( char[] ) value;
+                for (int i = 0; i < array.length; i++) {
+                    if ( i > 0 ) appendable.append( ", " );
+                    appendChar( array[ i ], appendable );
+                }
+            }
+            appendable.append( '}' );
+        } else if ( type == String.class ) {
+            String string = ( String ) value;
+            appendable.append( '"' );
+            for (int i = 0; i < string.length(); i++) {
+                appendQuoted( string.charAt( i ), appendable );
+            }
+            appendable.append( '"' );
+        } else if ( type == Character.class ) {
+            appendChar( ( Character ) value, appendable );
+        } else if ( type == Long.class ) {
+            appendLong( ( Long ) value, appendable );
+        } else if ( type == Float.class ) {
+            appendFloat( ( Float ) value, appendable );
+        } else if ( type == Double.class ) {
+            appendDouble( ( Double ) value, appendable );
+        } else if ( type == Byte.class ) {
+            appendByte( ( Byte ) value, appendable );
+        } else if ( type == Class.class ) {
+            appendClass( ( Class<?> ) value, appendable );
+        } else if ( value instanceof Enum ) {
+            appendable.append( ( ( Enum<?> ) value ).name() );
+        } else if ( value instanceof Annotation ) {
+            appendTo( ( Annotation ) value, appendable );
+        } else {
+            appendable.append( value.toString() );
+        }
+    }
+
+    private static void appendLong( long value, Appendable appendable ) throws IOException {
+        appendable.append( Long.toString( value ) ).append( 'L' );
+    }
+
+    private static void appendFloat( float value, Appendable appendable ) throws IOException {
+        if ( Float.isNaN( value ) ) {
+            appendable.append( "0.0f/0.0f" );
+        } else if ( Float.isInfinite( value ) ) {
+            appendable.append( value < 0 ? "-1.0f/0.0f" : "1.0f/0.0f" );
+        } else {
+            appendable.append( Float.toString( value ) ).append( 'f' );
+        }
+    }
+
+    private static void appendDouble( double value, Appendable appendable ) throws IOException {
+        if ( Double.isNaN( value ) ) {
+            appendable.append( "0.0/0.0" );
+        } else if ( Double.isInfinite( value ) ) {
+            appendable.append( value < 0 ? "-1.0/0.0" : "1.0/0.0" );
+        } else {
+            appendable.append( Double.toString( value ) );
+        }
+    }
+
+    private static void appendByte( byte value, Appendable appendable ) throws IOException {
+        appendable.append( "(byte)0x" )
+                .append( HEX_DIGITS[ ( value >> 4 ) & 0xF ] )
+                .append( HEX_DIGITS[ value & 0xF ] );
+    }
+
+    private static void appendChar( char value, Appendable appendable ) throws IOException {
+        appendable.append( '\'' );
+        appendQuoted( value, appendable );
+        appendable.append( '\'' );
+    }
+
+    private static void appendClass( Class<?> type, Appendable appendable ) throws IOException {
+        int dimensions = 0;
+        while ( type.isArray() ) {
+            type = type.getComponentType();
+            dimensions++;
+        }
+        appendable.append( type.getName() );
+        for (int i = 0; i < dimensions; i++) {
+            appendable.append( "[]" );
+        }
+        appendable.append( ".class" );
+    }
+
+    private static void appendQuoted( char c, Appendable appendable ) throws IOException {
+        switch ( c ) {
+            case '\b':
+                appendable.append( "\\b" );
+                break;
+            case '\f':
+                appendable.append( "\\f" );
+                break;
+            case '\n':
+                appendable.append( "\\n" );
+                break;
+            case '\r':
+                appendable.append( "\\r" );
+                break;
+            case '\t':
+                appendable.append( "\\t" );
+                break;
+            case '\'':
+                appendable.append( "\\'" );
+                break;
+            case '"':
+                appendable.append( "\\\"" );
+                break;
+            case '\\':
+                appendable.append( "\\\\" );
+                break;
+            default:
+                if ( c >= ' ' && c <= '~' ) {
+                    appendable.append( c );
+                } else {
+                    appendable.append( "\\u" )
+                            .append( HEX_DIGITS[ ( c >> 12 ) & 0xF ] )
+                            .append( HEX_DIGITS[ ( c >> 8 ) & 0xF ] )
+                            .append( HEX_DIGITS[ ( c >> 4 ) & 0xF ] )
+                            .append( HEX_DIGITS[ c & 0xF ] );
+                }
+        }
+    }
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+}
@@ -0,0 +1,450 @@
+package com.athaydes.javanna;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent index of the annotations found in jars and class files, used by {@link AnnotationScanner}.
+ * <p>
+ * Each entry of the index contains the annotations found in one jar or class file, together with the size and
+ * modification time the file had when it was scanned, so that the entry can be reused as long as the file
+ * does not change.
+ * <p>
+ * Counts and lengths read from an index are checked against the number of bytes left in the file before anything
+ * is allocated for them, so that a corrupt index is just ignored, like a missing one.
+ */
+final class AnnotationIndex {
+
+    private static final int MAGIC = 0x4A564E49; // JVNI
+    private static final int VERSION = 1;
+
+    private AnnotationIndex() {
+        // private
+    }
+
+    static final class Entry {
+        final String path;
+        final long size;
+        final long lastModified;
+        final List<ClassFileAnnotations> classes;
+
+        Entry( String path, long size, long lastModified, List<ClassFileAnnotations> classes ) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.classes = classes;
+        }
+
+        boolean isUpToDate( long size, long lastModified ) {
+            return this.size == size && this.lastModified == lastModified;
+        }
+    }
+
+    /**
+     * Read an index file.
+     *
+     * @return the entries of the index by path, or an empty Map if the index does not exist or cannot be read.
+     */
+    static Map<String, Entry> read( Path indexFile ) {
+        try ( IndexInput in = new IndexInput( new BufferedInputStream(
+                Files.newInputStream( indexFile ), 64 * 1024 ), Files.size( indexFile ) ) ) {
+            if ( in.readInt() != MAGIC || in.readInt() != VERSION ) {
+                return Collections.emptyMap();
+            }
+            int entryCount = in.readCount();
+            Map<String, Entry> result = new HashMap<>( entryCount * 2 );
+            for (int i = 0; i < entryCount; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                int classCount = in.readCount();
+                List<ClassFileAnnotations> classes = new ArrayList<>( classCount );
+                for (int j = 0; j < classCount; j++) {
+                    classes.add( readClass( in ) );
+                }
+                result.put( path, new Entry( path, size, lastModified, classes ) );
+            }
+            return result;
+        } catch ( NoSuchFileException e ) {
+            return Collections.emptyMap();
+        } catch ( IOException | RuntimeException e ) {
+            // a corrupt index is just ignored, and overwritten by the next scan
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Write an index file. The index is first written to a temporary file, which then replaces the index file,
+     * so that readers never see a partially written index.
+     */
+    static void write( Path indexFile, Collection<Entry> entries ) throws IOException {
+        Path parent = indexFile.toAbsolutePath().getParent();
+        if ( parent != null ) {
+            Files.createDirectories( parent );
+        }
+        Path tempFile = Files.createTempFile( parent, indexFile.getFileName().toString(), ".tmp" );
+        try {
+            try ( DataOutputStream out = new DataOutputStream( new BufferedOutputStream(
+                    Files.newOutputStream( tempFile ), 64 * 1024 ) ) ) {
+                out.writeInt( MAGIC );
+                out.writeInt( VERSION );
+                out.writeInt( entries.size() );
+                for (Entry entry : entries) {
+                    out.writeUTF( entry.path );
+                    out.writeLong( entry.size );
+                    out.writeLong( entry.lastModified );
+                    out.writeInt( entry.classes.size() );
+                    for (ClassFileAnnotations classAnnotations : entry.classes) {
+                        writeClass( out, classAnnotations );
+                    }
+                }
+            }
+            try {
+                Files.move( tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+            } catch ( AtomicMoveNotSupportedException e ) {
+                Files.move( tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING );
+            }
+        } finally {
+            Files.deleteIfExists( tempFile );
+        }
+    }
+
+    private static void writeClass( DataOutputStream out, ClassFileAnnotations classAnnotations ) throws IOException {
+        out.writeUTF( classAnnotations.getClassName() );
+        writeAnnotations( out, classAnnotations.getClassAnnotations() );
+        writeMemberAnnotations( out, classAnnotations.getFieldAnnotations() );
+        writeMemberAnnotations( out, classAnnotations.getMethodAnnotations() );
+    }
+
+    private static ClassFileAnnotations readClass( IndexInput in ) throws IOException {
+        String className = in.readUTF();
+        List<AnnotationData> classAnnotations = readAnnotations( in );
+        Map<String, List<AnnotationData>> fieldAnnotations = readMemberAnnotations( in );
+        Map<String, List<AnnotationData>> methodAnnotations = readMemberAnnotations( in );
+        return new ClassFileAnnotations( className, classAnnotations, fieldAnnotations, methodAnnotations );
+    }
+
+    private static void writeMemberAnnotations( DataOutputStream out,
+                                                Map<String, List<AnnotationData>> annotationsByMember )
+            throws IOException {
+        out.writeInt( annotationsByMember.size() );
+        for (Map.Entry<String, List<AnnotationData>> entry : annotationsByMember.entrySet()) {
+            out.writeUTF( entry.getKey() );
+            writeAnnotations( out, entry.getValue() );
+        }
+    }
+
+    private static Map<String, List<AnnotationData>> readMemberAnnotations( IndexInput in ) throws IOException {
+        int count = in.readCount();
+        Map<String, List<AnnotationData>> result = new LinkedHashMap<>( count * 2 );
+        for (int i = 0; i < count; i++) {
+            result.put( in.readUTF(), readAnnotations( in ) );
+        }
+        return result;
+    }
+
+    private static void writeAnnotations( DataOutputStream out, List<AnnotationData> annotations ) throws IOException {
+        out.writeInt( annotations.size() );
+        for (AnnotationData annotation : annotations) {
+            out.writeUTF( annotation.getTypeName() );
+            writeValues( out, annotation.getValues() );
+        }
+    }
+
+    private static List<AnnotationData> readAnnotations( IndexInput in ) throws IOException {
+        int count = in.readCount();
+        List<AnnotationData> result = new ArrayList<>( count );
+        for (int i = 0; i < count; i++) {
+            result.add( new AnnotationData( in.readUTF(), readValues( in ) ) );
+        }
+        return result;
+    }
+
+    private static void writeValues( DataOutputStream out, Map<?, ?> values ) throws IOException {
+        out.writeInt( values.size() );
+        for (Map.Entry<?, ?> entry : values.entrySet()) {
+            out.writeUTF( entry.getKey().toString() );
+            writeValue( out, entry.getValue() );
+        }
+    }
+
+    private static Map<String, Object> readValues( IndexInput in ) throws IOException {
+        int count = in.readCount();
+        Map<String, Object> result = new LinkedHashMap<>( count * 2 );
+        for (int i = 0; i < count; i++) {
+            result.put( in.readUTF(), readValue( in ) );
+        }
+        return result;
+    }
+
+    /*
+     * Values are written with the same tags used in class files.
+     * Arrays are written as '[' followed by the tag of their elements, or 'L' for Object arrays.
+     */
+
+    private static void writeValue( DataOutputStream out, Object value ) throws IOException {
+        if ( value instanceof String ) {
+            out.writeByte( 's' );
+            out.writeUTF( ( String ) value );
+        } else if ( value instanceof Integer ) {
+            out.writeByte( 'I' );
+            out.writeInt( ( Integer ) value );
+        } else if ( value instanceof Long ) {
+            out.writeByte( 'J' );
+            out.writeLong( ( Long ) value );
+        } else if ( value instanceof Boolean ) {
+            out.writeByte( 'Z' );
+            out.writeBoolean( ( Boolean ) value );
+        } else if ( value instanceof Double ) {
+            out.writeByte( 'D' );
+            out.writeDouble( ( Double ) value );
+        } else if ( value instanceof Float ) {
+            out.writeByte( 'F' );
+            out.writeFloat( ( Float ) value );
+        } else if ( value instanceof Byte ) {
+            out.writeByte( 'B' );
+            out.writeByte( ( Byte ) value );
+        } else if ( value instanceof Short ) {
+            out.writeByte( 'S' );
+            out.writeShort( ( Short ) value );
+        } else if ( value instanceof Character ) {
+            out.writeByte( 'C' );
+            out.writeChar( ( Character ) value );
+        } else if ( value instanceof Map ) {
+            out.writeByte( '@' );
+            writeValues( out, ( Map<?, ?> ) value );
+        } else if ( value instanceof Object[] ) {
+            Object[] array = ( Object[] ) value;
+            out.writeByte( '[' );
+            out.writeByte( value instanceof String[] ? 's' : 'L' );
+            out.writeInt( array.length );
+            for (Object item : array) {
+                if ( value instanceof String[] ) {
+                    out.writeUTF( ( String ) item );
+                } else {
+                    writeValue( out, item );
+                }
+            }
+        } else {
+            writePrimitiveArray( out, value );
+        }
+    }
+
+    private static void writePrimitiveArray( DataOutputStream out, Object value ) throws IOException {
+        out.writeByte( '[' );
+        if ( value instanceof int[] ) {
+            int[] array = ( int[] ) value;
+            out.writeByte( 'I' );
+            out.writeInt( array.length );
+            for (int item : array) out.writeInt( item );
+        } else if ( value instanceof long[] ) {
+            long[] array = ( long[] ) value;
+            out.writeByte( 'J' );
+            out.writeInt( array.length );
+            for (long item : array) out.writeLong( item );
+        } else if ( value instanceof boolean[] ) {
+            boolean[] array = ( boolean[] ) value;
+            out.writeByte( 'Z' );
+            out.writeInt( array.length );
+            for (boolean item : array) out.writeBoolean( item );
+        } else if ( value instanceof double[] ) {
+            double[] array = ( double[] ) value;
+            out.writeByte( 'D' );
+            out.writeInt( array.length );
+            for (double item : array) out.writeDouble( item );
+        } else if ( value instanceof float[] ) {
+            float[] array = ( float[] ) value;
+            out.writeByte( 'F' );
+            out.writeInt( array.length );
+            for (float item : array) out.writeFloat( item );
+        } else if ( value instanceof byte[] ) {
+            byte[] array = ( byte[] ) value;
+            out.writeByte( 'B' );
+            out.writeInt( array.length );
+            out.write( array );
+        } else if ( value instanceof short[] ) {
+            short[] array = ( short[] ) value;
+            out.writeByte( 'S' );
+            out.writeInt( array.length );
+            for (short item : array) out.writeShort( item );
+        } else if ( value instanceof char[] ) {
+            char[] array = ( char[] ) value;
+            out.writeByte( 'C' );
+            out.writeInt( array.length );
+            for (char item : array) out.writeChar( item );
+        } else {
+            throw new IllegalStateException( "Unexpected annotation value type: " + value.getClass().getName() );
+        }
+    }
+
+    private static Object readValue( IndexInput in ) throws IOException {
+        char tag = ( char ) in.readUnsignedByte();
+        switch ( tag ) {
+            case 's':
+                return in.readUTF();
+            case 'I':
+                return in.readInt();
+            case 'J':
+                return in.readLong();
+            case 'Z':
+                return in.readBoolean();
+            case 'D':
+                return in.readDouble();
+            case 'F':
+                return in.readFloat();
+            case 'B':
+                return in.readByte();
+            case 'S':
+                return in.readShort();
+            case 'C':
+                return in.readChar();
+            case '@':
+                return Collections.unmodifiableMap( readValues( in ) );
+            case '[':
+                return readArray( in );
+            default:
+                throw new IOException( "Corrupt index: unknown value tag " + tag );
+        }
+    }
+
+    private static Object readArray( IndexInput in ) throws IOException {
+        char tag = ( char ) in.readUnsignedByte();
+        int length = in.readCount();
+        switch ( tag ) {
+            case 'L': {
+                Object[] array = new Object[ length ];
+                for (int i = 0; i < length; i++) array[ i ] = readValue( in );
+                return array;
+            }
+            case 's': {
+                String[] array = new String[ length ];
+                for (int i = 0; i < length; i++) array[ i ] = in.readUTF();
+                return array;
+            }
+            case 'I': {
+                int[] array = new int[ length ];
+                for (int i = 0; i < length; i++) array[ i ] = in.readInt();
+                return array;
+            }
+            case 'J': {
+                long[] array = new long[ length ];
+                for (int i = 0; i < length; i++) array[ i ] = in.readLong();
+                return array;
+            }
+            case 'Z': {
+                boolean[] array = new boolean[ length ];
+                for (int i = 0; i < length; i++) array[ i ] = in.readBoolean();
+                return array;
+            }
+            case 'D': {
+                double[] array = new double[ length ];
+                for (int i = 0; i < length; i++) array[ i ] = in.readDouble();
+                return array;
+            }
+            case 'F': {
+                float[] array = new float[ length ];
+                for (int i = 0; i < length; i++) array[ i ] = in.readFloat();
+                return array;
+            }
+            case 'B': {
+                byte[] array = new byte[ length ];
+                in.readFully( array );
+                return array;
+            }
+            case 'S': {
+                short[] array = new short[ length ];
+                for (int i = 0; i < length; i++) array[ i ] = in.readShort();
+                return array;
+            }
+            case 'C': {
+                char[] array = new char[ length ];
+                for (int i = 0; i < length; i++) array[ i ] = in.readChar();
+                return array;
+            }
+            default:
+                throw new IOException( "Corrupt index: unknown array tag " + tag );
+        }
+    }
+
+    /**
+     * Input of an index file that keeps track of how many bytes are left in it.
+     */
+    private static final class IndexInput extends DataInputStream {
+
+        private final CountingInputStream counter;
+
+        IndexInput( InputStream in, long size ) {
+            this( new CountingInputStream( in, size ) );
+        }
+
+        private IndexInput( CountingInputStream counter ) {
+            super( counter );
+            this.counter = counter;
+        }
+
+        /**
+         * Read the number of items of a collection or array. As every item takes at least one byte,
+         * a count larger than the number of bytes left can only come from a corrupt index.
+         */
+        int readCount() throws IOException {
+            int count = readInt();
+            if ( count < 0 || count > counter.remaining ) {
+                throw new IOException( "Corrupt index: invalid count " + count );
+            }
+            return count;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        long remaining;
+
+        CountingInputStream( InputStream in, long size ) {
+            super( in );
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            if ( result >= 0 ) {
+                remaining--;
+            }
+            return result;
+        }
+
+        @Override
+        public int read( byte[] bytes, int offset, int length ) throws IOException {
+            int count = super.read( bytes, offset, length );
+            if ( count > 0 ) {
+                remaining -= count;
+            }
+            return count;
+        }
+
+        @Override
+        public long skip( long count ) throws IOException {
+            long skipped = super.skip( count );
+            remaining -= skipped;
+            return skipped;
+        }
+    }
+
+}
@@ -0,0 +1,315 @@
+package com.athaydes.javanna;
+
+import java.lang.annotation.Annotation;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Canonicalizing pool of annotation instances.
+ * <p>
+ * {@link #intern(Annotation)} returns a previously interned annotation that is equal to the given one, if any,
+ * so that applications creating the same annotation values over and over can keep a single instance of each.
+ * As a bonus, interned annotations can be compared by reference.
+ * <p>
+ * Interned annotations are only weakly referenced by the interner, so they may be garbage collected as soon as the
+ * application stops using them. The interner also never holds more than {@code maxSize} annotations: when it is
+ * full, a least recently used annotation is evicted to make room for a new one.
+ * <p>
+ * When annotations are created through an interner, their values are looked up before any instance is created,
+ * so no instance is created for values that have already been interned.
+ * <p>
+ * Instances of this class are thread-safe. As every lookup updates the recency of the annotation it finds, even hits
+ * need exclusive access to the table holding it. To reduce contention, large interners split their annotations,
+ * by hash, between up to 16 segments, each holding a share of {@code maxSize} annotations and guarded by its own
+ * lock. The trade-off is that the least recently used annotation is evicted per segment rather than across the
+ * whole interner. Interners with a {@code maxSize} below 128 use a single segment, so they always evict exactly
+ * the least recently used annotation.
+ *
+ * @see Javanna#createAnnotation(JavaAnnotation, java.util.Map, AnnotationInterner)
+ * @see JavaAnnotation#create(java.util.Map, AnnotationInterner)
+ */
+public final class AnnotationInterner {
+
+    /**
+     * The maximum size of interners created with the default constructor.
+     */
+    public static final int DEFAULT_MAX_SIZE = 100_000;
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final int maxSize;
+    private final Segment[] segments;
+
+    /**
+     * Create an interner that holds at most {@link #DEFAULT_MAX_SIZE} annotations.
+     */
+    public AnnotationInterner() {
+        this( DEFAULT_MAX_SIZE );
+    }
+
+    /**
+     * Create an interner that holds at most {@code maxSize} annotations.
+     *
+     * @param maxSize maximum number of annotations to hold
+     * @throws IllegalArgumentException if maxSize is not positive
+     */
+    public AnnotationInterner( int maxSize ) {
+        if ( maxSize < 1 ) {
+            throw new IllegalArgumentException( "maxSize must be positive: " + maxSize );
+        }
+        this.maxSize = maxSize;
+
+        int segmentCount = 1;
+        while ( segmentCount < MAX_SEGMENTS && maxSize / ( segmentCount * 2 ) >= MIN_SEGMENT_SIZE ) {
+            segmentCount *= 2;
+        }
+        this.segments = new Segment[ segmentCount ];
+        for (int i = 0; i < segmentCount; i++) {
+            int segmentSize = maxSize / segmentCount + ( i < maxSize % segmentCount ? 1 : 0 );
+            segments[ i ] = new Segment( segmentSize );
+        }
+    }
+
+    /**
+     * Intern the given annotation.
+     *
+     * @param annotation annotation to intern
+     * @param <A>        type of the annotation
+     * @return an interned annotation equal to the given annotation, or the given annotation itself
+     * if no such annotation had been interned yet.
+     */
+    @SuppressWarnings( "unchecked" )
+    public <A extends Annotation> A intern( A annotation ) {
+        LookupKey key = new LookupKey( annotation );
+        Segment segment = segmentFor( key.hash );
+        Annotation canonical;
+        synchronized ( segment ) {
+            canonical = segment.canonical( key );
+            if ( canonical == null ) {
+                segment.add( annotation );
+            }
+        }
+        Metrics.cacheAccessed( MetricsListener.INTERNER_CACHE, canonical != null );
+
+        // equal annotations are always of the same type
+        return canonical == null ? annotation : ( A ) canonical;
+    }
+
+    /**
+     * Intern an annotation with the given, already validated, slots, only creating a new instance if
+     * no equal annotation has been interned yet.
+     * The slot array is owned by the interner, so it must not be modified after this call.
+     */
+    @SuppressWarnings( "unchecked" )
+    <A extends Annotation> A intern( JavaAnnotation<A> annotation, Object[] slots ) {
+        JavannaInvocationHandler handler = new JavannaInvocationHandler( annotation, slots );
+        HandlerKey key = new HandlerKey( handler );
+        Segment segment = segmentFor( handler.hash() );
+        Annotation canonical;
+        A created = null;
+        synchronized ( segment ) {
+            canonical = segment.canonical( key );
+            if ( canonical == null ) {
+                // creating the instance is cheap, and doing it under the lock means a miss needs a single lookup
+                created = Javanna.newInstance( annotation, handler );
+                segment.add( created );
+            }
+        }
+        Metrics.cacheAccessed( MetricsListener.INTERNER_CACHE, canonical != null );
+        return canonical == null ? created : ( A ) canonical;
+    }
+
+    /**
+     * @return the number of annotations currently interned. Annotations which have been garbage collected may
+     * still be counted until the next call to {@link #intern(Annotation)}.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized ( segment ) {
+                size += segment.table.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Remove all interned annotations.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized ( segment ) {
+                segment.table.clear();
+                segment.expungeCollectedAnnotations();
+            }
+        }
+    }
+
+    /**
+     * @return the maximum number of annotations this interner may hold.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private Segment segmentFor( int hash ) {
+        // mix the hash so that the bits selecting the segment are not the ones selecting a bucket within it
+        return segments[ ( hash * 0x9E3779B9 ) >>> 16 & ( segments.length - 1 ) ];
+    }
+
+    /**
+     * A share of the interned annotations, in access order, guarded by its own lock.
+     */
+    private static final class Segment {
+
+        // guarded by this segment
+        final LruTable table;
+        final ReferenceQueue<Annotation> collectedAnnotations = new ReferenceQueue<>();
+
+        Segment( int maxSize ) {
+            this.table = new LruTable( maxSize );
+        }
+
+        // must hold this segment's lock
+        Annotation canonical( Object key ) {
+            expungeCollectedAnnotations();
+            InternedAnnotation existing = table.get( key );
+            if ( existing == null ) {
+                return null;
+            }
+            Annotation canonical = existing.get();
+            if ( canonical == null ) {
+                // the existing annotation has just been collected
+                table.remove( existing );
+            }
+            return canonical;
+        }
+
+        // must hold this segment's lock
+        void add( Annotation annotation ) {
+            InternedAnnotation interned = new InternedAnnotation( annotation, collectedAnnotations );
+            table.put( interned, interned );
+        }
+
+        // must hold this segment's lock
+        void expungeCollectedAnnotations() {
+            Reference<? extends Annotation> collected;
+            while ( ( collected = collectedAnnotations.poll() ) != null ) {
+                table.remove( collected );
+            }
+        }
+    }
+
+    /*
+     * Both keys used for lookups and keys stored in the table compare their annotations,
+     * so they can be used interchangeably.
+     */
+
+    private static boolean sameAnnotation( Annotation annotation, Object other ) {
+        if ( annotation == null ) {
+            return false;
+        }
+        if ( other instanceof LookupKey ) {
+            return annotation.equals( ( ( LookupKey ) other ).annotation );
+        }
+        if ( other instanceof HandlerKey ) {
+            return ( ( HandlerKey ) other ).handler.isEqual( null, annotation );
+        }
+        if ( other instanceof InternedAnnotation ) {
+            return annotation.equals( ( ( InternedAnnotation ) other ).get() );
+        }
+        return false;
+    }
+
+    /**
+     * Table of interned annotations, in access order, which evicts the least recently used annotation when full.
+     */
+    private static final class LruTable extends LinkedHashMap<Object, InternedAnnotation> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        LruTable( int maxSize ) {
+            super( 16, 0.75f, true );
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<Object, InternedAnnotation> eldest ) {
+            return size() > maxSize;
+        }
+    }
+
+    private static final class LookupKey {
+        final Annotation annotation;
+        final int hash;
+
+        LookupKey( Annotation annotation ) {
+            this.annotation = annotation;
+            this.hash = annotation.hashCode();
+        }
+
+        @Override
+        public boolean equals( Object other ) {
+            return this == other || sameAnnotation( annotation, other );
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Key of an annotation that has not been instantiated yet, compared by the slots of its handler.
+     */
+    private static final class HandlerKey {
+        final JavannaInvocationHandler handler;
+
+        HandlerKey( JavannaInvocationHandler handler ) {
+            this.handler = handler;
+        }
+
+        @Override
+        public boolean equals( Object other ) {
+            if ( this == other ) {
+                return true;
+            }
+            if ( other instanceof InternedAnnotation ) {
+                Annotation annotation = ( ( InternedAnnotation ) other ).get();
+                return annotation != null && handler.isEqual( null, annotation );
+            }
+            return other instanceof LookupKey && handler.isEqual( null, ( ( LookupKey ) other ).annotation );
+        }
+
+        @Override
+        public int hashCode() {
+            return handler.hash();
+        }
+    }
+
+    private static final class InternedAnnotation extends WeakReference<Annotation> {
+        final int hash;
+
+        InternedAnnotation( Annotation annotation, ReferenceQueue<Annotation> queue ) {
+            super( annotation, queue );
+            this.hash = annotation.hashCode();
+        }
+
+        @Override
+        public boolean equals( Object other ) {
+            return this == other || sameAnnotation( get(), other );
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+}
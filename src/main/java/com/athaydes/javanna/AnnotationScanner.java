@@ -0,0 +1,384 @@
+package com.athaydes.javanna;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Scanner of the runtime-visible annotations found in directories of class files and jars.
+ * <p>
+ * Classes are never loaded: class files are read with {@link ClassFileAnnotationReader}. Class files are read in
+ * parallel, including the class files within a jar, which are split into batches of entries.
+ * <p>
+ * A jar or class file that cannot be read does not stop the scan: the error is reported in
+ * {@link ScanResult#getErrors()} together with the annotations found in all other files.
+ * <p>
+ * If an index file is given, the annotations found in each jar and class file are saved in it, and reused
+ * by later scans for as long as the size and modification time of the file do not change, so that only
+ * changed files need to be read again.
+ * <p>
+ * Instances of this class are immutable, but scans using the same index file should not run concurrently.
+ */
+public final class AnnotationScanner {
+
+    // number of jar entries read by each scan task
+    private static final int ENTRIES_PER_TASK = 128;
+
+    private final Path indexFile;
+    private final int parallelism;
+
+    /**
+     * Create a scanner that does not use an index file.
+     */
+    public AnnotationScanner() {
+        this( null );
+    }
+
+    /**
+     * Create a scanner that uses the given index file, reading files with as many Threads as there are available
+     * processors.
+     *
+     * @param indexFile index file, which does not need to exist yet. If null, no index is used.
+     */
+    public AnnotationScanner( Path indexFile ) {
+        this( indexFile, Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Create a scanner that uses the given index file.
+     *
+     * @param indexFile   index file, which does not need to exist yet. If null, no index is used.
+     * @param parallelism maximum number of Threads used to read files
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    public AnnotationScanner( Path indexFile, int parallelism ) {
+        if ( parallelism < 1 ) {
+            throw new IllegalArgumentException( "parallelism must be positive: " + parallelism );
+        }
+        this.indexFile = indexFile;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Scan the given classpath entries.
+     *
+     * @param classpath directories, jars and class files to scan. Entries which do not exist are ignored.
+     * @return the annotations found.
+     * @throws IOException if a directory cannot be listed or the index cannot be written
+     */
+    public ScanResult scan( Path... classpath ) throws IOException {
+        return scan( Arrays.asList( classpath ) );
+    }
+
+    /**
+     * Scan the given classpath entries.
+     *
+     * @param classpath directories, jars and class files to scan. Entries which do not exist are ignored.
+     * @return the annotations found.
+     * @throws IOException if a directory cannot be listed or the index cannot be written
+     */
+    public ScanResult scan( List<Path> classpath ) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path entry : classpath) {
+            collectFiles( entry, files );
+        }
+
+        Map<String, AnnotationIndex.Entry> index = indexFile == null
+                ? Collections.<String, AnnotationIndex.Entry>emptyMap()
+                : AnnotationIndex.read( indexFile );
+
+        // null entries are filled in by the scan tasks
+        AnnotationIndex.Entry[] entries = new AnnotationIndex.Entry[ files.size() ];
+        PendingFile[] pendingFiles = new PendingFile[ files.size() ];
+        Map<String, Exception> errors = new LinkedHashMap<>();
+        int scannedCount = 0;
+        int reusedCount = 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool( parallelism, DaemonThreads.FACTORY );
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                Path file = files.get( i );
+                String path = file.toAbsolutePath().normalize().toString();
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes( file, BasicFileAttributes.class );
+                } catch ( IOException | RuntimeException e ) {
+                    // the file may have been removed, or may not be readable
+                    errors.put( path, e );
+                    entries[ i ] = new AnnotationIndex.Entry( path, -1L, -1L,
+                            Collections.<ClassFileAnnotations>emptyList() );
+                    continue;
+                }
+                long size = attributes.size();
+                long lastModified = attributes.lastModifiedTime().toMillis();
+
+                AnnotationIndex.Entry indexed = index.get( path );
+                if ( indexed != null && indexed.isUpToDate( size, lastModified ) ) {
+                    entries[ i ] = indexed;
+                    reusedCount++;
+                } else {
+                    pendingFiles[ i ] = submitScan( executor, file, path, size, lastModified );
+                    scannedCount++;
+                }
+            }
+
+            for (int i = 0; i < entries.length; i++) {
+                if ( entries[ i ] == null ) {
+                    entries[ i ] = pendingFiles[ i ].join( errors );
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            for (PendingFile pendingFile : pendingFiles) {
+                if ( pendingFile != null ) {
+                    pendingFile.close();
+                }
+            }
+        }
+
+        if ( indexFile != null && ( scannedCount > 0 || reusedCount != index.size() ) ) {
+            writeIndex( entries );
+        }
+
+        List<ClassFileAnnotations> classes = new ArrayList<>();
+        for (AnnotationIndex.Entry entry : entries) {
+            classes.addAll( entry.classes );
+        }
+
+        return new ScanResult( classes, errors, scannedCount, reusedCount );
+    }
+
+    private void writeIndex( AnnotationIndex.Entry[] entries ) throws IOException {
+        List<AnnotationIndex.Entry> validEntries = new ArrayList<>( entries.length );
+        for (AnnotationIndex.Entry entry : entries) {
+            // files with errors are always read again
+            if ( entry.lastModified >= 0 ) {
+                validEntries.add( entry );
+            }
+        }
+        AnnotationIndex.write( indexFile, validEntries );
+    }
+
+    private static void collectFiles( Path entry, final List<Path> files ) throws IOException {
+        if ( Files.isDirectory( entry ) ) {
+            final List<Path> classFiles = new ArrayList<>();
+            Files.walkFileTree( entry, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile( Path file, BasicFileAttributes attributes ) {
+                    if ( attributes.isRegularFile() && isClassFile( file.getFileName().toString() ) ) {
+                        classFiles.add( file );
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            } );
+            Collections.sort( classFiles );
+            files.addAll( classFiles );
+        } else if ( Files.isRegularFile( entry ) ) {
+            files.add( entry );
+        }
+    }
+
+    private static boolean isClassFile( String name ) {
+        return name.endsWith( ".class" ) && !name.equals( "module-info.class" ) && !name.equals( "package-info.class" );
+    }
+
+    /**
+     * Submit the tasks that read a jar or class file: class files are read by a single task, jars by one task
+     * for each batch of entries, all sharing the same open jar.
+     */
+    private static PendingFile submitScan( ExecutorService executor, final Path file, final String path,
+                                           long size, long lastModified ) {
+        PendingFile pendingFile = new PendingFile( path, size, lastModified );
+
+        if ( path.endsWith( ".class" ) ) {
+            pendingFile.parts.add( executor.submit( new Callable<ScannedPart>() {
+                @Override
+                public ScannedPart call() {
+                    return scanClassFile( file, path );
+                }
+            } ) );
+        } else {
+            try {
+                final ZipFile zip = new ZipFile( file.toFile() );
+                pendingFile.zip = zip;
+                List<ZipEntry> classEntries = classEntries( zip );
+                for (int start = 0; start < classEntries.size(); start += ENTRIES_PER_TASK) {
+                    final List<ZipEntry> batch = classEntries.subList( start,
+                            Math.min( start + ENTRIES_PER_TASK, classEntries.size() ) );
+                    pendingFile.parts.add( executor.submit( new Callable<ScannedPart>() {
+                        @Override
+                        public ScannedPart call() {
+                            return scanEntries( zip, path, batch );
+                        }
+                    } ) );
+                }
+            } catch ( IOException | RuntimeException e ) {
+                pendingFile.errors.put( path, e );
+            }
+        }
+
+        return pendingFile;
+    }
+
+    private static List<ZipEntry> classEntries( ZipFile zip ) {
+        List<ZipEntry> result = new ArrayList<>();
+        Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+        while ( zipEntries.hasMoreElements() ) {
+            ZipEntry zipEntry = zipEntries.nextElement();
+            String name = zipEntry.getName();
+            if ( !zipEntry.isDirectory() && isClassFile( name.substring( name.lastIndexOf( '/' ) + 1 ) ) &&
+                    !name.startsWith( "META-INF/" ) ) {
+                result.add( zipEntry );
+            }
+        }
+        return result;
+    }
+
+    private static ScannedPart scanClassFile( Path file, String path ) {
+        ScannedPart result = new ScannedPart();
+        try {
+            addIfAnnotated( ClassFileAnnotationReader.read( Files.readAllBytes( file ) ), result.classes );
+        } catch ( IOException | RuntimeException e ) {
+            result.errors.put( path, e );
+        }
+        return result;
+    }
+
+    private static ScannedPart scanEntries( ZipFile zip, String path, List<ZipEntry> zipEntries ) {
+        ScannedPart result = new ScannedPart();
+        for (ZipEntry zipEntry : zipEntries) {
+            try {
+                addIfAnnotated( ClassFileAnnotationReader.read( readEntry( zip, zipEntry ) ), result.classes );
+            } catch ( IOException | RuntimeException e ) {
+                result.errors.put( path + "!/" + zipEntry.getName(), e );
+            }
+        }
+        return result;
+    }
+
+    private static void addIfAnnotated( ClassFileAnnotations classAnnotations, List<ClassFileAnnotations> classes ) {
+        if ( !classAnnotations.isEmpty() ) {
+            classes.add( classAnnotations );
+        }
+    }
+
+    private static byte[] readEntry( ZipFile zip, ZipEntry entry ) throws IOException {
+        try ( InputStream stream = zip.getInputStream( entry ) ) {
+            long size = entry.getSize();
+            byte[] buffer = new byte[ size >= 0 ? ( int ) size : 4096 ];
+            int count = 0;
+            int read;
+            while ( ( read = stream.read( buffer, count, buffer.length - count ) ) > 0 ) {
+                count += read;
+                if ( count == buffer.length ) {
+                    if ( size >= 0 ) {
+                        break;
+                    }
+                    buffer = Arrays.copyOf( buffer, buffer.length * 2 );
+                }
+            }
+            return count == buffer.length ? buffer : Arrays.copyOf( buffer, count );
+        }
+    }
+
+    /**
+     * A jar or class file being read by scan tasks.
+     */
+    private static final class PendingFile {
+        final String path;
+        final long size;
+        final long lastModified;
+        final List<Future<ScannedPart>> parts = new ArrayList<>( 1 );
+        final Map<String, Exception> errors = new LinkedHashMap<>( 2 );
+        ZipFile zip;
+
+        PendingFile( String path, long size, long lastModified ) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Wait for all tasks reading this file, adding their errors to the given Map.
+         *
+         * @return the index entry of this file.
+         */
+        AnnotationIndex.Entry join( Map<String, Exception> allErrors ) throws IOException {
+            List<ClassFileAnnotations> classes = new ArrayList<>();
+            for (Future<ScannedPart> part : parts) {
+                try {
+                    ScannedPart scanned = part.get();
+                    classes.addAll( scanned.classes );
+                    errors.putAll( scanned.errors );
+                } catch ( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException( "Interrupted while scanning for annotations" );
+                } catch ( ExecutionException e ) {
+                    Throwable cause = e.getCause();
+                    if ( cause instanceof Error ) {
+                        throw ( Error ) cause;
+                    }
+                    errors.put( path, cause instanceof Exception
+                            ? ( Exception ) cause
+                            : new IllegalStateException( cause ) );
+                }
+            }
+            close();
+            allErrors.putAll( errors );
+
+            // entries with errors are marked with a negative modification time, so they are not indexed
+            return new AnnotationIndex.Entry( path, size, errors.isEmpty() ? lastModified : -1L, classes );
+        }
+
+        void close() {
+            if ( zip != null ) {
+                try {
+                    zip.close();
+                } catch ( IOException e ) {
+                    // nothing else to read from the jar
+                }
+                zip = null;
+            }
+        }
+    }
+
+    /**
+     * Result of a scan task.
+     */
+    private static final class ScannedPart {
+        final List<ClassFileAnnotations> classes = new ArrayList<>();
+        final Map<String, Exception> errors = new LinkedHashMap<>( 2 );
+    }
+
+    private static final class DaemonThreads implements ThreadFactory {
+        static final DaemonThreads FACTORY = new DaemonThreads();
+
+        @Override
+        public Thread newThread( Runnable runnable ) {
+            Thread thread = new Thread( runnable, "javanna-annotation-scanner" );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.athaydes.javanna;
+
+import java.lang.annotation.Annotation;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Result of creating a batch of annotations.
+ * <p>
+ * Each set of values in the batch results in either an annotation or an error, found at the same index as the values.
+ * <p>
+ * Instances of this class are immutable.
+ *
+ * @param <A> type of the annotations
+ * @see AnnotationFactory#createAll(Iterable)
+ * @see AnnotationFactory#createAllParallel(List)
+ */
+public final class BatchResult<A extends Annotation> {
+
+    private final Object[] annotations;
+    private final IllegalArgumentException[] errors;
+    private final int errorCount;
+
+    BatchResult( Object[] annotations, IllegalArgumentException[] errors ) {
+        this.annotations = annotations;
+        this.errors = errors;
+
+        int count = 0;
+        for (IllegalArgumentException error : errors) {
+            if ( error != null ) {
+                count++;
+            }
+        }
+        this.errorCount = count;
+    }
+
+    /**
+     * @return the number of sets of values in the batch.
+     */
+    public int size() {
+        return annotations.length;
+    }
+
+    /**
+     * @return true if any annotation could not be created.
+     */
+    public boolean hasErrors() {
+        return errorCount > 0;
+    }
+
+    /**
+     * @return the annotations created from each set of values, by index. Indexes for which the annotation could
+     * not be created contain null.
+     */
+    public List<A> getAnnotations() {
+        return new AnnotationList();
+    }
+
+    /**
+     * @return the error that prevented each annotation from being created, by index.
+     */
+    public SortedMap<Integer, IllegalArgumentException> getErrors() {
+        if ( errorCount == 0 ) {
+            return Collections.unmodifiableSortedMap( new TreeMap<Integer, IllegalArgumentException>() );
+        }
+        SortedMap<Integer, IllegalArgumentException> result = new TreeMap<>();
+        for (int i = 0; i < errors.length; i++) {
+            if ( errors[ i ] != null ) {
+                result.put( i, errors[ i ] );
+            }
+        }
+        return Collections.unmodifiableSortedMap( result );
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "size=" + annotations.length +
+                ", errors=" + errorCount +
+                '}';
+    }
+
+    private final class AnnotationList extends AbstractList<A> implements RandomAccess {
+        @Override
+        @SuppressWarnings( "unchecked" )
+        public A get( int index ) {
+            return ( A ) annotations[ index ];
+        }
+
+        @Override
+        public int size() {
+            return annotations.length;
+        }
+    }
+
+}
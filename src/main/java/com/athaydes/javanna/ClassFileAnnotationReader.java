@@ -0,0 +1,475 @@
+package com.athaydes.javanna;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reader of the runtime-visible annotations of a class directly from the bytes of its class file.
+ * <p>
+ * No classes are loaded (nor initialized) by the reader, so it can be used to find annotations in a large number of
+ * classes much more cheaply than by loading the classes. Only the constant pool entries actually used by
+ * annotations are decoded.
+ * <p>
+ * No instance of this class can be created. It only contains static methods.
+ *
+ * @see AnnotationData
+ */
+public final class ClassFileAnnotationReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    private static final byte CONSTANT_UTF8 = 1;
+    private static final byte CONSTANT_INTEGER = 3;
+    private static final byte CONSTANT_FLOAT = 4;
+    private static final byte CONSTANT_LONG = 5;
+    private static final byte CONSTANT_DOUBLE = 6;
+    private static final byte CONSTANT_CLASS = 7;
+
+    private ClassFileAnnotationReader() {
+        // private
+    }
+
+    /**
+     * Read the runtime-visible annotations of a class file.
+     *
+     * @param classFile bytes of the class file
+     * @return the annotations found in the class file.
+     * @throws IllegalArgumentException if the bytes are not a valid class file.
+     */
+    public static ClassFileAnnotations read( byte[] classFile ) {
+        return read( ByteBuffer.wrap( classFile ) );
+    }
+
+    /**
+     * Read the runtime-visible annotations of a class file.
+     * <p>
+     * The class file is read from the buffer's position up to its limit. The buffer itself is not modified.
+     *
+     * @param classFile buffer containing the bytes of the class file
+     * @return the annotations found in the class file.
+     * @throws IllegalArgumentException if the bytes are not a valid class file.
+     */
+    public static ClassFileAnnotations read( ByteBuffer classFile ) {
+        Parser parser = new Parser( classFile.slice().order( ByteOrder.BIG_ENDIAN ) );
+        try {
+            return parser.parse();
+        } catch ( InvalidClassFileException e ) {
+            throw parser.invalid( e.getMessage(), e );
+        } catch ( BufferUnderflowException | IndexOutOfBoundsException e ) {
+            throw parser.invalid( "unexpected end of class file", e );
+        } catch ( RuntimeException e ) {
+            throw parser.invalid( "unable to decode class file (" + e + ")", e );
+        }
+    }
+
+    /**
+     * Error found while parsing a class file, reported by {@link #read(ByteBuffer)} with the name of the class.
+     */
+    private static final class InvalidClassFileException extends IllegalArgumentException {
+
+        private static final long serialVersionUID = 1L;
+
+        InvalidClassFileException( String reason ) {
+            super( reason );
+        }
+    }
+
+    private static final class Parser {
+
+        private final ByteBuffer in;
+
+        // name of the class, once it has been read
+        private String className;
+
+        // offset of the first byte after the tag of each constant pool entry
+        private int[] constantOffsets;
+        private byte[] constantTags;
+        private String[] strings;
+
+        Parser( ByteBuffer in ) {
+            this.in = in;
+        }
+
+        ClassFileAnnotations parse() {
+            if ( in.getInt() != MAGIC ) {
+                throw new InvalidClassFileException( "wrong magic number" );
+            }
+            in.getShort(); // minor version
+            in.getShort(); // major version
+
+            readConstantPool();
+
+            in.getShort(); // access flags
+            className = classNameAt( in.getShort() & 0xFFFF );
+            in.getShort(); // super class
+            int interfaceCount = in.getShort() & 0xFFFF;
+            skip( 2 * interfaceCount );
+
+            Map<String, List<AnnotationData>> fieldAnnotations = readMembers( false );
+            Map<String, List<AnnotationData>> methodAnnotations = readMembers( true );
+            List<AnnotationData> classAnnotations = readAttributes();
+
+            return new ClassFileAnnotations( className, classAnnotations, fieldAnnotations, methodAnnotations );
+        }
+
+        IllegalArgumentException invalid( String reason, Throwable cause ) {
+            String classFile = className == null ? "class file" : "class file of " + className;
+            return new IllegalArgumentException( "Not a valid " + classFile + ": " + reason, cause );
+        }
+
+        private void readConstantPool() {
+            int count = in.getShort() & 0xFFFF;
+            constantOffsets = new int[ count ];
+            constantTags = new byte[ count ];
+            strings = new String[ count ];
+
+            for (int i = 1; i < count; i++) {
+                byte tag = in.get();
+                constantTags[ i ] = tag;
+                constantOffsets[ i ] = in.position();
+                switch ( tag ) {
+                    case CONSTANT_UTF8:
+                        skip( in.getShort() & 0xFFFF );
+                        break;
+                    case CONSTANT_LONG:
+                    case CONSTANT_DOUBLE:
+                        skip( 8 );
+                        i++; // takes two entries
+                        break;
+                    case CONSTANT_INTEGER:
+                    case CONSTANT_FLOAT:
+                    case 9: // Fieldref
+                    case 10: // Methodref
+                    case 11: // InterfaceMethodref
+                    case 12: // NameAndType
+                    case 17: // Dynamic
+                    case 18: // InvokeDynamic
+                        skip( 4 );
+                        break;
+                    case 15: // MethodHandle
+                        skip( 3 );
+                        break;
+                    case CONSTANT_CLASS:
+                    case 8: // String
+                    case 16: // MethodType
+                    case 19: // Module
+                    case 20: // Package
+                        skip( 2 );
+                        break;
+                    default:
+                        throw new InvalidClassFileException( "unknown constant pool tag " + tag );
+                }
+            }
+        }
+
+        private Map<String, List<AnnotationData>> readMembers( boolean methods ) {
+            int count = in.getShort() & 0xFFFF;
+            Map<String, List<AnnotationData>> result = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                in.getShort(); // access flags
+                int nameIndex = in.getShort() & 0xFFFF;
+                int descriptorIndex = in.getShort() & 0xFFFF;
+                List<AnnotationData> annotations = readAttributes();
+                if ( !annotations.isEmpty() ) {
+                    String name = methods
+                            ? utf8At( nameIndex ) + utf8At( descriptorIndex )
+                            : utf8At( nameIndex );
+                    result.put( name, annotations );
+                }
+            }
+            return result;
+        }
+
+        private List<AnnotationData> readAttributes() {
+            int count = in.getShort() & 0xFFFF;
+            List<AnnotationData> result = Collections.emptyList();
+            for (int i = 0; i < count; i++) {
+                int nameIndex = in.getShort() & 0xFFFF;
+                int length = in.getInt();
+                if ( isUtf8( nameIndex, RUNTIME_VISIBLE_ANNOTATIONS ) ) {
+                    int end = in.position() + length;
+                    result = readAnnotations();
+                    in.position( end );
+                } else {
+                    skip( length );
+                }
+            }
+            return result;
+        }
+
+        private List<AnnotationData> readAnnotations() {
+            int count = in.getShort() & 0xFFFF;
+            List<AnnotationData> result = new ArrayList<>( count );
+            for (int i = 0; i < count; i++) {
+                result.add( readAnnotation() );
+            }
+            return result;
+        }
+
+        private AnnotationData readAnnotation() {
+            String typeName = typeName( utf8At( in.getShort() & 0xFFFF ) );
+            int count = in.getShort() & 0xFFFF;
+            Map<String, Object> values = new LinkedHashMap<>( count * 2 );
+            for (int i = 0; i < count; i++) {
+                String member = utf8At( in.getShort() & 0xFFFF );
+                values.put( member, readElementValue() );
+            }
+            return new AnnotationData( typeName, values );
+        }
+
+        private Object readElementValue() {
+            char tag = ( char ) in.get();
+            switch ( tag ) {
+                case 'B':
+                    return ( byte ) intAt( in.getShort() & 0xFFFF );
+                case 'C':
+                    return ( char ) intAt( in.getShort() & 0xFFFF );
+                case 'S':
+                    return ( short ) intAt( in.getShort() & 0xFFFF );
+                case 'Z':
+                    return intAt( in.getShort() & 0xFFFF ) != 0;
+                case 'I':
+                    return intAt( in.getShort() & 0xFFFF );
+                case 'J':
+                    return in.getLong( constantOffset( in.getShort() & 0xFFFF, CONSTANT_LONG ) );
+                case 'F':
+                    return in.getFloat( constantOffset( in.getShort() & 0xFFFF, CONSTANT_FLOAT ) );
+                case 'D':
+                    return in.getDouble( constantOffset( in.getShort() & 0xFFFF, CONSTANT_DOUBLE ) );
+                case 's':
+                    return utf8At( in.getShort() & 0xFFFF );
+                case 'e':
+                    in.getShort(); // enum type
+                    return utf8At( in.getShort() & 0xFFFF );
+                case 'c':
+                    return typeName( utf8At( in.getShort() & 0xFFFF ) );
+                case '@':
+                    return readAnnotation().getValues();
+                case '[':
+                    return readArray();
+                default:
+                    throw new InvalidClassFileException( "unknown element value tag " + tag );
+            }
+        }
+
+        private Object readArray() {
+            int count = in.getShort() & 0xFFFF;
+            if ( count == 0 ) {
+                return new Object[ 0 ];
+            }
+
+            // arrays of primitives and Strings can be typed from the tag of their elements
+            char tag = ( char ) in.get( in.position() );
+            switch ( tag ) {
+                case 'I': {
+                    int[] result = new int[ count ];
+                    for (int i = 0; i < count; i++) {
+                        result[ i ] = ( Integer ) readElementValue();
+                    }
+                    return result;
+                }
+                case 'J': {
+                    long[] result = new long[ count ];
+                    for (int i = 0; i < count; i++) {
+                        result[ i ] = ( Long ) readElementValue();
+                    }
+                    return result;
+                }
+                case 'Z': {
+                    boolean[] result = new boolean[ count ];
+                    for (int i = 0; i < count; i++) {
+                        result[ i ] = ( Boolean ) readElementValue();
+                    }
+                    return result;
+                }
+                case 'D': {
+                    double[] result = new double[ count ];
+                    for (int i = 0; i < count; i++) {
+                        result[ i ] = ( Double ) readElementValue();
+                    }
+                    return result;
+                }
+                case 'F': {
+                    float[] result = new float[ count ];
+                    for (int i = 0; i < count; i++) {
+                        result[ i ] = ( Float ) readElementValue();
+                    }
+                    return result;
+                }
+                case 'B': {
+                    byte[] result = new byte[ count ];
+                    for (int i = 0; i < count; i++) {
+                        result[ i ] = ( Byte ) readElementValue();
+                    }
+                    return result;
+                }
+                case 'S': {
+                    short[] result = new short[ count ];
+                    for (int i = 0; i < count; i++) {
+                        result[ i ] = ( Short ) readElementValue();
+                    }
+                    return result;
+                }
+                case 'C': {
+                    char[] result = new char[ count ];
+                    for (int i = 0; i < count; i++) {
+                        result[ i ] = ( Character ) readElementValue();
+                    }
+                    return result;
+                }
+                case 's': {
+                    String[] result = new String[ count ];
+                    for (int i = 0; i < count; i++) {
+                        result[ i ] = ( String ) readElementValue();
+                    }
+                    return result;
+                }
+                default: {
+                    Object[] result = new Object[ count ];
+                    for (int i = 0; i < count; i++) {
+                        result[ i ] = readElementValue();
+                    }
+                    return result;
+                }
+            }
+        }
+
+        private void skip( int count ) {
+            if ( count > in.remaining() ) {
+                throw new BufferUnderflowException();
+            }
+            in.position( in.position() + count );
+        }
+
+        private int constantOffset( int index, byte expectedTag ) {
+            if ( index <= 0 || index >= constantTags.length || constantTags[ index ] != expectedTag ) {
+                throw new InvalidClassFileException( "invalid constant pool reference " + index );
+            }
+            return constantOffsets[ index ];
+        }
+
+        private int intAt( int index ) {
+            return in.getInt( constantOffset( index, CONSTANT_INTEGER ) );
+        }
+
+        private String classNameAt( int index ) {
+            return utf8At( in.getShort( constantOffset( index, CONSTANT_CLASS ) ) & 0xFFFF ).replace( '/', '.' );
+        }
+
+        /**
+         * Check whether the Utf8 constant at the given index is equal to an ASCII String, without decoding it.
+         */
+        private boolean isUtf8( int index, String ascii ) {
+            int offset = constantOffset( index, CONSTANT_UTF8 );
+            int length = in.getShort( offset ) & 0xFFFF;
+            if ( length != ascii.length() ) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if ( in.get( offset + 2 + i ) != ascii.charAt( i ) ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String utf8At( int index ) {
+            int offset = constantOffset( index, CONSTANT_UTF8 );
+            String result = strings[ index ];
+            if ( result == null ) {
+                result = strings[ index ] = decodeUtf8( offset );
+            }
+            return result;
+        }
+
+        /**
+         * Decode a String in the "modified UTF-8" format used by class files.
+         */
+        private String decodeUtf8( int offset ) {
+            int length = in.getShort( offset ) & 0xFFFF;
+            int position = offset + 2;
+            int end = position + length;
+            char[] chars = new char[ length ];
+            int count = 0;
+            while ( position < end ) {
+                int b = in.get( position++ ) & 0xFF;
+                if ( b < 0x80 ) {
+                    chars[ count++ ] = ( char ) b;
+                } else if ( ( b & 0xE0 ) == 0xC0 ) {
+                    chars[ count++ ] = ( char ) ( ( ( b & 0x1F ) << 6 ) | ( in.get( position++ ) & 0x3F ) );
+                } else {
+                    int b2 = in.get( position++ ) & 0x3F;
+                    int b3 = in.get( position++ ) & 0x3F;
+                    chars[ count++ ] = ( char ) ( ( ( b & 0x0F ) << 12 ) | ( b2 << 6 ) | b3 );
+                }
+            }
+            return new String( chars, 0, count );
+        }
+    }
+
+    /**
+     * Convert a field descriptor into a type name, e.g. {@code Ljava/lang/String;} into {@code java.lang.String}
+     * and {@code [I} into {@code int[]}.
+     */
+    static String typeName( String descriptor ) {
+        int dimensions = 0;
+        while ( descriptor.charAt( dimensions ) == '[' ) {
+            dimensions++;
+        }
+
+        String name;
+        char tag = descriptor.charAt( dimensions );
+        switch ( tag ) {
+            case 'L':
+                name = descriptor.substring( dimensions + 1, descriptor.length() - 1 ).replace( '/', '.' );
+                break;
+            case 'B':
+                name = "byte";
+                break;
+            case 'C':
+                name = "char";
+                break;
+            case 'D':
+                name = "double";
+                break;
+            case 'F':
+                name = "float";
+                break;
+            case 'I':
+                name = "int";
+                break;
+            case 'J':
+                name = "long";
+                break;
+            case 'S':
+                name = "short";
+                break;
+            case 'Z':
+                name = "boolean";
+                break;
+            case 'V':
+                name = "void";
+                break;
+            default:
+                throw new InvalidClassFileException( "invalid descriptor " + descriptor );
+        }
+
+        if ( dimensions == 0 ) {
+            return name;
+        }
+
+        StringBuilder builder = new StringBuilder( name.length() + 2 * dimensions ).append( name );
+        for (int i = 0; i < dimensions; i++) {
+            builder.append( "[]" );
+        }
+        return builder.toString();
+    }
+
+}
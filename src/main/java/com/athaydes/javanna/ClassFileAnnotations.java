@@ -0,0 +1,77 @@
+package com.athaydes.javanna;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The runtime-visible annotations found in a class file.
+ * <p>
+ * Instances of this class are immutable.
+ *
+ * @see ClassFileAnnotationReader
+ */
+public final class ClassFileAnnotations {
+
+    private final String className;
+    private final List<AnnotationData> classAnnotations;
+    private final Map<String, List<AnnotationData>> fieldAnnotations;
+    private final Map<String, List<AnnotationData>> methodAnnotations;
+
+    ClassFileAnnotations( String className,
+                          List<AnnotationData> classAnnotations,
+                          Map<String, List<AnnotationData>> fieldAnnotations,
+                          Map<String, List<AnnotationData>> methodAnnotations ) {
+        this.className = className;
+        this.classAnnotations = Collections.unmodifiableList( classAnnotations );
+        this.fieldAnnotations = Collections.unmodifiableMap( fieldAnnotations );
+        this.methodAnnotations = Collections.unmodifiableMap( methodAnnotations );
+    }
+
+    /**
+     * @return the name of the class, as returned by {@link Class#getName()}.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return the annotations of the class itself.
+     */
+    public List<AnnotationData> getClassAnnotations() {
+        return classAnnotations;
+    }
+
+    /**
+     * @return the annotations of each annotated field, by field name.
+     */
+    public Map<String, List<AnnotationData>> getFieldAnnotations() {
+        return fieldAnnotations;
+    }
+
+    /**
+     * @return the annotations of each annotated method (including constructors, named {@code <init>}), by method
+     * name followed by the method descriptor, e.g. {@code "run(Ljava/lang/String;)V"}.
+     */
+    public Map<String, List<AnnotationData>> getMethodAnnotations() {
+        return methodAnnotations;
+    }
+
+    /**
+     * @return true if no annotations at all were found in the class file.
+     */
+    public boolean isEmpty() {
+        return classAnnotations.isEmpty() && fieldAnnotations.isEmpty() && methodAnnotations.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ClassFileAnnotations{" +
+                "className=" + className +
+                ", classAnnotations=" + classAnnotations +
+                ", fieldAnnotations=" + fieldAnnotations +
+                ", methodAnnotations=" + methodAnnotations +
+                '}';
+    }
+
+}
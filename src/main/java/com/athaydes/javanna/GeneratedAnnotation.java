@@ -0,0 +1,90 @@
+package com.athaydes.javanna;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationHandler;
+
+/**
+ * Base class of the annotation implementations generated at runtime by Javanna when the
+ * {@link Javanna.Engine#GENERATED} engine is used.
+ * <p>
+ * Generated classes only implement the annotation members, reading their values with {@link #slot(int)}.
+ * All other methods are implemented by this class.
+ * <p>
+ * This class is only public because generated classes must be able to extend it. It cannot be extended
+ * by user code, as its constructor requires a token that only Javanna can provide.
+ */
+public abstract class GeneratedAnnotation implements Annotation {
+
+    /**
+     * The only token that can construct a {@link GeneratedAnnotation}. It is passed by Javanna to the constructor
+     * of generated classes, which pass it on to this class, so that no other subclass can be created with
+     * the handler (and so, the values) of an existing annotation.
+     */
+    static final Token TOKEN = new Token();
+
+    private final JavannaInvocationHandler handler;
+
+    /**
+     * The value of every member, indexed by slot. This is the same array held by the handler, so member values
+     * are stored only once. Array values must never be modified.
+     */
+    private final Object[] slots;
+
+    /**
+     * Constructor used by generated subclasses.
+     *
+     * @param handler the handler created by Javanna for the annotation instance.
+     * @param token   the token provided by Javanna.
+     */
+    protected GeneratedAnnotation( InvocationHandler handler, Token token ) {
+        if ( token != TOKEN ) {
+            throw new IllegalArgumentException( "Invalid token, only Javanna can create instances of this class" );
+        }
+        if ( !( handler instanceof JavannaInvocationHandler ) ) {
+            throw new IllegalArgumentException( "Not a Javanna handler: " + handler );
+        }
+        this.handler = ( JavannaInvocationHandler ) handler;
+        this.slots = this.handler.slots();
+    }
+
+    /**
+     * Get the value of a member, as stored by the handler. Array values are not copied, so they must never
+     * be modified.
+     *
+     * @param slot slot of the member
+     * @return the value of the member
+     */
+    protected final Object slot( int slot ) {
+        return slots[ slot ];
+    }
+
+    JavannaInvocationHandler getHandler() {
+        return handler;
+    }
+
+    @Override
+    public final Class<? extends Annotation> annotationType() {
+        return handler.annotationType();
+    }
+
+    @Override
+    public final boolean equals( Object other ) {
+        return handler.isEqual( this, other );
+    }
+
+    @Override
+    public final int hashCode() {
+        return handler.hash();
+    }
+
+    @Override
+    public final String toString() {
+        return handler.asString();
+    }
+
+    static final class Token {
+        private Token() {
+        }
+    }
+
+}
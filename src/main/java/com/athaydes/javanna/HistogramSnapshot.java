@@ -0,0 +1,107 @@
+package com.athaydes.javanna;
+
+/**
+ * Snapshot of a histogram of durations, in nanoseconds.
+ * <p>
+ * Values are counted in buckets whose bounds are powers of 2, so percentiles are approximate: the value returned
+ * by {@link #getPercentile(double)} is at most twice the exact value. The count, sum, minimum and maximum are exact.
+ * <p>
+ * Instances of this class are immutable.
+ *
+ * @see MetricsRegistry
+ */
+public final class HistogramSnapshot {
+
+    static final int BUCKET_COUNT = 64;
+
+    private final long[] buckets;
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+
+    HistogramSnapshot( long[] buckets, long count, long sum, long min, long max ) {
+        this.buckets = buckets;
+        this.count = count;
+        this.sum = sum;
+        this.min = count == 0 ? 0L : min;
+        this.max = count == 0 ? 0L : max;
+    }
+
+    static int bucketOf( long value ) {
+        return 64 - Long.numberOfLeadingZeros( value );
+    }
+
+    /**
+     * @return number of recorded values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return sum of all recorded values.
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * @return smallest recorded value, or 0 if no value has been recorded.
+     */
+    public long getMin() {
+        return min;
+    }
+
+    /**
+     * @return largest recorded value, or 0 if no value has been recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return mean of the recorded values, or 0 if no value has been recorded.
+     */
+    public double getMean() {
+        return count == 0 ? 0.0 : ( double ) sum / count;
+    }
+
+    /**
+     * @param percentile percentile, from 0 to 100
+     * @return approximate value below which the given percentage of the recorded values fall,
+     * or 0 if no value has been recorded.
+     * @throws IllegalArgumentException if the percentile is not between 0 and 100.
+     */
+    public long getPercentile( double percentile ) {
+        if ( !( percentile >= 0.0 && percentile <= 100.0 ) ) {
+            throw new IllegalArgumentException( "Percentile must be between 0 and 100: " + percentile );
+        }
+        if ( count == 0 ) {
+            return 0L;
+        }
+        long rank = Math.max( 1L, ( long ) Math.ceil( percentile / 100.0 * count ) );
+        long seen = 0L;
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            seen += buckets[ bucket ];
+            if ( seen >= rank ) {
+                long upperBound = bucket == 0 ? 0L : ( 1L << bucket ) - 1;
+                return Math.max( min, Math.min( max, upperBound ) );
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramSnapshot{" +
+                "count=" + count +
+                ", mean=" + getMean() +
+                ", min=" + min +
+                ", p50=" + getPercentile( 50.0 ) +
+                ", p99=" + getPercentile( 99.0 ) +
+                ", max=" + max +
+                '}';
+    }
+
+}
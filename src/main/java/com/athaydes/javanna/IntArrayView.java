@@ -0,0 +1,69 @@
+package com.athaydes.javanna;
+
+import java.util.Arrays;
+
+/**
+ * Read-only view of an {@code int[]} value of an annotation member.
+ * <p>
+ * Unlike the annotation member method itself, which must return a copy of the array on every call,
+ * a view gives access to the array without copying it.
+ *
+ * @see Javanna#readIntArray(java.lang.annotation.Annotation, String)
+ */
+public final class IntArrayView {
+
+    private final int[] array;
+
+    IntArrayView( int[] array ) {
+        this.array = array;
+    }
+
+    /**
+     * @return the number of elements in the array.
+     */
+    public int size() {
+        return array.length;
+    }
+
+    /**
+     * @return true if the array is empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return array.length == 0;
+    }
+
+    /**
+     * @param index index of the element
+     * @return the element at the given index.
+     * @throws ArrayIndexOutOfBoundsException if the index is out of bounds.
+     */
+    public int get( int index ) {
+        return array[ index ];
+    }
+
+    /**
+     * @return a copy of the array.
+     */
+    public int[] toArray() {
+        return array.clone();
+    }
+
+    @Override
+    public boolean equals( Object other ) {
+        if ( this == other ) return true;
+        if ( other == null || getClass() != other.getClass() ) return false;
+
+        return Arrays.equals( array, ( ( IntArrayView ) other ).array );
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode( array );
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString( array );
+    }
+
+}
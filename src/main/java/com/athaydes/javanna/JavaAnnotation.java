@@ -1,7 +1,16 @@
 package com.athaydes.javanna;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -10,12 +19,36 @@ import java.util.Set;
  * <p>
  * This class provides information about an annotation that is not easy to extract from annotation
  * classes in general, such as its declared members and default values.
+ * <p>
+ * Instances of this class are immutable and may be shared freely between Threads.
  */
 public final class JavaAnnotation<A extends Annotation> {
 
     private final Class<A> annotationType;
     private final Map<String, Object> defaultValueByMember;
     private final Map<String, Class<?>> typeByMember;
+    private final boolean hasArrayDefaults;
+
+    /*
+     * Members are stored in slots, in the same order as typeByMember.
+     * Annotation instances keep their values in an array indexed by slot.
+     */
+    static final int NO_SLOT = -1;
+    static final int EQUALS_SLOT = -2;
+    static final int HASHCODE_SLOT = -3;
+    static final int TO_STRING_SLOT = -4;
+    static final int ANNOTATION_TYPE_SLOT = -5;
+
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType( Object.class, Annotation.class );
+
+    private final String[] memberNames;
+    private final Class<?>[] memberTypes;
+    private final MemberKind[] memberKinds;
+    private final Object[] defaultSlots;
+    private final Map<String, Integer> slotByMember;
+    private volatile MethodSlots methodSlots = MethodSlots.EMPTY;
+    private volatile MethodHandle[] accessors;
+    private volatile AnnotationFactory<A> factory;
 
     JavaAnnotation( Class<A> annotationType,
                     Map<String, Object> defaultValueByMember,
@@ -23,6 +56,24 @@ public final class JavaAnnotation<A extends Annotation> {
         this.annotationType = annotationType;
         this.defaultValueByMember = Collections.unmodifiableMap( defaultValueByMember );
         this.typeByMember = Collections.unmodifiableMap( typeByMember );
+        this.hasArrayDefaults = containsArray( defaultValueByMember );
+
+        int memberCount = typeByMember.size();
+        this.memberNames = new String[ memberCount ];
+        this.memberTypes = new Class<?>[ memberCount ];
+        this.memberKinds = new MemberKind[ memberCount ];
+        this.defaultSlots = new Object[ memberCount ];
+        this.slotByMember = new HashMap<>( memberCount * 2 );
+
+        int slot = 0;
+        for (Map.Entry<String, Class<?>> entry : typeByMember.entrySet()) {
+            memberNames[ slot ] = entry.getKey();
+            memberTypes[ slot ] = entry.getValue();
+            memberKinds[ slot ] = MemberKind.of( entry.getValue() );
+            defaultSlots[ slot ] = defaultValueByMember.get( entry.getKey() );
+            slotByMember.put( entry.getKey(), slot );
+            slot++;
+        }
     }
 
     /**
@@ -34,8 +85,24 @@ public final class JavaAnnotation<A extends Annotation> {
 
     /**
      * @return the default value of each member which declares a default value.
+     * Array values are copies, so they may be modified without affecting this annotation.
      */
     public Map<String, Object> getDefaultValueByMember() {
+        if ( hasArrayDefaults ) {
+            Map<String, Object> result = new LinkedHashMap<>( defaultValueByMember.size() );
+            for (Map.Entry<String, Object> entry : defaultValueByMember.entrySet()) {
+                result.put( entry.getKey(), copyIfArray( entry.getValue() ) );
+            }
+            return Collections.unmodifiableMap( result );
+        }
+        return defaultValueByMember;
+    }
+
+    /**
+     * @return the default values of this annotation, without copying array values.
+     * Callers must never modify the returned values.
+     */
+    Map<String, Object> defaultValues() {
         return defaultValueByMember;
     }
 
@@ -62,7 +129,254 @@ public final class JavaAnnotation<A extends Annotation> {
      *                                  provided for non-existing members.
      */
     public A create( Map<String, ?> values ) {
-        return Javanna.createAnnotation( this, values );
+        return factory().create( values );
+    }
+
+    /**
+     * Create an instance of this annotation with the provided values, returning the canonical instance
+     * held by the given interner, if there is one.
+     *
+     * @param values   values of the annotation members. All mandatory values must be provided.
+     * @param interner interner holding canonical annotation instances
+     * @return an instance of this annotation with the provided values.
+     * @throws IllegalArgumentException if a mandatory value is missing, a value has an invalid type or values are
+     *                                  provided for non-existing members.
+     * @see AnnotationInterner
+     */
+    public A create( Map<String, ?> values, AnnotationInterner interner ) {
+        return Javanna.createAnnotation( this, values, interner );
+    }
+
+    /**
+     * Create one instance of this annotation for each set of values.
+     *
+     * @param valuesBatch values of the annotation members, for each annotation to create
+     * @return the annotations and errors, by index.
+     * @see AnnotationFactory#createAll(Iterable)
+     */
+    public BatchResult<A> createAll( Iterable<? extends Map<String, ?>> valuesBatch ) {
+        return factory().createAll( valuesBatch );
+    }
+
+    /**
+     * Create one instance of this annotation for each set of values, in parallel.
+     *
+     * @param valuesBatch values of the annotation members, for each annotation to create
+     * @return the annotations and errors, by index.
+     * @see AnnotationFactory#createAllParallel(List)
+     */
+    public BatchResult<A> createAllParallel( List<? extends Map<String, ?>> valuesBatch ) {
+        return factory().createAllParallel( valuesBatch );
+    }
+
+    /**
+     * @return the factory of instances of this annotation. The factory is created only once.
+     */
+    public AnnotationFactory<A> factory() {
+        AnnotationFactory<A> result = factory;
+        if ( result == null ) {
+            // racing Threads may each create a factory, which is harmless
+            result = factory = new AnnotationFactory<>( this );
+        }
+        return result;
+    }
+
+    /**
+     * @param memberIndex index of a member, in the order of {@link #getTypeByMember()}
+     * @return the kind of the member (for array members, the kind of the array items).
+     * @throws IndexOutOfBoundsException if there is no member with the given index.
+     */
+    public MemberKind getMemberKind( int memberIndex ) {
+        return memberKinds[ memberIndex ];
+    }
+
+    /**
+     * Read the value of a member of any instance of this annotation, including instances not created by Javanna.
+     * <p>
+     * This is equivalent to calling the member method on the instance (so array values are copies), but
+     * member methods are looked up only once for each annotation type. This is the fastest way to read all member
+     * values of annotations whose type is only known at runtime.
+     *
+     * @param instance    instance of this annotation
+     * @param memberIndex index of a member, in the order of {@link #getTypeByMember()}
+     * @return the value of the member.
+     * @throws IndexOutOfBoundsException if there is no member with the given index.
+     * @throws ClassCastException        if the instance is not an instance of this annotation.
+     */
+    public Object getMemberValue( Annotation instance, int memberIndex ) {
+        return memberValue( annotationType.cast( instance ), memberIndex );
+    }
+
+    /**
+     * @return a new builder of instances of this annotation.
+     */
+    public AnnotationBuilder<A> builder() {
+        return new AnnotationBuilder<>( factory() );
+    }
+
+    int memberCount() {
+        return memberNames.length;
+    }
+
+    String memberName( int slot ) {
+        return memberNames[ slot ];
+    }
+
+    Class<?> memberType( int slot ) {
+        return memberTypes[ slot ];
+    }
+
+    /**
+     * @param member name of a member
+     * @return the slot of the member, or {@link #NO_SLOT} if there is no such member.
+     */
+    int slotOf( String member ) {
+        Integer slot = slotByMember.get( member );
+        return slot == null ? NO_SLOT : slot;
+    }
+
+    /**
+     * @return a new slot array containing the default value of each member that declares one,
+     * or null for the other members.
+     */
+    Object[] newSlots() {
+        return defaultSlots.clone();
+    }
+
+    /**
+     * Read the value of a member of any instance of this annotation, including instances not created by Javanna.
+     * <p>
+     * Member methods are looked up only once for each annotation type, and invoked through {@link MethodHandle}s.
+     *
+     * @param instance instance of this annotation
+     * @param slot     slot of the member to read
+     * @return the value returned by the member method.
+     */
+    Object memberValue( Annotation instance, int slot ) {
+        try {
+            return ( Object ) accessors()[ slot ].invokeExact( instance );
+        } catch ( Error e ) {
+            throw e;
+        } catch ( Throwable t ) {
+            throw new IllegalStateException( "Unexpected error invoking annotation member method " +
+                    memberNames[ slot ] + "() on annotation of type: " + annotationType.getName(), t );
+        }
+    }
+
+    private MethodHandle[] accessors() {
+        MethodHandle[] result = accessors;
+        if ( result == null ) {
+            result = new MethodHandle[ memberNames.length ];
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            for (int slot = 0; slot < memberNames.length; slot++) {
+                try {
+                    Method method = annotationType.getDeclaredMethod( memberNames[ slot ] );
+                    method.setAccessible( true );
+                    result[ slot ] = lookup.unreflect( method ).asType( ACCESSOR_TYPE );
+                } catch ( NoSuchMethodException | IllegalAccessException e ) {
+                    throw new IllegalStateException( "Cannot access annotation member method " +
+                            memberNames[ slot ] + "() of annotation type: " + annotationType.getName(), e );
+                }
+            }
+            accessors = result;
+        }
+        return result;
+    }
+
+    /**
+     * Find the slot of a method invoked on an instance of this annotation.
+     * <p>
+     * Methods inherited from {@link Object} and {@link Annotation} are mapped to special, negative slots.
+     * <p>
+     * Each {@link Method} instance is resolved only once: after that, it is found by identity.
+     *
+     * @param method method invoked on an annotation instance
+     * @return the slot of the method
+     */
+    int slotOf( Method method ) {
+        MethodSlots current = methodSlots;
+        Method[] methods = current.methods;
+        for (int i = 0; i < methods.length; i++) {
+            if ( methods[ i ] == method ) {
+                return current.slots[ i ];
+            }
+        }
+
+        int slot = resolveSlot( method );
+
+        // racing Threads may lose each other's updates, in which case methods are just resolved again
+        if ( methods.length < maxCachedMethods() ) {
+            methodSlots = current.with( method, slot );
+        }
+
+        return slot;
+    }
+
+    private int maxCachedMethods() {
+        // the same Method instances are normally used for every call, so this is just a safeguard
+        return 2 * ( memberNames.length + 4 );
+    }
+
+    private int resolveSlot( Method method ) {
+        // annotations cannot declare members that override methods of Object or Annotation
+        String name = method.getName();
+        if ( method.getParameterTypes().length == 1 && name.equals( "equals" ) ) {
+            return EQUALS_SLOT;
+        }
+        if ( method.getParameterTypes().length == 0 ) {
+            switch ( name ) {
+                case "hashCode":
+                    return HASHCODE_SLOT;
+                case "toString":
+                    return TO_STRING_SLOT;
+                case "annotationType":
+                    return ANNOTATION_TYPE_SLOT;
+                default:
+                    return slotOf( name );
+            }
+        }
+        return NO_SLOT;
+    }
+
+    private static final class MethodSlots {
+        static final MethodSlots EMPTY = new MethodSlots( new Method[ 0 ], new int[ 0 ] );
+
+        final Method[] methods;
+        final int[] slots;
+
+        private MethodSlots( Method[] methods, int[] slots ) {
+            this.methods = methods;
+            this.slots = slots;
+        }
+
+        MethodSlots with( Method method, int slot ) {
+            int length = methods.length;
+            Method[] newMethods = Arrays.copyOf( methods, length + 1 );
+            int[] newSlots = Arrays.copyOf( slots, length + 1 );
+            newMethods[ length ] = method;
+            newSlots[ length ] = slot;
+            return new MethodSlots( newMethods, newSlots );
+        }
+    }
+
+    private static boolean containsArray( Map<String, Object> values ) {
+        for (Object value : values.values()) {
+            if ( value.getClass().isArray() ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings( "SuspiciousSystemArraycopy" )
+    private static Object copyIfArray( Object value ) {
+        if ( value.getClass().isArray() ) {
+            int length = Array.getLength( value );
+            Object copy = Array.newInstance( value.getClass().getComponentType(), length );
+            System.arraycopy( value, 0, copy, 0, length );
+            return copy;
+        }
+        return value;
     }
 
     @Override
@@ -1,19 +1,19 @@
 package com.athaydes.javanna;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Array;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.RandomAccess;
 
 /**
  * Java annotation parser/creator.
@@ -22,19 +22,121 @@ import java.util.Set;
  */
 public final class Javanna {
 
+    /**
+     * Engines that can be used to implement the annotation instances created by Javanna.
+     */
+    public enum Engine {
+        /**
+         * Annotation instances are {@link Proxy} instances. This engine supports all annotation types.
+         */
+        PROXY,
+
+        /**
+         * One concrete implementation class is generated at runtime for each annotation type,
+         * so that reading member values is just as fast as reading a field.
+         * <p>
+         * Classes can only be generated for public annotation types whose members also have public types.
+         * For all other annotation types, the {@link #PROXY} engine is used.
+         */
+        GENERATED
+    }
+
+    private static volatile Engine engine = Engine.PROXY;
+
+    /**
+     * Cache of parsed annotations.
+     * <p>
+     * Values are stored by the JVM within each annotation {@link Class} itself, so caching an annotation type
+     * does not prevent its {@link ClassLoader} from being garbage collected.
+     */
+    private static final ClassValue<JavaAnnotation<?>> PARSED_ANNOTATIONS = new ClassValue<JavaAnnotation<?>>() {
+        @Override
+        protected JavaAnnotation<?> computeValue( Class<?> type ) {
+            Metrics.valueComputed();
+            MetricsListener metrics = Metrics.listener;
+            if ( metrics == null ) {
+                return parse( type.asSubclass( Annotation.class ) );
+            }
+            long start = System.nanoTime();
+            JavaAnnotation<?> result = parse( type.asSubclass( Annotation.class ) );
+            metrics.annotationParsed( result.getAnnotationType(), System.nanoTime() - start );
+            return result;
+        }
+    };
+
     private Javanna() {
         // private
     }
 
     /**
      * Parse the annotation class.
+     * <p>
+     * Parsed annotations are cached, so all callers get the same {@link JavaAnnotation} instance for the
+     * same annotation type (until {@link #invalidateCache(Class)} is called for that type).
      *
      * @param annotationType {@code @interface} of annotation to parse.
      * @param <A>            the type of the annotation
      * @return a {@link JavaAnnotation} representing the annotation.
      */
+    @SuppressWarnings( "unchecked" )
     public static <A extends Annotation> JavaAnnotation<A> parseAnnotation(
             Class<A> annotationType ) {
+        return ( JavaAnnotation<A> ) Metrics.lookup( PARSED_ANNOTATIONS, annotationType,
+                MetricsListener.ANNOTATION_TYPE_CACHE );
+    }
+
+    /**
+     * Remove the cached {@link JavaAnnotation} for the given annotation type, if any.
+     * <p>
+     * The next call to {@link #parseAnnotation(Class)} for this type will parse the annotation class again.
+     *
+     * @param annotationType annotation type to remove from the cache.
+     */
+    public static void invalidateCache( Class<? extends Annotation> annotationType ) {
+        PARSED_ANNOTATIONS.remove( annotationType );
+    }
+
+    /**
+     * Set the engine used to implement the annotation instances created by Javanna.
+     * <p>
+     * The default engine is {@link Engine#PROXY}.
+     *
+     * @param engine engine to use
+     */
+    public static void setEngine( Engine engine ) {
+        if ( engine == null ) {
+            throw new IllegalArgumentException( "Engine must not be null" );
+        }
+        Javanna.engine = engine;
+    }
+
+    /**
+     * @return the engine currently used to implement the annotation instances created by Javanna.
+     */
+    public static Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Set the listener that should be notified of the operations performed by Javanna.
+     * <p>
+     * Metrics are disabled by default. Use a {@link MetricsRegistry} to collect counters and latency
+     * histograms in memory.
+     *
+     * @param listener metrics listener, or null to disable metrics.
+     */
+    public static void setMetricsListener( MetricsListener listener ) {
+        Metrics.listener = listener;
+    }
+
+    /**
+     * @return the current metrics listener, or null if metrics are disabled.
+     */
+    public static MetricsListener getMetricsListener() {
+        return Metrics.listener;
+    }
+
+    private static <A extends Annotation> JavaAnnotation<A> parse( Class<A> annotationType ) {
         Map<String, Object> defaultValueByMember = new LinkedHashMap<>();
         Map<String, Class<?>> typeByMember = new LinkedHashMap<>();
 
@@ -85,21 +187,74 @@ public final class Javanna {
      * @throws IllegalArgumentException if a mandatory value is missing, a value has an invalid type or values are
      *                                  provided for non-existing members.
      */
-    @SuppressWarnings( "unchecked" )
     public static <A extends Annotation> A createAnnotation(
             JavaAnnotation<A> annotation,
             Map<String, ?> values ) {
-        Map<String, ?> checkedValues = validateValues( annotation, values );
+        return annotation.factory().create( values );
+    }
+
+    /**
+     * Create an annotation instance holding the given, already validated, slots.
+     * The slot array is owned by the new instance, so it must not be modified after this call.
+     */
+    static <A extends Annotation> A newInstance( JavaAnnotation<A> annotation, Object[] slots ) {
+        return newInstance( annotation, new JavannaInvocationHandler( annotation, slots ) );
+    }
+
+    /**
+     * Create an annotation instance backed by the given handler, which must have been created for the same annotation.
+     */
+    @SuppressWarnings( "unchecked" )
+    static <A extends Annotation> A newInstance( JavaAnnotation<A> annotation, JavannaInvocationHandler handler ) {
+        if ( engine == Engine.GENERATED ) {
+            MethodHandle constructor = AnnotationClassGenerator.constructorFor( annotation );
+            if ( constructor != null ) {
+                return ( A ) createGenerated( constructor, handler );
+            }
+        }
 
         try {
             return ( A ) Proxy.newProxyInstance( annotation.getAnnotationType().getClassLoader(),
                     new Class[]{ annotation.getAnnotationType() },
-                    new JavannaInvocationHandler( annotation, checkedValues ) );
+                    handler );
         } catch ( Exception e ) {
             throw new RuntimeException( e );
         }
     }
 
+    /**
+     * Create an annotation of the given type with the provided values, returning the canonical instance
+     * held by the given interner, if there is one.
+     * <p>
+     * This is equivalent to {@code interner.intern( createAnnotation( annotation, values ) )}, except that
+     * no new instance is created if the interner already holds an equal annotation.
+     *
+     * @param annotation parsed annotation
+     * @param values     values of annotation members
+     * @param interner   interner holding canonical annotation instances
+     * @param <A>        type of the annotation
+     * @return an annotation instance with the provided values.
+     * @throws IllegalArgumentException if a mandatory value is missing, a value has an invalid type or values are
+     *                                  provided for non-existing members.
+     */
+    public static <A extends Annotation> A createAnnotation(
+            JavaAnnotation<A> annotation,
+            Map<String, ?> values,
+            AnnotationInterner interner ) {
+        return annotation.factory().create( values, interner );
+    }
+
+    private static GeneratedAnnotation createGenerated( MethodHandle constructor,
+                                                        JavannaInvocationHandler handler ) {
+        try {
+            return ( GeneratedAnnotation ) constructor.invokeExact( ( InvocationHandler ) handler, GeneratedAnnotation.TOKEN );
+        } catch ( RuntimeException | Error e ) {
+            throw e;
+        } catch ( Throwable t ) {
+            throw new RuntimeException( t );
+        }
+    }
+
     /**
      * Get the values of this annotation's members.
      * <p>
@@ -124,182 +279,156 @@ public final class Javanna {
      */
     public static Map<String, Object> getAnnotationValues( Annotation annotation,
                                                            boolean recursive ) {
-
-        Map<String, Object> result = new LinkedHashMap<>();
-        Method[] methods = annotation.annotationType().getDeclaredMethods();
-        Method currentMethod = null;
-        try {
-            for (Method method : methods) {
-                currentMethod = method;
-                method.setAccessible( true );
-                Object value = method.invoke( annotation );
-                if ( recursive && value instanceof Annotation ) {
-                    value = getAnnotationValues( ( Annotation ) value, true );
-                }
-                result.put( method.getName(), value );
-            }
-            return result;
-        } catch ( IllegalAccessException | InvocationTargetException e ) {
-            throw new IllegalStateException( "Unexpected error invoking annotation member method " +
-                    currentMethod.getName() + "() on annotation: " + annotation, e );
+        MetricsListener metrics = Metrics.listener;
+        if ( metrics == null ) {
+            return readAnnotationValues( annotation, recursive );
         }
+        long start = System.nanoTime();
+        Map<String, Object> result = readAnnotationValues( annotation, recursive );
+        metrics.annotationValuesRead( annotation.annotationType(), System.nanoTime() - start );
+        return result;
     }
 
-    private static Map<String, ?> validateValues( JavaAnnotation<?> annotation,
-                                                  Map<String, ?> values ) {
-        Set<String> mandatoryMembers = diff( annotation.getMembers(), annotation.getDefaultValueByMember().keySet() );
-        Set<String> missingMembers = diff( mandatoryMembers, values.keySet() );
-
-        if ( !missingMembers.isEmpty() ) {
-            throw new IllegalArgumentException( String.format(
-                    "Missing values for mandatory annotation members [%s]: %s",
-                    annotation.getAnnotationType().getName(), missingMembers ) );
+    private static Map<String, Object> readAnnotationValues( Annotation annotation, boolean recursive ) {
+        JavannaInvocationHandler handler = JavannaInvocationHandler.of( annotation );
+        JavaAnnotation<?> javaAnnotation = handler == null
+                ? parseAnnotation( annotation.annotationType() )
+                : handler.getAnnotation();
+
+        int memberCount = javaAnnotation.memberCount();
+        Map<String, Object> result = new LinkedHashMap<>( memberCount * 2 );
+
+        for (int slot = 0; slot < memberCount; slot++) {
+            Object value = handler == null
+                    ? javaAnnotation.memberValue( annotation, slot )
+                    : handler.memberValue( slot );
+            if ( recursive && value instanceof Annotation ) {
+                value = readAnnotationValues( ( Annotation ) value, true );
+            }
+            result.put( javaAnnotation.memberName( slot ), value );
         }
 
-        Set<String> notMembers = diff( values.keySet(), annotation.getMembers() );
+        return result;
+    }
 
-        if ( !notMembers.isEmpty() ) {
-            throw new IllegalArgumentException( String.format(
-                    "Values provided for non-existing members [%s]: %s",
-                    annotation.getAnnotationType().getName(), joinWith( ", ", notMembers ) ) );
+    /**
+     * Read the value of an array member of the given annotation without copying it.
+     * <p>
+     * Annotation member methods must return a new copy of array values on every call. The returned {@link List}
+     * is instead a read-only view of the array held by the annotation. For annotations created by Javanna,
+     * no copy is made at all. For other annotations, only the copy made by the member method is used.
+     * <p>
+     * Elements of primitive arrays are boxed when read. Use {@link #readIntArray(Annotation, String)} or
+     * {@link #readLongArray(Annotation, String)} to avoid that.
+     *
+     * @param annotation annotation
+     * @param member     name of an array member
+     * @param <T>        type of the array elements (boxed type, for primitive arrays)
+     * @return read-only view of the array value.
+     * @throws IllegalArgumentException if the annotation has no member with the given name, or the member is not
+     *                                  an array.
+     */
+    @SuppressWarnings( "unchecked" )
+    public static <T> List<T> readArray( Annotation annotation, String member ) {
+        Object array = arrayValue( annotation, member, null );
+        if ( array instanceof Object[] ) {
+            return Collections.unmodifiableList( Arrays.asList( ( T[] ) array ) );
         }
+        return ( List<T> ) new PrimitiveArrayList( array );
+    }
+
+    /**
+     * Read the value of an {@code int[]} member of the given annotation without copying it.
+     *
+     * @param annotation annotation
+     * @param member     name of an {@code int[]} member
+     * @return read-only view of the array value.
+     * @throws IllegalArgumentException if the annotation has no member with the given name, or the member is not
+     *                                  of type {@code int[]}.
+     * @see #readArray(Annotation, String)
+     */
+    public static IntArrayView readIntArray( Annotation annotation, String member ) {
+        return new IntArrayView( ( int[] ) arrayValue( annotation, member, int[].class ) );
+    }
 
-        Map<String, Class<?>> typeByMember = annotation.getTypeByMember();
+    /**
+     * Read the value of a {@code long[]} member of the given annotation without copying it.
+     *
+     * @param annotation annotation
+     * @param member     name of a {@code long[]} member
+     * @return read-only view of the array value.
+     * @throws IllegalArgumentException if the annotation has no member with the given name, or the member is not
+     *                                  of type {@code long[]}.
+     * @see #readArray(Annotation, String)
+     */
+    public static LongArrayView readLongArray( Annotation annotation, String member ) {
+        return new LongArrayView( ( long[] ) arrayValue( annotation, member, long[].class ) );
+    }
 
-        Map<String, Object> result = new LinkedHashMap<>( values.size() );
-        List<String> errors = new ArrayList<>( 1 );
+    /**
+     * Append the String representation of the given annotation to an {@link Appendable}.
+     * <p>
+     * The format is the same used by the JDK's own annotation instances, for example:
+     * <pre>{@code @com.acme.Server(name="server", ports={80, 8080})}</pre>
+     * Annotations created by Javanna return this same representation from their {@code toString()} method.
+     *
+     * @param annotation annotation
+     * @param appendable to append the annotation representation to
+     * @throws IOException if the {@link Appendable} throws
+     */
+    public static void appendTo( Annotation annotation, Appendable appendable ) throws IOException {
+        AnnotationFormatter.appendTo( annotation, appendable );
+    }
 
-        for (Map.Entry<String, ?> entry : values.entrySet()) {
-            String member = entry.getKey();
-            Class<?> type = typeByMember.get( member );
+    private static Object arrayValue( Annotation annotation, String member, Class<?> expectedType ) {
+        JavannaInvocationHandler handler = JavannaInvocationHandler.of( annotation );
+        JavaAnnotation<?> javaAnnotation = handler == null
+                ? parseAnnotation( annotation.annotationType() )
+                : handler.getAnnotation();
 
-            Either validationResult = checkValue( member, type, entry.getValue() );
+        int slot = javaAnnotation.slotOf( member );
 
-            if ( validationResult.isSuccess() ) {
-                if ( errors.isEmpty() ) { // if there's an error, result will be ignored
-                    result.put( member, validationResult.getValidResult() );
-                }
-            } else {
-                errors.add( validationResult.getFailure() );
-            }
+        if ( slot == JavaAnnotation.NO_SLOT ) {
+            throw new IllegalArgumentException( String.format( "Not a member of annotation [%s]: %s",
+                    javaAnnotation.getAnnotationType().getName(), member ) );
         }
 
-        if ( errors.isEmpty() ) {
-            return result;
-        } else {
-            StringBuilder builder = new StringBuilder();
-            builder.append( "Errors:" );
-            for (String error : errors) {
-                builder.append( "\n* " ).append( error );
-            }
-            throw new IllegalArgumentException( builder.toString() );
+        Class<?> type = javaAnnotation.memberType( slot );
+
+        if ( expectedType == null ? !type.isArray() : !expectedType.equals( type ) ) {
+            throw new IllegalArgumentException( String.format( "member '%s' has invalid type. Expected: %s. Found: %s.",
+                    member, expectedType == null ? "array" : expectedType.getName(), type.getName() ) );
         }
-    }
 
-    private static Set<String> diff( Set<String> a, Set<String> b ) {
-        Set<String> temp = new HashSet<>( a );
-        temp.removeAll( b );
-        return temp;
-    }
+        if ( handler != null ) {
+            return handler.slotValue( slot );
+        }
 
-    private static Class<?> boxedType( Class<?> primitiveType ) {
-        // boolean, byte, char, short, int, long, float, and double.
-        if ( primitiveType == Boolean.TYPE )
-            return Boolean.class;
-        if ( primitiveType == Byte.TYPE )
-            return Byte.class;
-        if ( primitiveType == Character.TYPE )
-            return Character.class;
-        if ( primitiveType == Short.TYPE )
-            return Short.class;
-        if ( primitiveType == Integer.TYPE )
-            return Integer.class;
-        if ( primitiveType == Long.TYPE )
-            return Long.class;
-        if ( primitiveType == Float.TYPE )
-            return Float.class;
-        if ( primitiveType == Double.TYPE )
-            return Double.class;
-
-        throw new IllegalStateException( "Not a primitive type: " + primitiveType );
+        return javaAnnotation.memberValue( annotation, slot );
     }
 
-    private static Either checkValue( String member, Class<?> type, Object value ) {
-        if ( value == null ) {
-            return Either.failure( String.format( "member '%s' contains illegal null item.", member ) );
-        }
+    /**
+     * Read-only List view of a primitive array.
+     */
+    private static final class PrimitiveArrayList extends AbstractList<Object> implements RandomAccess {
 
-        boolean isArrayValue = value.getClass().isArray();
-
-        if ( ( isArrayValue && value.getClass().equals( type ) )
-                || value instanceof Collection ) {
-            if ( type.isArray() ) {
-                int length;
-                Iterator<?> iterator = null;
-
-                if ( isArrayValue ) {
-                    length = Array.getLength( value );
-                } else {
-                    Collection collection = ( Collection ) value;
-                    length = collection.size();
-                    iterator = collection.iterator();
-                }
-
-                Class<?> itemType = type.getComponentType();
-                Object newArray = Array.newInstance( itemType, length );
-                for (int i = 0; i < length; i++) {
-                    Object item;
-                    if ( isArrayValue ) {
-                        item = Array.get( value, i );
-                    } else {
-                        item = iterator.next();
-                    }
-                    String indexedMember = String.format( "%s[%d]", member, i );
-                    Either itemValidationResult = checkValue( indexedMember, itemType, item );
-                    if ( !itemValidationResult.isSuccess() ) {
-                        return itemValidationResult;
-                    }
-                    Array.set( newArray, i, itemValidationResult.getValidResult() );
-                }
-                return Either.success( newArray );
-            } else {
-                return Either.failure( String.format( "member '%s' has invalid type. Expected: %s. Found: %s.",
-                        member, type.getName(), value.getClass().getName() ) );
-            }
-        } else {
-            // simple values are boxed, so if the expected type is primitive, turn it into its boxed equivalent
-            if ( type.isPrimitive() ) {
-                type = boxedType( type );
-            }
+        private final Object array;
+        private final int size;
 
-            if ( type.isInstance( value ) ) {
-                return Either.success( value );
-            } else if ( Annotation.class.isAssignableFrom( type ) && value instanceof Map ) {
-                Map<?, ?> map = ( Map ) value;
-                Map<String, Object> typedMap = new HashMap<>( map.size() );
-                for (Map.Entry entry : map.entrySet()) {
-                    typedMap.put( entry.getKey().toString(), entry.getValue() );
-                }
-                return Either.success( createAnnotation( type.asSubclass( Annotation.class ), typedMap ) );
-            } else {
-                return TypeConverter.coerce( value, type, String.format( "member '%s' has invalid type. Expected: %s. Found: %s.",
-                        member, type.getName(), value.getClass().getName() ) );
-            }
+        PrimitiveArrayList( Object array ) {
+            this.array = array;
+            this.size = Array.getLength( array );
         }
-    }
 
-    private static String joinWith( String separator, Collection<String> values ) {
-        StringBuilder builder = new StringBuilder();
-        Iterator<String> iterator = values.iterator();
-
-        if ( iterator.hasNext() ) {
-            builder.append( iterator.next() );
-        }
-        while ( iterator.hasNext() ) {
-            builder.append( separator ).append( iterator.next() );
+        @Override
+        public Object get( int index ) {
+            return Array.get( array, index );
         }
 
-        return builder.toString();
+        @Override
+        public int size() {
+            return size;
+        }
     }
 
 }
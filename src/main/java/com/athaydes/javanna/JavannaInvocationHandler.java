@@ -1,168 +1,254 @@
 package com.athaydes.javanna;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.util.Map;
-import java.util.Objects;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
 
 final class JavannaInvocationHandler implements InvocationHandler {
 
-    private static final Method EQUALS_METHOD;
-    private static final Method HASHCODE_METHOD;
-    private static final Method TO_STRING_METHOD;
-    private static final Method ANNOTATION_TYPE_METHOD;
-
-    static {
-        try {
-            EQUALS_METHOD = Object.class.getMethod( "equals", Object.class );
-            HASHCODE_METHOD = Object.class.getMethod( "hashCode" );
-            TO_STRING_METHOD = Object.class.getMethod( "toString" );
-            ANNOTATION_TYPE_METHOD = Annotation.class.getMethod( "annotationType" );
-        } catch ( NoSuchMethodException e ) {
-            throw new IllegalStateException( "JVM does not provide expected method", e );
-        }
-    }
-
     private final JavaAnnotation<?> annotation;
-    private final Map<String, ?> values;
-
-    JavannaInvocationHandler( JavaAnnotation<?> annotation, Map<String, ?> values ) {
+    private final Object[] slots;
+    private final int hash;
+
+    // created lazily (racing Threads may each create one, which is harmless)
+    private Integer boxedHash;
+    private String string;
+
+    /**
+     * @param annotation the annotation
+     * @param slots      the value of every member of the annotation, indexed by slot.
+     *                   This array is owned by the new handler, so it must not be modified after this call.
+     */
+    JavannaInvocationHandler( JavaAnnotation<?> annotation, Object[] slots ) {
         this.annotation = annotation;
-        this.values = values;
+        this.slots = slots;
+        this.hash = computeHash( annotation, slots );
     }
 
     @Override
     public Object invoke( Object proxy, Method method, Object[] args ) throws Throwable {
-        if ( method.equals( EQUALS_METHOD ) ) {
-            Object other = args[ 0 ];
-            return isEqual( other );
-        }
-        if ( method.equals( HASHCODE_METHOD ) ) {
-            return annotation.hashCode() + values.hashCode();
-        }
-        if ( method.equals( TO_STRING_METHOD ) ) {
-            return asString();
-        }
-        if ( method.equals( ANNOTATION_TYPE_METHOD ) ) {
-            return annotation.getAnnotationType();
-        }
+        int slot = annotation.slotOf( method );
 
-        final String member = method.getName();
-        Object value = values.get( member );
+        if ( slot >= 0 ) {
+            return memberValue( slot );
+        }
 
-        if ( value == null ) {
-            value = annotation.getDefaultValueByMember().get( member );
+        switch ( slot ) {
+            case JavaAnnotation.EQUALS_SLOT:
+                return isEqual( proxy, args[ 0 ] );
+            case JavaAnnotation.HASHCODE_SLOT:
+                Integer result = boxedHash;
+                if ( result == null ) {
+                    result = boxedHash = hash;
+                }
+                return result;
+            case JavaAnnotation.TO_STRING_SLOT:
+                return asString();
+            case JavaAnnotation.ANNOTATION_TYPE_SLOT:
+                return annotationType();
+            default:
+                throw new UnsupportedOperationException( "Method not supported by annotation: " + method );
         }
+    }
 
-        return cloneIfArray( value );
+    JavaAnnotation<?> getAnnotation() {
+        return annotation;
     }
 
-    private Boolean isEqual( Object other ) {
-        Class<? extends Annotation> type = annotation.getAnnotationType();
+    /**
+     * @return the value of every member, indexed by slot. The array and its array values must never be modified.
+     */
+    Object[] slots() {
+        return slots;
+    }
 
-        if ( type.isInstance( other ) ) {
-            Annotation otherAnnotation = type.cast( other );
+    /**
+     * @param slot slot of a member
+     * @return the value in the given slot. Array values are not copied, so they must never be modified.
+     */
+    Object slotValue( int slot ) {
+        return slots[ slot ];
+    }
 
-            Map<String, Object> otherValues = Javanna.getAnnotationValues( otherAnnotation );
+    /**
+     * @param slot slot of a member
+     * @return the value of the member in the given slot, as returned by the member method (arrays are copied).
+     */
+    Object memberValue( int slot ) {
+        return cloneIfArray( slots[ slot ] );
+    }
 
-            return mapsAreEqual( values, otherValues );
-        }
+    Class<? extends Annotation> annotationType() {
+        return annotation.getAnnotationType();
+    }
 
-        return false;
+    int hash() {
+        return hash;
     }
 
-    private String asString() {
-        StringBuilder builder = new StringBuilder();
-        builder.append( annotation.getAnnotationType().getName() );
-        builder.append( "(" );
+    boolean isEqual( Object self, Object other ) {
+        if ( self == other ) {
+            return true;
+        }
 
-        final int lastIndex = values.size();
-        int index = 0;
+        if ( !annotation.getAnnotationType().isInstance( other ) ) {
+            return false;
+        }
 
-        for (Map.Entry<String, ?> entry : values.entrySet()) {
-            builder.append( entry.getKey() )
-                    .append( "=" )
-                    .append( valueAsString( entry.getValue() ) );
+        JavannaInvocationHandler otherHandler = of( other );
 
-            if ( ++index != lastIndex ) {
-                builder.append( ", " );
-            }
+        // both annotations were created by Javanna with the same slot layout
+        if ( otherHandler != null && otherHandler.annotation == annotation ) {
+            return hash == otherHandler.hash && slotsAreEqual( otherHandler.slots );
         }
 
-        builder.append( ")" );
-
-        return builder.toString();
+        return memberValuesAreEqual( other );
     }
 
-    private static String valueAsString( Object value ) {
-        // handle array of any type (Arrays.toString() requires us to know the type)
-        if ( value.getClass().isArray() ) {
-            int length = Array.getLength( value );
-            StringBuilder builder = new StringBuilder();
-            builder.append( "{" );
-            for (int i = 0; i < length - 1; i++) {
-                Object element = Array.get( value, i );
-                builder.append( valueAsString( element ) ).append( ", " );
+    /**
+     * @param annotation an annotation instance
+     * @return the handler of the given annotation if it was created by Javanna, null otherwise.
+     */
+    static JavannaInvocationHandler of( Object annotation ) {
+        if ( annotation instanceof GeneratedAnnotation ) {
+            return ( ( GeneratedAnnotation ) annotation ).getHandler();
+        }
+        if ( annotation != null && Proxy.isProxyClass( annotation.getClass() ) ) {
+            InvocationHandler handler = Proxy.getInvocationHandler( annotation );
+            if ( handler instanceof JavannaInvocationHandler ) {
+                return ( JavannaInvocationHandler ) handler;
             }
+        }
+        return null;
+    }
 
-            // last element, if any
-            if ( length > 0 ) {
-                builder.append( Array.get( value, length - 1 ) );
+    String asString() {
+        String result = string;
+        if ( result == null ) {
+            StringBuilder builder = new StringBuilder( 32 + 16 * slots.length );
+            try {
+                AnnotationFormatter.appendTo( annotation, slots, builder );
+            } catch ( IOException e ) {
+                // StringBuilder does not throw IOException
+                throw new IllegalStateException( e );
             }
+            result = string = builder.toString();
+        }
+        return result;
+    }
 
-            return builder.append( "}" ).toString();
+    void appendTo( Appendable appendable ) throws IOException {
+        String result = string;
+        if ( result == null ) {
+            AnnotationFormatter.appendTo( annotation, slots, appendable );
+        } else {
+            appendable.append( result );
         }
-        return value.toString();
     }
 
-    private static boolean mapsAreEqual( Map<String, ?> values, Map<String, Object> otherValues ) {
-        if ( !values.keySet().equals( otherValues.keySet() ) ) {
-            return false;
+    /**
+     * Computes the hash code of an annotation as specified by {@link Annotation#hashCode()}.
+     */
+    private static int computeHash( JavaAnnotation<?> annotation, Object[] slots ) {
+        int result = 0;
+        for (int slot = 0; slot < slots.length; slot++) {
+            result += ( 127 * annotation.memberName( slot ).hashCode() ) ^ valueHash( slots[ slot ] );
         }
+        return result;
+    }
 
-        // keys are equal, now check each value
+    private static int valueHash( Object value ) {
+        if ( !value.getClass().isArray() ) {
+            return value.hashCode();
+        }
+        if ( value instanceof Object[] ) {
+            return Arrays.hashCode( ( Object[] ) value );
+        }
+        if ( value instanceof int[] ) {
+            return Arrays.hashCode( ( int[] ) value );
+        }
+        if ( value instanceof long[] ) {
+            return Arrays.hashCode( ( long[] ) value );
+        }
+        if ( value instanceof boolean[] ) {
+            return Arrays.hashCode( ( boolean[] ) value );
+        }
+        if ( value instanceof double[] ) {
+            return Arrays.hashCode( ( double[] ) value );
+        }
+        if ( value instanceof float[] ) {
+            return Arrays.hashCode( ( float[] ) value );
+        }
+        if ( value instanceof byte[] ) {
+            return Arrays.hashCode( ( byte[] ) value );
+        }
+        if ( value instanceof short[] ) {
+            return Arrays.hashCode( ( short[] ) value );
+        }
+        return Arrays.hashCode( ( char[] ) value );
+    }
 
-        for (Map.Entry<String, ?> entry : values.entrySet()) {
-            Object value1 = entry.getValue();
-            Object value2 = otherValues.get( entry.getKey() );
-            if ( !valuesAreEqual( value1, value2 ) ) {
+    private boolean slotsAreEqual( Object[] otherSlots ) {
+        for (int slot = 0; slot < slots.length; slot++) {
+            if ( !valuesAreEqual( slots[ slot ], otherSlots[ slot ] ) ) {
                 return false;
             }
         }
+        return true;
+    }
 
+    private boolean memberValuesAreEqual( Object other ) {
+        Annotation otherAnnotation = ( Annotation ) other;
+        for (int slot = 0; slot < slots.length; slot++) {
+            if ( !valuesAreEqual( slots[ slot ], annotation.memberValue( otherAnnotation, slot ) ) ) {
+                return false;
+            }
+        }
         return true;
     }
 
     private static boolean valuesAreEqual( Object first, Object second ) {
-        if ( first.getClass().isArray() ) {
-            if ( second.getClass().isArray() ) {
-                // both are arrays
-                int length1 = Array.getLength( first );
-                int length2 = Array.getLength( second );
-                if ( length1 != length2 ) {
-                    return false;
-                }
-                for (int i = 0; i < length1; i++) {
-                    Object child1 = Array.get( first, i );
-                    Object child2 = Array.get( second, i );
-                    if ( !valuesAreEqual( child1, child2 ) ) {
-                        return false;
-                    }
-                }
+        if ( first == second ) {
+            return true;
+        }
+        if ( first instanceof Object[] ) {
+            return second instanceof Object[] && Arrays.equals( ( Object[] ) first, ( Object[] ) second );
+        }
 
-                // all elements are the same
-                return true;
-            } else {
-                return false;
-            }
-        } else if ( second.getClass().isArray() ) {
+        Class<?> type = first.getClass();
+
+        if ( !type.isArray() ) {
+            return first.equals( second );
+        }
+        if ( type != second.getClass() ) {
             return false;
-        } else {
-            // none is an array
-            return Objects.equals( first, second );
         }
+        if ( type == int[].class ) {
+            return Arrays.equals( ( int[] ) first, ( int[] ) second );
+        }
+        if ( type == long[].class ) {
+            return Arrays.equals( ( long[] ) first, ( long[] ) second );
+        }
+        if ( type == boolean[].class ) {
+            return Arrays.equals( ( boolean[] ) first, ( boolean[] ) second );
+        }
+        if ( type == double[].class ) {
+            return Arrays.equals( ( double[] ) first, ( double[] ) second );
+        }
+        if ( type == float[].class ) {
+            return Arrays.equals( ( float[] ) first, ( float[] ) second );
+        }
+        if ( type == byte[].class ) {
+            return Arrays.equals( ( byte[] ) first, ( byte[] ) second );
+        }
+        if ( type == short[].class ) {
+            return Arrays.equals( ( short[] ) first, ( short[] ) second );
+        }
+        return Arrays.equals( ( char[] ) first, ( char[] ) second );
     }
 
     @SuppressWarnings( "SuspiciousSystemArraycopy" )
@@ -0,0 +1,491 @@
+package com.athaydes.javanna;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts the values provided for a member of an annotation into the type of the member.
+ * <p>
+ * Conversions never allocate anything other than the converted value itself. When a conversion fails,
+ * {@link #INVALID} is returned, and only then the error message may be obtained from {@link #describeFailure(Object)}.
+ * <p>
+ * Instances of this class are immutable.
+ */
+final class MemberConverter {
+
+    /**
+     * Result of a conversion that failed.
+     */
+    static final Object INVALID = new Object();
+
+    private final String member;
+    private final Class<?> type;
+
+    // simple values are boxed, so if the member type is primitive, values must have its boxed equivalent type
+    private final Class<?> valueType;
+
+    // only used for array members
+    private final Class<?> componentType;
+    private final Class<?> componentValueType;
+
+    MemberConverter( String member, Class<?> type ) {
+        this.member = member;
+        this.type = type;
+        this.valueType = valueTypeOf( type );
+        this.componentType = type.getComponentType();
+        this.componentValueType = componentType == null ? null : valueTypeOf( componentType );
+    }
+
+    /**
+     * @param value value provided for the member
+     * @return the value converted into the member type, or {@link #INVALID} if that is not possible.
+     */
+    Object convert( Object value ) {
+        if ( value == null ) {
+            return INVALID;
+        }
+        if ( componentType != null ) {
+            if ( value instanceof Collection ) {
+                return convertArray( ( ( Collection<?> ) value ).toArray() );
+            }
+            if ( value.getClass().isArray() ) {
+                return convertArray( value );
+            }
+            return INVALID;
+        }
+        if ( value instanceof Collection ) {
+            return INVALID;
+        }
+        return convertItem( valueType, value );
+    }
+
+    /**
+     * @param value value for which {@link #convert(Object)} returned {@link #INVALID}
+     * @return the error message explaining why the value could not be converted.
+     */
+    String describeFailure( Object value ) {
+        if ( value == null ) {
+            return nullItem( member );
+        }
+        if ( componentType != null ) {
+            Object[] items = null;
+            if ( value instanceof Collection ) {
+                items = ( ( Collection<?> ) value ).toArray();
+            } else if ( value instanceof Object[] ) {
+                items = ( Object[] ) value;
+            }
+            if ( items != null ) {
+                for (int i = 0; i < items.length; i++) {
+                    Object item = items[ i ];
+                    if ( item == null ) {
+                        return nullItem( member + '[' + i + ']' );
+                    }
+                    if ( item instanceof Collection ) {
+                        return invalidType( member + '[' + i + ']', componentType, item );
+                    }
+                    if ( convertItem( componentValueType, item ) == INVALID ) {
+                        return invalidType( member + '[' + i + ']', componentValueType, item );
+                    }
+                }
+            }
+            // arrays are only converted as a whole
+            return invalidType( member, type, value );
+        }
+        if ( value instanceof Collection ) {
+            return invalidType( member, type, value );
+        }
+        return invalidType( member, valueType, value );
+    }
+
+    private static String nullItem( String member ) {
+        return String.format( "member '%s' contains illegal null item.", member );
+    }
+
+    private static String invalidType( String member, Class<?> expectedType, Object value ) {
+        return String.format( "member '%s' has invalid type. Expected: %s. Found: %s.",
+                member, expectedType.getName(), value.getClass().getName() );
+    }
+
+    private static Object convertItem( Class<?> valueType, Object value ) {
+        if ( valueType.isInstance( value ) ) {
+            return value;
+        }
+        if ( value == null ) {
+            return INVALID;
+        }
+        if ( value instanceof Map && Annotation.class.isAssignableFrom( valueType ) ) {
+            Map<?, ?> map = ( Map ) value;
+            Map<String, Object> typedMap = new HashMap<>( map.size() * 2 );
+            for (Map.Entry entry : map.entrySet()) {
+                typedMap.put( entry.getKey().toString(), entry.getValue() );
+            }
+            return Javanna.createAnnotation( valueType.asSubclass( Annotation.class ), typedMap );
+        }
+        Object result = ValueConverters.convert( value, valueType );
+        return result == null ? INVALID : result;
+    }
+
+    /**
+     * Convert an array of any type into an array of the member type.
+     */
+    private Object convertArray( Object array ) {
+        if ( array.getClass() == type ) {
+            return copyOf( array );
+        }
+        if ( array instanceof Object[] ) {
+            return convertItems( ( Object[] ) array );
+        }
+
+        // a primitive array of a different type: only conversions between numbers are possible
+        if ( componentType == boolean.class || componentType == char.class ) {
+            return INVALID;
+        }
+        if ( array instanceof double[] || array instanceof float[] ) {
+            return fromFloatingPoints( array );
+        }
+        return fromIntegrals( array );
+    }
+
+    private Object copyOf( Object array ) {
+        if ( array instanceof Object[] ) {
+            Object[] result = ( ( Object[] ) array ).clone();
+            for (Object item : result) {
+                if ( item == null ) {
+                    return INVALID;
+                }
+            }
+            return result;
+        }
+        if ( array instanceof int[] ) return ( ( int[] ) array ).clone();
+        if ( array instanceof long[] ) return ( ( long[] ) array ).clone();
+        if ( array instanceof boolean[] ) return ( ( boolean[] ) array ).clone();
+        if ( array instanceof double[] ) return ( ( double[] ) array ).clone();
+        if ( array instanceof float[] ) return ( ( float[] ) array ).clone();
+        if ( array instanceof byte[] ) return ( ( byte[] ) array ).clone();
+        if ( array instanceof short[] ) return ( ( short[] ) array ).clone();
+        return ( ( char[] ) array ).clone();
+    }
+
+    private Object convertItems( Object[] items ) {
+        int length = items.length;
+
+        if ( !componentType.isPrimitive() ) {
+            Object[] result = ( Object[] ) Array.newInstance( componentType, length );
+            for (int i = 0; i < length; i++) {
+                Object item = convertItem( componentValueType, items[ i ] );
+                if ( item == INVALID ) {
+                    return INVALID;
+                }
+                result[ i ] = item;
+            }
+            return result;
+        }
+
+        if ( componentType == int.class ) {
+            int[] result = new int[ length ];
+            for (int i = 0; i < length; i++) {
+                Object item = items[ i ];
+                if ( item instanceof Integer ) {
+                    result[ i ] = ( Integer ) item;
+                } else {
+                    Object converted = convertItem( Integer.class, item );
+                    if ( converted == INVALID ) {
+                        return INVALID;
+                    }
+                    result[ i ] = ( Integer ) converted;
+                }
+            }
+            return result;
+        }
+        if ( componentType == long.class ) {
+            long[] result = new long[ length ];
+            for (int i = 0; i < length; i++) {
+                Object item = items[ i ];
+                if ( item instanceof Long ) {
+                    result[ i ] = ( Long ) item;
+                } else {
+                    Object converted = convertItem( Long.class, item );
+                    if ( converted == INVALID ) {
+                        return INVALID;
+                    }
+                    result[ i ] = ( Long ) converted;
+                }
+            }
+            return result;
+        }
+        if ( componentType == double.class ) {
+            double[] result = new double[ length ];
+            for (int i = 0; i < length; i++) {
+                Object item = items[ i ];
+                if ( item instanceof Double ) {
+                    result[ i ] = ( Double ) item;
+                } else {
+                    Object converted = convertItem( Double.class, item );
+                    if ( converted == INVALID ) {
+                        return INVALID;
+                    }
+                    result[ i ] = ( Double ) converted;
+                }
+            }
+            return result;
+        }
+        if ( componentType == float.class ) {
+            float[] result = new float[ length ];
+            for (int i = 0; i < length; i++) {
+                Object item = items[ i ];
+                if ( item instanceof Float ) {
+                    result[ i ] = ( Float ) item;
+                } else {
+                    Object converted = convertItem( Float.class, item );
+                    if ( converted == INVALID ) {
+                        return INVALID;
+                    }
+                    result[ i ] = ( Float ) converted;
+                }
+            }
+            return result;
+        }
+        if ( componentType == short.class ) {
+            short[] result = new short[ length ];
+            for (int i = 0; i < length; i++) {
+                Object item = items[ i ];
+                if ( item instanceof Short ) {
+                    result[ i ] = ( Short ) item;
+                } else {
+                    Object converted = convertItem( Short.class, item );
+                    if ( converted == INVALID ) {
+                        return INVALID;
+                    }
+                    result[ i ] = ( Short ) converted;
+                }
+            }
+            return result;
+        }
+        if ( componentType == byte.class ) {
+            byte[] result = new byte[ length ];
+            for (int i = 0; i < length; i++) {
+                Object item = items[ i ];
+                if ( item instanceof Byte ) {
+                    result[ i ] = ( Byte ) item;
+                } else {
+                    Object converted = convertItem( Byte.class, item );
+                    if ( converted == INVALID ) {
+                        return INVALID;
+                    }
+                    result[ i ] = ( Byte ) converted;
+                }
+            }
+            return result;
+        }
+        if ( componentType == boolean.class ) {
+            boolean[] result = new boolean[ length ];
+            for (int i = 0; i < length; i++) {
+                Object item = items[ i ];
+                if ( item instanceof Boolean ) {
+                    result[ i ] = ( Boolean ) item;
+                } else {
+                    Object converted = convertItem( Boolean.class, item );
+                    if ( converted == INVALID ) {
+                        return INVALID;
+                    }
+                    result[ i ] = ( Boolean ) converted;
+                }
+            }
+            return result;
+        }
+
+        char[] result = new char[ length ];
+        for (int i = 0; i < length; i++) {
+            Object item = items[ i ];
+            if ( item instanceof Character ) {
+                result[ i ] = ( Character ) item;
+            } else {
+                Object converted = convertItem( Character.class, item );
+                if ( converted == INVALID ) {
+                    return INVALID;
+                }
+                result[ i ] = ( Character ) converted;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Convert the values of an integral primitive array (int[], long[], short[] or byte[]) into an array of the
+     * member type.
+     */
+    private Object fromIntegrals( Object values ) {
+        int length = Array.getLength( values );
+
+        if ( componentType == long.class ) {
+            long[] result = new long[ length ];
+            for (int i = 0; i < length; i++) {
+                result[ i ] = integralAt( values, i );
+            }
+            return result;
+        }
+        if ( componentType == int.class ) {
+            int[] result = new int[ length ];
+            for (int i = 0; i < length; i++) {
+                long value = integralAt( values, i );
+                if ( value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ) {
+                    return INVALID;
+                }
+                result[ i ] = ( int ) value;
+            }
+            return result;
+        }
+        if ( componentType == short.class ) {
+            short[] result = new short[ length ];
+            for (int i = 0; i < length; i++) {
+                long value = integralAt( values, i );
+                if ( value < Short.MIN_VALUE || value > Short.MAX_VALUE ) {
+                    return INVALID;
+                }
+                result[ i ] = ( short ) value;
+            }
+            return result;
+        }
+        if ( componentType == byte.class ) {
+            byte[] result = new byte[ length ];
+            for (int i = 0; i < length; i++) {
+                long value = integralAt( values, i );
+                if ( value < Byte.MIN_VALUE || value > Byte.MAX_VALUE ) {
+                    return INVALID;
+                }
+                result[ i ] = ( byte ) value;
+            }
+            return result;
+        }
+        if ( componentType == double.class ) {
+            double[] result = new double[ length ];
+            for (int i = 0; i < length; i++) {
+                result[ i ] = integralAt( values, i );
+            }
+            return result;
+        }
+        if ( componentType == float.class ) {
+            float[] result = new float[ length ];
+            for (int i = 0; i < length; i++) {
+                result[ i ] = integralAt( values, i );
+            }
+            return result;
+        }
+        return INVALID;
+    }
+
+    /**
+     * Convert the values of a floating-point primitive array (double[] or float[]) into an array of the
+     * member type.
+     */
+    private Object fromFloatingPoints( Object values ) {
+        int length = Array.getLength( values );
+
+        if ( componentType == double.class ) {
+            double[] result = new double[ length ];
+            for (int i = 0; i < length; i++) {
+                result[ i ] = floatingPointAt( values, i );
+            }
+            return result;
+        }
+        if ( componentType == float.class ) {
+            float[] result = new float[ length ];
+            for (int i = 0; i < length; i++) {
+                double value = floatingPointAt( values, i );
+                if ( !TypeConverter.isFloat( value ) ) {
+                    return INVALID;
+                }
+                result[ i ] = ( float ) value;
+            }
+            return result;
+        }
+        if ( componentType == long.class ) {
+            long[] result = new long[ length ];
+            for (int i = 0; i < length; i++) {
+                double value = floatingPointAt( values, i );
+                if ( !TypeConverter.isLong( value ) ) {
+                    return INVALID;
+                }
+                result[ i ] = ( long ) value;
+            }
+            return result;
+        }
+        if ( componentType == int.class ) {
+            int[] result = new int[ length ];
+            for (int i = 0; i < length; i++) {
+                double value = floatingPointAt( values, i );
+                if ( !TypeConverter.isIntegralValue( value, Integer.MIN_VALUE, Integer.MAX_VALUE ) ) {
+                    return INVALID;
+                }
+                result[ i ] = ( int ) value;
+            }
+            return result;
+        }
+        if ( componentType == short.class ) {
+            short[] result = new short[ length ];
+            for (int i = 0; i < length; i++) {
+                double value = floatingPointAt( values, i );
+                if ( !TypeConverter.isIntegralValue( value, Short.MIN_VALUE, Short.MAX_VALUE ) ) {
+                    return INVALID;
+                }
+                result[ i ] = ( short ) value;
+            }
+            return result;
+        }
+        if ( componentType == byte.class ) {
+            byte[] result = new byte[ length ];
+            for (int i = 0; i < length; i++) {
+                double value = floatingPointAt( values, i );
+                if ( !TypeConverter.isIntegralValue( value, Byte.MIN_VALUE, Byte.MAX_VALUE ) ) {
+                    return INVALID;
+                }
+                result[ i ] = ( byte ) value;
+            }
+            return result;
+        }
+        return INVALID;
+    }
+
+    // the source array type is the same for all items, so the type checks are always predicted correctly
+    private static long integralAt( Object array, int index ) {
+        if ( array instanceof int[] ) return ( ( int[] ) array )[ index ];
+        if ( array instanceof long[] ) return ( ( long[] ) array )[ index ];
+        if ( array instanceof short[] ) return ( ( short[] ) array )[ index ];
+        return ( ( byte[] ) array )[ index ];
+    }
+
+    private static double floatingPointAt( Object array, int index ) {
+        if ( array instanceof double[] ) return ( ( double[] ) array )[ index ];
+        return ( ( float[] ) array )[ index ];
+    }
+
+    private static Class<?> valueTypeOf( Class<?> type ) {
+        return type.isPrimitive() ? boxedType( type ) : type;
+    }
+
+    private static Class<?> boxedType( Class<?> primitiveType ) {
+        // boolean, byte, char, short, int, long, float, and double.
+        if ( primitiveType == Boolean.TYPE )
+            return Boolean.class;
+        if ( primitiveType == Byte.TYPE )
+            return Byte.class;
+        if ( primitiveType == Character.TYPE )
+            return Character.class;
+        if ( primitiveType == Short.TYPE )
+            return Short.class;
+        if ( primitiveType == Integer.TYPE )
+            return Integer.class;
+        if ( primitiveType == Long.TYPE )
+            return Long.class;
+        if ( primitiveType == Float.TYPE )
+            return Float.class;
+        if ( primitiveType == Double.TYPE )
+            return Double.class;
+
+        throw new IllegalStateException( "Not a primitive type: " + primitiveType );
+    }
+
+}
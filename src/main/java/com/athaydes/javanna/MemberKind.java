@@ -0,0 +1,35 @@
+package com.athaydes.javanna;
+
+/**
+ * Kinds of values an annotation member may hold.
+ * <p>
+ * For array members, the kind is the kind of the array items.
+ *
+ * @see JavaAnnotation#getMemberKind(int)
+ */
+public enum MemberKind {
+    BOOLEAN, BYTE, CHAR, SHORT, INT, LONG, FLOAT, DOUBLE, STRING, CLASS, ENUM, ANNOTATION;
+
+    /**
+     * @param memberType type of an annotation member
+     * @return the kind of the member.
+     * @throws IllegalArgumentException if the type is not a valid annotation member type.
+     */
+    public static MemberKind of( Class<?> memberType ) {
+        Class<?> type = memberType.isArray() ? memberType.getComponentType() : memberType;
+        if ( type == boolean.class ) return BOOLEAN;
+        if ( type == byte.class ) return BYTE;
+        if ( type == char.class ) return CHAR;
+        if ( type == short.class ) return SHORT;
+        if ( type == int.class ) return INT;
+        if ( type == long.class ) return LONG;
+        if ( type == float.class ) return FLOAT;
+        if ( type == double.class ) return DOUBLE;
+        if ( type == String.class ) return STRING;
+        if ( type == Class.class ) return CLASS;
+        if ( type.isEnum() ) return ENUM;
+        if ( type.isAnnotation() ) return ANNOTATION;
+        throw new IllegalArgumentException( "Not a valid annotation member type: " + memberType.getName() );
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.athaydes.javanna;
+
+import java.lang.reflect.Array;
+
+/**
+ * Holder of the current {@link MetricsListener}.
+ * <p>
+ * Callers read {@link #listener} once into a local variable and skip all measurements when it is null, so metrics
+ * cost nothing but a volatile read when disabled.
+ */
+final class Metrics {
+
+    static volatile MetricsListener listener;
+
+    /**
+     * Flag of the innermost cache lookup running on the current Thread, set when the looked up value has to be
+     * computed. Only used when metrics are enabled.
+     */
+    private static final ThreadLocal<boolean[]> VALUE_COMPUTED = new ThreadLocal<>();
+
+    private Metrics() {
+        // private
+    }
+
+    static void validationFailed( MetricsListener metrics, JavaAnnotation<?> annotation, ValidationFailure reason,
+                                  long startNanos ) {
+        if ( metrics != null ) {
+            metrics.validationFailed( annotation.getAnnotationType(), reason, System.nanoTime() - startNanos );
+        }
+    }
+
+    /**
+     * Look up a value in a cache, reporting whether it was a hit or a miss.
+     * <p>
+     * The cache's {@code computeValue} method must call {@link #valueComputed()}.
+     */
+    static <T> T lookup( ClassValue<T> cache, Class<?> type, String cacheName ) {
+        MetricsListener metrics = listener;
+        if ( metrics == null ) {
+            return cache.get( type );
+        }
+        boolean[] computed = new boolean[ 1 ];
+        boolean[] outerComputed = VALUE_COMPUTED.get();
+        VALUE_COMPUTED.set( computed );
+        T result;
+        try {
+            result = cache.get( type );
+        } finally {
+            // lookups may be nested within computeValue, and the flag must never outlive its lookup
+            if ( outerComputed == null ) {
+                VALUE_COMPUTED.remove();
+            } else {
+                VALUE_COMPUTED.set( outerComputed );
+            }
+        }
+        metrics.cacheAccessed( cacheName, !computed[ 0 ] );
+        return result;
+    }
+
+    /**
+     * Mark the value of the current cache lookup as computed (a cache miss).
+     */
+    static void valueComputed() {
+        boolean[] computed = VALUE_COMPUTED.get();
+        if ( computed != null ) {
+            computed[ 0 ] = true;
+        }
+    }
+
+    static void cacheAccessed( String cache, boolean hit ) {
+        MetricsListener metrics = listener;
+        if ( metrics != null ) {
+            metrics.cacheAccessed( cache, hit );
+        }
+    }
+
+    static void annotationCreated( MetricsListener metrics, JavaAnnotation<?> annotation, Object[] slots,
+                                   long startNanos ) {
+        long duration = System.nanoTime() - startNanos;
+        metrics.annotationCreated( annotation.getAnnotationType(), slots.length, largestArraySize( slots ), duration );
+    }
+
+    private static int largestArraySize( Object[] slots ) {
+        int result = 0;
+        for (Object value : slots) {
+            if ( value.getClass().isArray() ) {
+                result = Math.max( result, Array.getLength( value ) );
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.athaydes.javanna;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * Listener of the operations performed by Javanna, used to collect metrics.
+ * <p>
+ * Metrics are disabled by default, costing nothing but the check for a listener. To enable them, set a listener
+ * with {@link Javanna#setMetricsListener(MetricsListener)}. {@link MetricsRegistry} is a listener that keeps
+ * counters and latency histograms in memory.
+ * <p>
+ * Listeners are called synchronously by the Threads performing the operations, so implementations must be
+ * thread-safe and fast. Durations are given in nanoseconds, as measured by {@link System#nanoTime()}.
+ */
+public interface MetricsListener {
+
+    /**
+     * Name of the cache of parsed annotation types.
+     *
+     * @see Javanna#parseAnnotation(Class)
+     */
+    String ANNOTATION_TYPE_CACHE = "annotationType";
+
+    /**
+     * Name of the cache of {@link ValueConverter}s resolved for each pair of source and target types.
+     */
+    String CONVERTER_CACHE = "converter";
+
+    /**
+     * Name of the caches kept by {@link AnnotationInterner}s.
+     */
+    String INTERNER_CACHE = "interner";
+
+    /**
+     * An annotation type was parsed (which only happens when it is not found in the cache).
+     *
+     * @param annotationType the annotation type
+     * @param durationNanos  time taken to parse the annotation type
+     */
+    void annotationParsed( Class<? extends Annotation> annotationType, long durationNanos );
+
+    /**
+     * An annotation instance was created, including the validation and conversion of its values.
+     *
+     * @param annotationType   the annotation type
+     * @param memberCount      number of members of the annotation
+     * @param largestArraySize size of the largest array value of the annotation, or 0 if it has no array members
+     * @param durationNanos    time taken to create the annotation
+     */
+    void annotationCreated( Class<? extends Annotation> annotationType, int memberCount, int largestArraySize,
+                            long durationNanos );
+
+    /**
+     * The values provided to create an annotation were rejected.
+     *
+     * @param annotationType the annotation type
+     * @param reason         reason why the values were rejected
+     * @param durationNanos  time taken until the values were rejected
+     */
+    void validationFailed( Class<? extends Annotation> annotationType, ValidationFailure reason, long durationNanos );
+
+    /**
+     * A value was converted, or could not be converted, into the type of an annotation member
+     * by a {@link ValueConverter}.
+     *
+     * @param sourceType type of the value
+     * @param targetType type the value was converted into (primitive types are given as their boxed types)
+     * @param converted  true if the value was converted, false otherwise
+     */
+    void valueConverted( Class<?> sourceType, Class<?> targetType, boolean converted );
+
+    /**
+     * The values of an annotation were read with {@link Javanna#getAnnotationValues(Annotation, boolean)}.
+     *
+     * @param annotationType the annotation type
+     * @param durationNanos  time taken to read the values
+     */
+    void annotationValuesRead( Class<? extends Annotation> annotationType, long durationNanos );
+
+    /**
+     * An annotation was read from a serialized form, such as JSON, by a Javanna extension.
+     *
+     * @param annotationType the annotation type
+     * @param format         name of the serialized form, for example {@code json}
+     * @param durationNanos  time taken to read the annotation, including its creation
+     */
+    void annotationDeserialized( Class<? extends Annotation> annotationType, String format, long durationNanos );
+
+    /**
+     * An annotation was written in a serialized form, such as JSON, by a Javanna extension.
+     *
+     * @param annotationType the annotation type
+     * @param format         name of the serialized form, for example {@code json}
+     * @param durationNanos  time taken to write the annotation
+     */
+    void annotationSerialized( Class<? extends Annotation> annotationType, String format, long durationNanos );
+
+    /**
+     * A cache was searched.
+     *
+     * @param cache name of the cache
+     * @param hit   true if the entry was found in the cache, false if it had to be computed (or was added)
+     */
+    void cacheAccessed( String cache, boolean hit );
+
+}
@@ -0,0 +1,210 @@
+package com.athaydes.javanna;
+
+import java.lang.annotation.Annotation;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-process {@link MetricsListener} that keeps counters and latency histograms in memory.
+ * <p>
+ * Example usage:
+ * <pre>{@code
+ * MetricsRegistry registry = new MetricsRegistry();
+ * Javanna.setMetricsListener( registry );
+ * // ... use Javanna
+ * MetricsSnapshot snapshot = registry.snapshot();
+ * }</pre>
+ * Recording a metric does not allocate memory, except the first time a metric is seen.
+ * Metrics are kept by type name, so this registry does not prevent any class from being garbage collected.
+ * <p>
+ * Instances of this class are thread-safe.
+ *
+ * @see MetricsSnapshot
+ */
+public final class MetricsRegistry implements MetricsListener {
+
+    private final ConcurrentMap<String, TypeMetrics> metricsByTypeName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLongArray> conversionsByTypePair = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLongArray> cacheAccessesByName = new ConcurrentHashMap<>();
+    private final AtomicLongArray validationFailures = new AtomicLongArray( ValidationFailure.values().length );
+
+    private final ClassValue<TypeMetrics> typeMetrics = new ClassValue<TypeMetrics>() {
+        @Override
+        protected TypeMetrics computeValue( Class<?> type ) {
+            TypeMetrics metrics = new TypeMetrics();
+            TypeMetrics existing = metricsByTypeName.putIfAbsent( type.getName(), metrics );
+            return existing == null ? metrics : existing;
+        }
+    };
+
+    // conversion counts (converted, failed) by target type, for each source type
+    private final ClassValue<ConcurrentMap<String, AtomicLongArray>> conversions =
+            new ClassValue<ConcurrentMap<String, AtomicLongArray>>() {
+                @Override
+                protected ConcurrentMap<String, AtomicLongArray> computeValue( Class<?> type ) {
+                    return new ConcurrentHashMap<>( 4 );
+                }
+            };
+
+    @Override
+    public void annotationParsed( Class<? extends Annotation> annotationType, long durationNanos ) {
+        typeMetrics.get( annotationType ).parse.record( durationNanos );
+    }
+
+    @Override
+    public void annotationCreated( Class<? extends Annotation> annotationType, int memberCount,
+                                   int largestArraySize, long durationNanos ) {
+        typeMetrics.get( annotationType ).create.record( durationNanos );
+    }
+
+    @Override
+    public void validationFailed( Class<? extends Annotation> annotationType, ValidationFailure reason,
+                                  long durationNanos ) {
+        validationFailures.incrementAndGet( reason.ordinal() );
+    }
+
+    @Override
+    public void valueConverted( Class<?> sourceType, Class<?> targetType, boolean converted ) {
+        ConcurrentMap<String, AtomicLongArray> byTarget = conversions.get( sourceType );
+        AtomicLongArray counts = byTarget.get( targetType.getName() );
+        if ( counts == null ) {
+            counts = sharedCounts( conversionsByTypePair, sourceType.getName() + "->" + targetType.getName() );
+            byTarget.put( targetType.getName(), counts );
+        }
+        counts.incrementAndGet( converted ? 0 : 1 );
+    }
+
+    @Override
+    public void annotationValuesRead( Class<? extends Annotation> annotationType, long durationNanos ) {
+        typeMetrics.get( annotationType ).valuesRead.record( durationNanos );
+    }
+
+    @Override
+    public void annotationDeserialized( Class<? extends Annotation> annotationType, String format,
+                                        long durationNanos ) {
+        histogram( typeMetrics.get( annotationType ).deserialized, format ).record( durationNanos );
+    }
+
+    @Override
+    public void annotationSerialized( Class<? extends Annotation> annotationType, String format,
+                                      long durationNanos ) {
+        histogram( typeMetrics.get( annotationType ).serialized, format ).record( durationNanos );
+    }
+
+    @Override
+    public void cacheAccessed( String cache, boolean hit ) {
+        AtomicLongArray counts = cacheAccessesByName.get( cache );
+        if ( counts == null ) {
+            counts = sharedCounts( cacheAccessesByName, cache );
+        }
+        counts.incrementAndGet( hit ? 0 : 1 );
+    }
+
+    /**
+     * @return a snapshot of the current values of all metrics.
+     */
+    public MetricsSnapshot snapshot() {
+        Map<String, Long> counters = new TreeMap<>();
+        Map<String, HistogramSnapshot> histograms = new TreeMap<>();
+
+        for (ValidationFailure failure : ValidationFailure.values()) {
+            counters.put( "validationFailure[" + failure + "]", validationFailures.get( failure.ordinal() ) );
+        }
+        for (Map.Entry<String, AtomicLongArray> entry : conversionsByTypePair.entrySet()) {
+            counters.put( "conversion[" + entry.getKey() + "]", entry.getValue().get( 0 ) );
+            counters.put( "conversionFailure[" + entry.getKey() + "]", entry.getValue().get( 1 ) );
+        }
+        for (Map.Entry<String, AtomicLongArray> entry : cacheAccessesByName.entrySet()) {
+            counters.put( "cacheHit[" + entry.getKey() + "]", entry.getValue().get( 0 ) );
+            counters.put( "cacheMiss[" + entry.getKey() + "]", entry.getValue().get( 1 ) );
+        }
+        for (Map.Entry<String, TypeMetrics> entry : metricsByTypeName.entrySet()) {
+            String type = entry.getKey();
+            TypeMetrics metrics = entry.getValue();
+            putIfRecorded( histograms, "parse[" + type + "]", metrics.parse );
+            putIfRecorded( histograms, "create[" + type + "]", metrics.create );
+            putIfRecorded( histograms, "getAnnotationValues[" + type + "]", metrics.valuesRead );
+            for (Map.Entry<String, Histogram> format : metrics.deserialized.entrySet()) {
+                putIfRecorded( histograms, "deserialize[" + format.getKey() + ":" + type + "]", format.getValue() );
+            }
+            for (Map.Entry<String, Histogram> format : metrics.serialized.entrySet()) {
+                putIfRecorded( histograms, "serialize[" + format.getKey() + ":" + type + "]", format.getValue() );
+            }
+        }
+
+        return new MetricsSnapshot( counters, histograms );
+    }
+
+    private static Histogram histogram( ConcurrentMap<String, Histogram> histogramByFormat, String format ) {
+        Histogram histogram = histogramByFormat.get( format );
+        if ( histogram == null ) {
+            Histogram newHistogram = new Histogram();
+            histogram = histogramByFormat.putIfAbsent( format, newHistogram );
+            if ( histogram == null ) {
+                histogram = newHistogram;
+            }
+        }
+        return histogram;
+    }
+
+    private static AtomicLongArray sharedCounts( ConcurrentMap<String, AtomicLongArray> countsByName, String name ) {
+        AtomicLongArray counts = new AtomicLongArray( 2 );
+        AtomicLongArray existing = countsByName.putIfAbsent( name, counts );
+        return existing == null ? counts : existing;
+    }
+
+    private static void putIfRecorded( Map<String, HistogramSnapshot> histograms, String name,
+                                       Histogram histogram ) {
+        HistogramSnapshot snapshot = histogram.snapshot();
+        if ( snapshot.getCount() > 0 ) {
+            histograms.put( name, snapshot );
+        }
+    }
+
+    private static final class TypeMetrics {
+        final Histogram parse = new Histogram();
+        final Histogram create = new Histogram();
+        final Histogram valuesRead = new Histogram();
+        final ConcurrentMap<String, Histogram> deserialized = new ConcurrentHashMap<>( 2 );
+        final ConcurrentMap<String, Histogram> serialized = new ConcurrentHashMap<>( 2 );
+    }
+
+    /**
+     * Histogram of durations, using one bucket for each power of 2.
+     */
+    private static final class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray( HistogramSnapshot.BUCKET_COUNT );
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong min = new AtomicLong( Long.MAX_VALUE );
+        private final AtomicLong max = new AtomicLong( Long.MIN_VALUE );
+
+        void record( long value ) {
+            // System.nanoTime() differences are never negative in practice, but they are not guaranteed to be
+            long nanos = Math.max( 0L, value );
+            buckets.incrementAndGet( HistogramSnapshot.bucketOf( nanos ) );
+            sum.addAndGet( nanos );
+            long current;
+            while ( nanos < ( current = min.get() ) && !min.compareAndSet( current, nanos ) ) {
+                // retry
+            }
+            while ( nanos > ( current = max.get() ) && !max.compareAndSet( current, nanos ) ) {
+                // retry
+            }
+        }
+
+        HistogramSnapshot snapshot() {
+            long[] counts = new long[ buckets.length() ];
+            long count = 0L;
+            for (int i = 0; i < counts.length; i++) {
+                counts[ i ] = buckets.get( i );
+                count += counts[ i ];
+            }
+            return new HistogramSnapshot( counts, count, sum.get(), min.get(), max.get() );
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.athaydes.javanna;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Snapshot of the metrics collected by a {@link MetricsRegistry}.
+ * <p>
+ * Counters are named as follows:
+ * <ul>
+ * <li>{@code validationFailure[<reason>]}: values rejected, by {@link ValidationFailure}.</li>
+ * <li>{@code conversion[<source type>-><target type>]}: values converted by a {@link ValueConverter}.</li>
+ * <li>{@code conversionFailure[<source type>-><target type>]}: values which could not be converted.</li>
+ * <li>{@code cacheHit[<cache>]} and {@code cacheMiss[<cache>]}: accesses to each cache,
+ * for example {@link MetricsListener#ANNOTATION_TYPE_CACHE}.</li>
+ * </ul>
+ * Histograms of durations, in nanoseconds, are named as follows:
+ * <ul>
+ * <li>{@code parse[<annotation type>]}: annotation types parsed.</li>
+ * <li>{@code create[<annotation type>]}: annotations created.</li>
+ * <li>{@code getAnnotationValues[<annotation type>]}: calls to
+ * {@link Javanna#getAnnotationValues(java.lang.annotation.Annotation, boolean)}.</li>
+ * <li>{@code deserialize[<format>:<annotation type>]} and {@code serialize[<format>:<annotation type>]}:
+ * annotations read from, and written to, serialized forms such as {@code json} by Javanna extensions.</li>
+ * </ul>
+ * Instances of this class are immutable.
+ */
+public final class MetricsSnapshot {
+
+    private final Map<String, Long> counters;
+    private final Map<String, HistogramSnapshot> histograms;
+
+    MetricsSnapshot( Map<String, Long> counters, Map<String, HistogramSnapshot> histograms ) {
+        this.counters = Collections.unmodifiableMap( counters );
+        this.histograms = Collections.unmodifiableMap( histograms );
+    }
+
+    /**
+     * @return all counters, sorted by name.
+     */
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    /**
+     * @param name name of the counter
+     * @return the value of the counter, or 0 if it does not exist.
+     */
+    public long getCounter( String name ) {
+        Long value = counters.get( name );
+        return value == null ? 0L : value;
+    }
+
+    /**
+     * @return all histograms that have recorded values, sorted by name.
+     */
+    public Map<String, HistogramSnapshot> getHistograms() {
+        return histograms;
+    }
+
+    /**
+     * @param name name of the histogram
+     * @return the histogram, or null if no values have been recorded for it.
+     */
+    public HistogramSnapshot getHistogram( String name ) {
+        return histograms.get( name );
+    }
+
+    /**
+     * @param cache name of the cache
+     * @return the ratio between hits and accesses of the given cache, or {@link Double#NaN} if the cache
+     * has not been accessed.
+     */
+    public double getCacheHitRate( String cache ) {
+        long hits = getCounter( "cacheHit[" + cache + "]" );
+        long accesses = hits + getCounter( "cacheMiss[" + cache + "]" );
+        return accesses == 0 ? Double.NaN : ( double ) hits / accesses;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{" +
+                "counters=" + counters +
+                ", histograms=" + histograms +
+                '}';
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.athaydes.javanna;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of scanning jars and class files for annotations.
+ * <p>
+ * Instances of this class are immutable.
+ *
+ * @see AnnotationScanner
+ */
+public final class ScanResult {
+
+    private final List<ClassFileAnnotations> classes;
+    private final Map<String, Exception> errors;
+    private final int scannedCount;
+    private final int reusedCount;
+
+    ScanResult( List<ClassFileAnnotations> classes, Map<String, Exception> errors,
+                int scannedCount, int reusedCount ) {
+        this.classes = Collections.unmodifiableList( classes );
+        this.errors = Collections.unmodifiableMap( errors );
+        this.scannedCount = scannedCount;
+        this.reusedCount = reusedCount;
+    }
+
+    /**
+     * @return the annotations of every class that has at least one runtime-visible annotation.
+     */
+    public List<ClassFileAnnotations> getClasses() {
+        return classes;
+    }
+
+    /**
+     * @param annotationTypeName name of an annotation type, as returned by {@link Class#getName()}
+     * @return the annotations of every class in which the given annotation type is used on the class itself,
+     * or on any of its fields or methods.
+     */
+    public List<ClassFileAnnotations> getClassesUsing( String annotationTypeName ) {
+        List<ClassFileAnnotations> result = new ArrayList<>();
+        for (ClassFileAnnotations classAnnotations : classes) {
+            if ( uses( classAnnotations.getClassAnnotations(), annotationTypeName ) ||
+                    usesAny( classAnnotations.getFieldAnnotations(), annotationTypeName ) ||
+                    usesAny( classAnnotations.getMethodAnnotations(), annotationTypeName ) ) {
+                result.add( classAnnotations );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the errors which prevented jars or class files from being read, by path. Class files within jars
+     * have paths of the form {@code path/to/file.jar!/com/acme/Name.class}.
+     */
+    public Map<String, Exception> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the number of jars and class files which were read by the scan.
+     */
+    public int getScannedCount() {
+        return scannedCount;
+    }
+
+    /**
+     * @return the number of jars and class files whose annotations were taken from the index, without reading them.
+     */
+    public int getReusedCount() {
+        return reusedCount;
+    }
+
+    private static boolean usesAny( Map<String, List<AnnotationData>> annotationsByMember, String annotationTypeName ) {
+        for (List<AnnotationData> annotations : annotationsByMember.values()) {
+            if ( uses( annotations, annotationTypeName ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean uses( List<AnnotationData> annotations, String annotationTypeName ) {
+        for (AnnotationData annotation : annotations) {
+            if ( annotation.getTypeName().equals( annotationTypeName ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "ScanResult{" +
+                "classes=" + classes.size() +
+                ", errors=" + errors.size() +
+                ", scannedCount=" + scannedCount +
+                ", reusedCount=" + reusedCount +
+                '}';
+    }
+
+}
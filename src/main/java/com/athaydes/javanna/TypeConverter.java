@@ -1,70 +1,90 @@
 package com.athaydes.javanna;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 final class TypeConverter {
 
-    private static final Map<Class<? extends Number>, Number> MAX_INTEGRAL_VALUES =
-            new HashMap<Class<? extends Number>, Number>() {{
-                put( Byte.class, Byte.MAX_VALUE );
-                put( Short.class, Short.MAX_VALUE );
-                put( Integer.class, Integer.MAX_VALUE );
-                put( Long.class, Long.MAX_VALUE );
-            }};
-
     private TypeConverter() {
         // private
     }
 
     static Either coerce( Object value, Class<?> type, String errorMessage ) {
-        if ( Number.class.isAssignableFrom( type ) && Number.class.isInstance( value ) ) {
-            return coerceNumber( ( Number ) value, type.asSubclass( Number.class ), errorMessage );
-        } else {
+        Object result = coerce( value, type );
+        if ( result == null ) {
             return Either.failure( errorMessage );
+        } else {
+            return Either.success( result );
         }
     }
 
-    private static Either coerceNumber( Number value, Class<? extends Number> type, String errorMessage ) {
-        double d = value.doubleValue();
-        if ( isIntegral( type ) ) {
-            boolean isIntegralValue = ( Math.rint( d ) == d );
-            if ( isIntegralValue && d < MAX_INTEGRAL_VALUES.get( type ).doubleValue() ) {
-                return Either.success( safeIntegralCast( type, value ) );
-            }
-        } else {
-            // non-integral types
-            if ( type.equals( Float.class ) ) {
-                if ( d < Float.MAX_VALUE ) {
-                    return Either.success( value.floatValue() );
-                }
-            } else {
-                // must be a double
-                return Either.success( d );
-            }
+    /**
+     * @param value value to coerce
+     * @param type  type to coerce the value into (primitive types must be given as their boxed types)
+     * @return the coerced value, or null if the value cannot be coerced into the given type.
+     * @see ValueConverters
+     */
+    static Object coerce( Object value, Class<?> type ) {
+        if ( value == null ) {
+            return null;
         }
+        return ValueConverters.convert( value, type );
+    }
 
-        return Either.failure( errorMessage );
+    /**
+     * @param value    numeric value
+     * @param minValue minimum value of an integral type, which must be exactly representable as a double
+     * @param maxValue maximum value of an integral type, which must be exactly representable as a double
+     * @return true if the value can be converted into the integral type without loss of precision.
+     */
+    static boolean isIntegralValue( double value, long minValue, long maxValue ) {
+        return Math.rint( value ) == value && value >= minValue && value <= maxValue;
     }
 
-    private static boolean isIntegral( Class<? extends Number> type ) {
-        return !( type.equals( Float.class ) || type.equals( Double.class ) );
+    /**
+     * @param value numeric value
+     * @return true if the value can be converted into a long without loss of precision.
+     */
+    static boolean isLong( double value ) {
+        // Long.MAX_VALUE is not representable as a double, but 2^63 is, so the upper bound is exclusive
+        return Math.rint( value ) == value && value >= -0x1p63 && value < 0x1p63;
     }
 
-    private static Number safeIntegralCast( Class<? extends Number> type, Number value ) {
-        if ( type.equals( Byte.class ) ) {
-            return value.byteValue();
-        }
-        if ( type.equals( Short.class ) ) {
-            return value.shortValue();
+    /**
+     * Integral and big numbers are checked exactly, only other numbers (such as floats and doubles) are
+     * checked through their double value.
+     *
+     * @param value numeric value
+     * @return the value as a long, or null if the value is not an integer within the range of long.
+     */
+    static Long exactLong( Number value ) {
+        if ( value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte
+                || value instanceof AtomicLong || value instanceof AtomicInteger ) {
+            return value.longValue();
         }
-        if ( type.equals( Integer.class ) ) {
-            return value.intValue();
+        if ( value instanceof BigInteger ) {
+            BigInteger integer = ( BigInteger ) value;
+            return integer.bitLength() < 64 ? integer.longValue() : null;
         }
-        if ( type.equals( Long.class ) ) {
-            return value.longValue();
+        if ( value instanceof BigDecimal ) {
+            try {
+                return ( ( BigDecimal ) value ).longValueExact();
+            } catch ( ArithmeticException e ) {
+                // not an integer, or too large
+                return null;
+            }
         }
-        throw new IllegalStateException( "Not a integral number type: " + type );
+        return isLong( value.doubleValue() ) ? value.longValue() : null;
+    }
+
+    /**
+     * @param value numeric value
+     * @return true if the value can be converted into a float without overflowing.
+     */
+    static boolean isFloat( double value ) {
+        return value >= -Float.MAX_VALUE && value <= Float.MAX_VALUE;
     }
 
 }
@@ -0,0 +1,25 @@
+package com.athaydes.javanna;
+
+/**
+ * Reasons why the values provided to create an annotation may be rejected.
+ *
+ * @see MetricsListener#validationFailed(Class, ValidationFailure, long)
+ */
+public enum ValidationFailure {
+
+    /**
+     * No value was provided for one or more members without a default value.
+     */
+    MISSING_MEMBERS,
+
+    /**
+     * Values were provided for members that the annotation does not have.
+     */
+    NON_EXISTING_MEMBERS,
+
+    /**
+     * One or more values could not be converted into the type of their members.
+     */
+    INVALID_VALUES
+
+}
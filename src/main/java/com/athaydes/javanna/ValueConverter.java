@@ -0,0 +1,26 @@
+package com.athaydes.javanna;
+
+/**
+ * Converter of values provided for annotation members into the type of the members.
+ * <p>
+ * Converters are only used for values which are not already of the member type. They must be registered with
+ * {@link ValueConverters#register(Class, Class, ValueConverter)}.
+ * <p>
+ * Implementations must be thread-safe.
+ *
+ * @param <S> type of the values the converter accepts
+ * @param <T> type of the values the converter creates
+ */
+public interface ValueConverter<S, T> {
+
+    /**
+     * Convert a value into the given type.
+     *
+     * @param value      value to convert, never null
+     * @param targetType the type to convert the value into. Primitive types are always given as their boxed types.
+     * @return the converted value, which must be an instance of the target type,
+     * or null if the value cannot be converted.
+     */
+    T convert( S value, Class<? extends T> targetType );
+
+}
@@ -0,0 +1,296 @@
+package com.athaydes.javanna;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the {@link ValueConverter}s used to convert values provided for annotation members.
+ * <p>
+ * The following conversions are supported out-of-the-box:
+ * <ul>
+ * <li>Number to any other Number type, as long as no precision is lost.</li>
+ * <li>Number to char, if the number is a valid char value.</li>
+ * <li>String to any Number type, enum, Class (by name), char (single-character Strings) and boolean
+ * ({@code "true"} or {@code "false"}, ignoring case).</li>
+ * </ul>
+ * The converter used to convert from a source type into a target type is only looked up once: after that,
+ * it is cached until a new converter is registered.
+ * <p>
+ * No instance of this class can be created. It only contains static methods.
+ */
+public final class ValueConverters {
+
+    private static final Object NO_CONVERTER = new Object();
+
+    private static volatile Registry registry = new Registry( builtInConverters() );
+
+    private ValueConverters() {
+        // private
+    }
+
+    /**
+     * Register a converter.
+     * <p>
+     * A converter is used to convert values of the source type, or any of its subtypes, into the target type,
+     * or any of its subtypes. If more than one converter can convert a value, the last one registered is used.
+     *
+     * @param sourceType type of the values the converter accepts
+     * @param targetType type of the values the converter creates. For primitive member types, this must be the
+     *                   boxed type.
+     * @param converter  the converter
+     * @param <S>        type of the values the converter accepts
+     * @param <T>        type of the values the converter creates
+     */
+    public static synchronized <S, T> void register( Class<S> sourceType,
+                                                     Class<T> targetType,
+                                                     ValueConverter<? super S, T> converter ) {
+        if ( sourceType == null || targetType == null || converter == null ) {
+            throw new IllegalArgumentException( "sourceType, targetType and converter must not be null" );
+        }
+        Registration[] current = registry.registrations;
+        Registration[] registrations = new Registration[ current.length + 1 ];
+        registrations[ 0 ] = new Registration( sourceType, targetType, converter );
+        System.arraycopy( current, 0, registrations, 1, current.length );
+        registry = new Registry( registrations );
+    }
+
+    /**
+     * Convert a value into the given type.
+     *
+     * @param value      value to convert
+     * @param targetType type to convert the value into (primitive types must be given as their boxed types)
+     * @return the converted value, or null if the value cannot be converted into the given type.
+     */
+    @SuppressWarnings( "unchecked" )
+    static Object convert( Object value, Class<?> targetType ) {
+        ValueConverter<Object, Object> converter = registry.find( value.getClass(), targetType );
+        Object result = converter == null ? null : converter.convert( value, ( Class<Object> ) targetType );
+        boolean converted = targetType.isInstance( result );
+        MetricsListener metrics = Metrics.listener;
+        if ( metrics != null ) {
+            metrics.valueConverted( value.getClass(), targetType, converted );
+        }
+        return converted ? result : null;
+    }
+
+    private static final class Registration {
+        final Class<?> sourceType;
+        final Class<?> targetType;
+        final ValueConverter<?, ?> converter;
+
+        Registration( Class<?> sourceType, Class<?> targetType, ValueConverter<?, ?> converter ) {
+            this.sourceType = sourceType;
+            this.targetType = targetType;
+            this.converter = converter;
+        }
+    }
+
+    /**
+     * Immutable set of registrations, with the converters resolved from them.
+     */
+    private static final class Registry {
+        final Registration[] registrations;
+
+        // converter (or NO_CONVERTER) by source type, for each target type.
+        // Target types are usually application types (enums, annotations) while source types are usually
+        // JDK types (String, Integer), so the cache is kept by the target type: entries are stored within the
+        // target class, and within the source class only for as long as the target class is alive, so caching
+        // a converter never prevents an application class from being unloaded.
+        private final ClassValue<ClassValue<Object>> resolved = new ClassValue<ClassValue<Object>>() {
+            @Override
+            protected ClassValue<Object> computeValue( final Class<?> targetType ) {
+                return new ClassValue<Object>() {
+                    @Override
+                    protected Object computeValue( Class<?> sourceType ) {
+                        Metrics.valueComputed();
+                        return resolve( sourceType, targetType );
+                    }
+                };
+            }
+        };
+
+        Registry( Registration[] registrations ) {
+            this.registrations = registrations;
+        }
+
+        @SuppressWarnings( "unchecked" )
+        ValueConverter<Object, Object> find( Class<?> sourceType, Class<?> targetType ) {
+            Object converter = Metrics.lookup( resolved.get( targetType ), sourceType,
+                    MetricsListener.CONVERTER_CACHE );
+            return converter == NO_CONVERTER ? null : ( ValueConverter<Object, Object> ) converter;
+        }
+
+        private Object resolve( Class<?> sourceType, Class<?> targetType ) {
+            for (Registration registration : registrations) {
+                if ( registration.sourceType.isAssignableFrom( sourceType ) &&
+                        registration.targetType.isAssignableFrom( targetType ) ) {
+                    return registration.converter;
+                }
+            }
+            return NO_CONVERTER;
+        }
+    }
+
+    private static Registration[] builtInConverters() {
+        return new Registration[]{
+                new Registration( Number.class, Byte.class, new ValueConverter<Number, Byte>() {
+                    @Override
+                    public Byte convert( Number value, Class<? extends Byte> targetType ) {
+                        Long number = TypeConverter.exactLong( value );
+                        return number != null && number >= Byte.MIN_VALUE && number <= Byte.MAX_VALUE
+                                ? number.byteValue() : null;
+                    }
+                } ),
+                new Registration( Number.class, Short.class, new ValueConverter<Number, Short>() {
+                    @Override
+                    public Short convert( Number value, Class<? extends Short> targetType ) {
+                        Long number = TypeConverter.exactLong( value );
+                        return number != null && number >= Short.MIN_VALUE && number <= Short.MAX_VALUE
+                                ? number.shortValue() : null;
+                    }
+                } ),
+                new Registration( Number.class, Integer.class, new ValueConverter<Number, Integer>() {
+                    @Override
+                    public Integer convert( Number value, Class<? extends Integer> targetType ) {
+                        Long number = TypeConverter.exactLong( value );
+                        return number != null && number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE
+                                ? number.intValue() : null;
+                    }
+                } ),
+                new Registration( Number.class, Long.class, new ValueConverter<Number, Long>() {
+                    @Override
+                    public Long convert( Number value, Class<? extends Long> targetType ) {
+                        return TypeConverter.exactLong( value );
+                    }
+                } ),
+                new Registration( Number.class, Float.class, new ValueConverter<Number, Float>() {
+                    @Override
+                    public Float convert( Number value, Class<? extends Float> targetType ) {
+                        return TypeConverter.isFloat( value.doubleValue() ) ? value.floatValue() : null;
+                    }
+                } ),
+                new Registration( Number.class, Double.class, new ValueConverter<Number, Double>() {
+                    @Override
+                    public Double convert( Number value, Class<? extends Double> targetType ) {
+                        return value.doubleValue();
+                    }
+                } ),
+                new Registration( Number.class, Character.class, new ValueConverter<Number, Character>() {
+                    @Override
+                    public Character convert( Number value, Class<? extends Character> targetType ) {
+                        Long number = TypeConverter.exactLong( value );
+                        return number != null && number >= Character.MIN_VALUE && number <= Character.MAX_VALUE
+                                ? ( char ) number.intValue() : null;
+                    }
+                } ),
+                new Registration( String.class, Number.class, new ValueConverter<String, Number>() {
+                    @Override
+                    public Number convert( String value, Class<? extends Number> targetType ) {
+                        Number number = parseNumber( value.trim() );
+                        return number == null ? null : ( Number ) ValueConverters.convert( number, targetType );
+                    }
+                } ),
+                new Registration( String.class, Enum.class, new ValueConverter<String, Enum<?>>() {
+                    @Override
+                    public Enum<?> convert( String value, Class<? extends Enum<?>> targetType ) {
+                        return enumConstant( targetType, value );
+                    }
+                } ),
+                new Registration( String.class, Class.class, new ValueConverter<String, Class<?>>() {
+                    @Override
+                    public Class<?> convert( String value, Class<? extends Class<?>> targetType ) {
+                        return classForName( value.trim() );
+                    }
+                } ),
+                new Registration( String.class, Character.class, new ValueConverter<String, Character>() {
+                    @Override
+                    public Character convert( String value, Class<? extends Character> targetType ) {
+                        return value.length() == 1 ? value.charAt( 0 ) : null;
+                    }
+                } ),
+                new Registration( String.class, Boolean.class, new ValueConverter<String, Boolean>() {
+                    @Override
+                    public Boolean convert( String value, Class<? extends Boolean> targetType ) {
+                        String text = value.trim();
+                        if ( text.equalsIgnoreCase( "true" ) ) {
+                            return Boolean.TRUE;
+                        }
+                        if ( text.equalsIgnoreCase( "false" ) ) {
+                            return Boolean.FALSE;
+                        }
+                        return null;
+                    }
+                } )
+        };
+    }
+
+    @SuppressWarnings( { "unchecked", "rawtypes" } )
+    private static Enum<?> enumConstant( Class<?> enumType, String name ) {
+        try {
+            return Enum.valueOf( ( Class ) enumType, name );
+        } catch ( IllegalArgumentException e ) {
+            return null;
+        }
+    }
+
+    private static Number parseNumber( String value ) {
+        try {
+            return Long.parseLong( value );
+        } catch ( NumberFormatException e ) {
+            // not an integer
+        }
+        try {
+            return Double.parseDouble( value );
+        } catch ( NumberFormatException e ) {
+            return null;
+        }
+    }
+
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>();
+
+    static {
+        for (Class<?> type : Arrays.<Class<?>>asList( boolean.class, byte.class, char.class, short.class,
+                int.class, long.class, float.class, double.class, void.class )) {
+            PRIMITIVE_TYPES.put( type.getName(), type );
+        }
+    }
+
+    /**
+     * Find a class by name. Names may use the same format used in the String representation of annotations,
+     * e.g. {@code java.lang.String[].class}.
+     */
+    private static Class<?> classForName( String name ) {
+        if ( name.endsWith( ".class" ) ) {
+            name = name.substring( 0, name.length() - ".class".length() );
+        }
+
+        int dimensions = 0;
+        while ( name.endsWith( "[]" ) ) {
+            name = name.substring( 0, name.length() - 2 );
+            dimensions++;
+        }
+
+        Class<?> type = PRIMITIVE_TYPES.get( name );
+
+        if ( type == null ) {
+            ClassLoader loader = Thread.currentThread().getContextClassLoader();
+            try {
+                type = Class.forName( name, false, loader == null ? ValueConverters.class.getClassLoader() : loader );
+            } catch ( ClassNotFoundException | LinkageError e ) {
+                return null;
+            }
+        }
+
+        if ( dimensions > 0 ) {
+            if ( type == void.class ) {
+                return null;
+            }
+            type = Array.newInstance( type, new int[ dimensions ] ).getClass();
+        }
+
+        return type;
+    }
+
+}
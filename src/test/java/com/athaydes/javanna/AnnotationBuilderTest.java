@@ -0,0 +1,199 @@
+package com.athaydes.javanna;
+
+import org.junit.Test;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AnnotationBuilderTest {
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface Server {
+        String name();
+
+        int port();
+
+        long timeout() default 30L;
+
+        String[] aliases() default { };
+
+        double[] weights() default { 1.0 };
+
+        RetentionPolicy policy() default RetentionPolicy.RUNTIME;
+    }
+
+    @Test
+    public void canBuildAnnotationWithTypedSetters() {
+        Server server = Javanna.parseAnnotation( Server.class ).builder()
+                .set( "name", "main" )
+                .set( "port", 8080 )
+                .set( "timeout", 60L )
+                .set( "aliases", new String[]{ "a", "b" } )
+                .set( "weights", new double[]{ 0.5, 2.0 } )
+                .set( "policy", RetentionPolicy.CLASS )
+                .build();
+
+        assertEquals( "main", server.name() );
+        assertEquals( 8080, server.port() );
+        assertEquals( 60L, server.timeout() );
+        assertEquals( Arrays.asList( "a", "b" ), Arrays.asList( server.aliases() ) );
+        assertEquals( Arrays.toString( new double[]{ 0.5, 2.0 } ), Arrays.toString( server.weights() ) );
+        assertEquals( RetentionPolicy.CLASS, server.policy() );
+    }
+
+    @Test
+    public void defaultValuesAreUsedForMembersNotSet() {
+        Server server = Javanna.parseAnnotation( Server.class ).builder()
+                .set( "name", "main" )
+                .set( "port", 8080 )
+                .build();
+
+        assertEquals( Javanna.createAnnotation( Server.class, Javanna.getAnnotationValues( server ) ), server );
+        assertEquals( 30L, server.timeout() );
+        assertEquals( 0, server.aliases().length );
+        assertEquals( RetentionPolicy.RUNTIME, server.policy() );
+    }
+
+    @Test
+    public void valuesOfOtherTypesAreConverted() {
+        Server server = Javanna.parseAnnotation( Server.class ).builder()
+                .set( "name", "main" )
+                .set( "port", ( short ) 80 )
+                .set( "timeout", 5 )
+                .set( "aliases", Arrays.asList( "x", "y" ) )
+                .build();
+
+        assertEquals( 80, server.port() );
+        assertEquals( 5L, server.timeout() );
+        assertEquals( Arrays.asList( "x", "y" ), Arrays.asList( server.aliases() ) );
+    }
+
+    @Test
+    public void builderCanBeReused() {
+        AnnotationBuilder<Server> builder = Javanna.parseAnnotation( Server.class ).builder()
+                .set( "name", "main" )
+                .set( "port", 8080 );
+
+        Server first = builder.build();
+        Server second = builder.set( "port", 9090 ).build();
+
+        assertNotSame( first, second );
+        assertEquals( 8080, first.port() );
+        assertEquals( 9090, second.port() );
+        assertEquals( "main", second.name() );
+    }
+
+    @Test
+    public void arraysAreCopiedWhenSet() {
+        String[] aliases = { "a" };
+        AnnotationBuilder<Server> builder = Javanna.parseAnnotation( Server.class ).builder()
+                .set( "name", "main" )
+                .set( "port", 8080 )
+                .set( "aliases", aliases );
+
+        aliases[ 0 ] = "changed";
+
+        assertEquals( "a", builder.build().aliases()[ 0 ] );
+    }
+
+    @Test
+    public void ownedArraysAreUsedOrConverted() {
+        AnnotationBuilder<Server> builder = Javanna.parseAnnotation( Server.class ).builder()
+                .set( "name", "main" )
+                .set( "port", 8080 )
+                .setOwned( "aliases", new String[]{ "a", "b" } )
+                .setOwned( "weights", new int[]{ 2, 3 } );
+
+        Server server = builder.build();
+
+        assertEquals( Arrays.asList( "a", "b" ), Arrays.asList( server.aliases() ) );
+        assertTrue( Arrays.equals( new double[]{ 2.0, 3.0 }, server.weights() ) );
+    }
+
+    @Test
+    public void ownedArraysWithNullItemsAreRejected() {
+        try {
+            Javanna.parseAnnotation( Server.class ).builder()
+                    .set( "name", "main" )
+                    .set( "port", 8080 )
+                    .setOwned( "aliases", new String[]{ "a", null } )
+                    .build();
+            fail( "Should not be able to build annotation with null array items" );
+        } catch ( IllegalArgumentException e ) {
+            assertTrue( e.getMessage(), e.getMessage().contains( "member 'aliases[1]' contains illegal null item." ) );
+        }
+    }
+
+    @Test
+    public void resetRemovesAllValues() {
+        AnnotationBuilder<Server> builder = Javanna.parseAnnotation( Server.class ).builder()
+                .set( "name", "main" )
+                .set( "port", 8080 )
+                .set( "timeout", 1L );
+
+        Server server = builder.reset().set( "name", "other" ).set( "port", 1 ).build();
+
+        assertEquals( "other", server.name() );
+        assertEquals( 30L, server.timeout() );
+    }
+
+    @Test
+    public void arraysSetAsObjectsAreCopied() {
+        Object aliases = new Object[]{ "a", "b" };
+        AnnotationBuilder<Server> builder = Javanna.parseAnnotation( Server.class ).builder()
+                .set( "name", "main" )
+                .set( "port", 8080 )
+                .set( "aliases", aliases );
+
+        ( ( Object[] ) aliases )[ 0 ] = "changed";
+
+        assertEquals( Arrays.asList( "a", "b" ), Arrays.asList( builder.build().aliases() ) );
+    }
+
+    @Test
+    public void cannotSetNonExistingMember() {
+        try {
+            Javanna.parseAnnotation( Server.class ).builder().set( "host", "localhost" );
+            fail( "Should not be able to set non-existing member" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "Not a member of annotation [com.athaydes.javanna.AnnotationBuilderTest$Server]: host",
+                    e.getMessage() );
+        }
+    }
+
+    @Test
+    public void cannotBuildWithoutMandatoryValues() {
+        try {
+            Javanna.parseAnnotation( Server.class ).builder().set( "timeout", 10L ).build();
+            fail( "Should not be able to build annotation without mandatory values" );
+        } catch ( IllegalArgumentException e ) {
+            String message = e.getMessage();
+            assertTrue( message.startsWith( "Missing values for mandatory annotation members " +
+                    "[com.athaydes.javanna.AnnotationBuilderTest$Server]: [" ) );
+            assertTrue( message.contains( "name" ) );
+            assertTrue( message.contains( "port" ) );
+        }
+    }
+
+    @Test
+    public void cannotBuildWithInvalidValues() {
+        try {
+            Javanna.parseAnnotation( Server.class ).builder()
+                    .set( "name", 10 )
+                    .set( "port", 8080 )
+                    .build();
+            fail( "Should not be able to build annotation with invalid values" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "Errors:\n" +
+                    "* member 'name' has invalid type. Expected: java.lang.String. Found: java.lang.Integer.",
+                    e.getMessage() );
+        }
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.athaydes.javanna;
+
+import org.junit.Test;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AnnotationFactoryTest {
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface Server {
+        String name();
+
+        int port();
+
+        String host() default "localhost";
+
+        long[] timeouts() default { 10L };
+    }
+
+    @Test
+    public void factoryIsCreatedOnlyOnce() {
+        JavaAnnotation<Server> annotation = Javanna.parseAnnotation( Server.class );
+
+        assertSame( annotation.factory(), annotation.factory() );
+        assertSame( annotation, annotation.factory().getAnnotation() );
+    }
+
+    @Test
+    public void canCreateAnnotationWithFactory() {
+        AnnotationFactory<Server> factory = Javanna.parseAnnotation( Server.class ).factory();
+
+        Server server = factory.create( new LinkedHashMap<String, Object>() {{
+            put( "name", "main" );
+            put( "port", 8080L );
+        }} );
+
+        assertEquals( "main", server.name() );
+        assertEquals( 8080, server.port() );
+        assertEquals( "localhost", server.host() );
+        assertEquals( 10L, server.timeouts()[ 0 ] );
+    }
+
+    @Test
+    public void allMissingMandatoryMembersAreReported() {
+        AnnotationFactory<Server> factory = Javanna.parseAnnotation( Server.class ).factory();
+
+        try {
+            factory.create( Collections.singletonMap( "host", "example.com" ) );
+            fail( "Should not be able to create annotation without mandatory values" );
+        } catch ( IllegalArgumentException e ) {
+            String message = e.getMessage();
+            String expectedPrefix = "Missing values for mandatory annotation members " +
+                    "[com.athaydes.javanna.AnnotationFactoryTest$Server]: [";
+            assertEquals( expectedPrefix, message.substring( 0, expectedPrefix.length() ) );
+            assertTrue( message.contains( "name" ) );
+            assertTrue( message.contains( "port" ) );
+        }
+    }
+
+    @Test
+    public void missingMembersAreReportedBeforeNonExistingMembers() {
+        AnnotationFactory<Server> factory = Javanna.parseAnnotation( Server.class ).factory();
+
+        try {
+            factory.create( new LinkedHashMap<String, Object>() {{
+                put( "name", "main" );
+                put( "other", true );
+            }} );
+            fail( "Should not be able to create annotation without mandatory values" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "Missing values for mandatory annotation members " +
+                    "[com.athaydes.javanna.AnnotationFactoryTest$Server]: [port]", e.getMessage() );
+        }
+    }
+
+    @Test
+    public void allInvalidValuesAreReported() {
+        AnnotationFactory<Server> factory = Javanna.parseAnnotation( Server.class ).factory();
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put( "name", 10 );
+        values.put( "port", "eighty" );
+
+        try {
+            factory.create( values );
+            fail( "Should not be able to create annotation with invalid values" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "Errors:\n" +
+                    "* member 'name' has invalid type. Expected: java.lang.String. Found: java.lang.Integer.\n" +
+                    "* member 'port' has invalid type. Expected: java.lang.Integer. Found: java.lang.String.",
+                    e.getMessage() );
+        }
+    }
+
+    @Test
+    public void canCreateBatchOfAnnotationsReportingErrorsByIndex() {
+        AnnotationFactory<Server> factory = Javanna.parseAnnotation( Server.class ).factory();
+
+        List<Map<String, Object>> batch = new ArrayList<>();
+        batch.add( serverValues( "a", 1 ) );
+        batch.add( Collections.<String, Object>singletonMap( "name", "b" ) );
+        batch.add( serverValues( "c", 3 ) );
+
+        BatchResult<Server> result = factory.createAll( batch );
+
+        assertEquals( 3, result.size() );
+        assertTrue( result.hasErrors() );
+        assertEquals( "a", result.getAnnotations().get( 0 ).name() );
+        assertNull( result.getAnnotations().get( 1 ) );
+        assertEquals( "c", result.getAnnotations().get( 2 ).name() );
+        assertEquals( Collections.singleton( 1 ), result.getErrors().keySet() );
+        assertEquals( "Missing values for mandatory annotation members " +
+                "[com.athaydes.javanna.AnnotationFactoryTest$Server]: [port]", result.getErrors().get( 1 ).getMessage() );
+    }
+
+    @Test
+    public void canCreateLargeBatchOfAnnotationsInParallel() {
+        AnnotationFactory<Server> factory = Javanna.parseAnnotation( Server.class ).factory();
+
+        List<Map<String, Object>> batch = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            batch.add( i % 1000 == 999
+                    ? Collections.<String, Object>singletonMap( "port", i )
+                    : serverValues( "server-" + i, i ) );
+        }
+
+        BatchResult<Server> result = factory.createAllParallel( batch );
+
+        assertEquals( 5000, result.size() );
+        assertEquals( 5, result.getErrors().size() );
+        for (int i = 0; i < 5000; i++) {
+            Server server = result.getAnnotations().get( i );
+            if ( i % 1000 == 999 ) {
+                assertNull( server );
+                assertTrue( result.getErrors().containsKey( i ) );
+            } else {
+                assertEquals( "server-" + i, server.name() );
+                assertEquals( i, server.port() );
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void unexpectedErrorsInBatchAreReportedByIndex() {
+        AnnotationFactory<Server> factory = Javanna.parseAnnotation( Server.class ).factory();
+
+        Map<Object, Object> nonStringKeys = new LinkedHashMap<>();
+        nonStringKeys.put( 1, "name" );
+
+        List<Map<String, Object>> batch = new ArrayList<>();
+        batch.add( ( Map<String, Object> ) ( Map<?, ?> ) nonStringKeys );
+        batch.add( serverValues( "b", 2 ) );
+        batch.add( null );
+
+        BatchResult<Server> result = factory.createAll( batch );
+
+        assertEquals( "b", result.getAnnotations().get( 1 ).name() );
+        assertEquals( 2, result.getErrors().size() );
+        assertTrue( result.getErrors().get( 0 ).getCause() instanceof ClassCastException );
+        assertTrue( result.getErrors().get( 2 ).getCause() instanceof NullPointerException );
+        assertTrue( result.getErrors().get( 2 ).getMessage().startsWith( "Unable to create annotation " +
+                "[com.athaydes.javanna.AnnotationFactoryTest$Server]: java.lang.NullPointerException" ) );
+    }
+
+    @Test
+    public void batchWithoutErrorsHasNoErrors() {
+        BatchResult<Server> result = Javanna.parseAnnotation( Server.class )
+                .createAll( Collections.singletonList( serverValues( "a", 1 ) ) );
+
+        assertFalse( result.hasErrors() );
+        assertTrue( result.getErrors().isEmpty() );
+        assertEquals( 1, result.getAnnotations().size() );
+    }
+
+    private static Map<String, Object> serverValues( String name, int port ) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put( "name", name );
+        values.put( "port", port );
+        return values;
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.athaydes.javanna;
+
+import org.junit.Test;
+
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class AnnotationInternerTest {
+
+    private final JavaAnnotation<JavannaTest.Simple> simpleAnnotation =
+            Javanna.parseAnnotation( JavannaTest.Simple.class );
+
+    @Test
+    public void equalAnnotationsAreInternedToTheSameInstance() {
+        AnnotationInterner interner = new AnnotationInterner();
+
+        JavannaTest.Simple first = simpleAnnotation.create( Collections.singletonMap( "value", "a" ), interner );
+        JavannaTest.Simple second = simpleAnnotation.create( Collections.singletonMap( "value", "a" ), interner );
+        JavannaTest.Simple third = Javanna.createAnnotation( simpleAnnotation,
+                Collections.singletonMap( "value", "a" ), interner );
+
+        assertSame( first, second );
+        assertSame( first, third );
+        assertEquals( 1, interner.size() );
+    }
+
+    @Test
+    public void differentAnnotationsAreNotInternedToTheSameInstance() {
+        AnnotationInterner interner = new AnnotationInterner();
+
+        JavannaTest.Simple first = simpleAnnotation.create( Collections.singletonMap( "value", "a" ), interner );
+        JavannaTest.Simple second = simpleAnnotation.create( Collections.singletonMap( "value", "b" ), interner );
+
+        assertNotSame( first, second );
+        assertEquals( "a", first.value() );
+        assertEquals( "b", second.value() );
+        assertEquals( 2, interner.size() );
+    }
+
+    @JavannaTest.Simple( "jvm" )
+    @Test
+    public void jvmAnnotationsCanBeInterned() throws Exception {
+        AnnotationInterner interner = new AnnotationInterner();
+
+        Annotation jvmAnnotation = getClass().getMethod( "jvmAnnotationsCanBeInterned" )
+                .getAnnotation( JavannaTest.Simple.class );
+
+        assertSame( jvmAnnotation, interner.intern( jvmAnnotation ) );
+        assertSame( jvmAnnotation, simpleAnnotation.create( Collections.singletonMap( "value", "jvm" ), interner ) );
+    }
+
+    @Test
+    public void internerNeverExceedsItsMaximumSize() {
+        AnnotationInterner interner = new AnnotationInterner( 10 );
+
+        for (int i = 0; i < 100; i++) {
+            simpleAnnotation.create( Collections.singletonMap( "value", "value-" + i ), interner );
+        }
+
+        assertEquals( 10, interner.size() );
+    }
+
+    @Test
+    public void segmentedInternerNeverExceedsItsMaximumSize() {
+        AnnotationInterner interner = new AnnotationInterner( 1000 );
+
+        for (int i = 0; i < 10_000; i++) {
+            simpleAnnotation.create( Collections.singletonMap( "value", "value-" + i ), interner );
+        }
+
+        assertEquals( 1000, interner.size() );
+        JavannaTest.Simple last = simpleAnnotation.create( Collections.singletonMap( "value", "value-9999" ), interner );
+        assertSame( last, simpleAnnotation.create( Collections.singletonMap( "value", "value-9999" ), interner ) );
+    }
+
+    @Test
+    public void leastRecentlyUsedAnnotationIsEvicted() {
+        AnnotationInterner interner = new AnnotationInterner( 2 );
+
+        JavannaTest.Simple a = simpleAnnotation.create( Collections.singletonMap( "value", "a" ), interner );
+        JavannaTest.Simple b = simpleAnnotation.create( Collections.singletonMap( "value", "b" ), interner );
+        assertSame( a, simpleAnnotation.create( Collections.singletonMap( "value", "a" ), interner ) );
+        JavannaTest.Simple c = simpleAnnotation.create( Collections.singletonMap( "value", "c" ), interner );
+
+        assertEquals( 2, interner.size() );
+        assertSame( a, simpleAnnotation.create( Collections.singletonMap( "value", "a" ), interner ) );
+        assertSame( c, simpleAnnotation.create( Collections.singletonMap( "value", "c" ), interner ) );
+        assertNotSame( b, simpleAnnotation.create( Collections.singletonMap( "value", "b" ), interner ) );
+    }
+
+    @Test
+    public void internerCanBeCleared() {
+        AnnotationInterner interner = new AnnotationInterner();
+
+        JavannaTest.Simple first = simpleAnnotation.create( Collections.singletonMap( "value", "a" ), interner );
+
+        interner.clear();
+
+        assertEquals( 0, interner.size() );
+        assertNotSame( first, simpleAnnotation.create( Collections.singletonMap( "value", "a" ), interner ) );
+    }
+
+    @Test
+    public void internerMaximumSizeMustBePositive() {
+        try {
+            new AnnotationInterner( 0 );
+            fail( "Should have failed" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "maxSize must be positive: 0", e.getMessage() );
+        }
+    }
+
+}
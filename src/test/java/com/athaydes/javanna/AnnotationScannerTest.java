@@ -0,0 +1,185 @@
+package com.athaydes.javanna;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static com.athaydes.javanna.ClassFileAnnotationReaderTest.classFileOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AnnotationScannerTest {
+
+    private Path tempDir;
+
+    @Before
+    public void createTempDir() throws IOException {
+        tempDir = Files.createTempDirectory( "javanna-scanner-test" );
+    }
+
+    @After
+    public void deleteTempDir() throws IOException {
+        Files.walkFileTree( tempDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile( Path file, BasicFileAttributes attributes ) throws IOException {
+                Files.delete( file );
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory( Path dir, IOException e ) throws IOException {
+                Files.delete( dir );
+                return FileVisitResult.CONTINUE;
+            }
+        } );
+    }
+
+    @Test
+    public void canScanDirectoriesAndJars() throws IOException {
+        Path classes = createClassesDir();
+        Path jar = createJar();
+
+        ScanResult result = new AnnotationScanner().scan( classes, jar, tempDir.resolve( "does-not-exist" ) );
+
+        assertTrue( result.getErrors().isEmpty() );
+        assertEquals( 3, result.getScannedCount() );
+        assertEquals( 0, result.getReusedCount() );
+
+        List<ClassFileAnnotations> annotated = result.getClasses();
+        assertEquals( 2, annotated.size() );
+        assertEquals( ClassFileAnnotationReaderTest.Annotated.class.getName(), annotated.get( 0 ).getClassName() );
+        assertEquals( ClassFileAnnotationReaderTest.Annotated.class.getName(), annotated.get( 1 ).getClassName() );
+
+        assertEquals( 2, result.getClassesUsing( ClassFileAnnotationReaderTest.Marker.class.getName() ).size() );
+        assertEquals( 0, result.getClassesUsing( Deprecated.class.getName() ).size() );
+    }
+
+    @Test
+    public void indexIsReusedForUnchangedFiles() throws IOException {
+        Path classes = createClassesDir();
+        Path jar = createJar();
+        Path indexFile = tempDir.resolve( "index" ).resolve( "annotations.idx" );
+
+        ScanResult first = new AnnotationScanner( indexFile ).scan( classes, jar );
+
+        assertTrue( Files.isRegularFile( indexFile ) );
+        assertEquals( 3, first.getScannedCount() );
+
+        ScanResult second = new AnnotationScanner( indexFile ).scan( classes, jar );
+
+        assertEquals( 0, second.getScannedCount() );
+        assertEquals( 3, second.getReusedCount() );
+        assertEquals( first.getClasses().toString(), second.getClasses().toString() );
+        assertEquals( first.getClasses().get( 0 ).getClassAnnotations(), second.getClasses().get( 0 ).getClassAnnotations() );
+
+        // changing a jar invalidates only its entry
+        Files.setLastModifiedTime( jar, FileTime.fromMillis( Files.getLastModifiedTime( jar ).toMillis() - 10_000L ) );
+
+        ScanResult third = new AnnotationScanner( indexFile ).scan( classes, jar );
+
+        assertEquals( 1, third.getScannedCount() );
+        assertEquals( 2, third.getReusedCount() );
+        assertEquals( first.getClasses().toString(), third.getClasses().toString() );
+    }
+
+    @Test
+    public void reusedAnnotationsCanBeInstantiated() throws IOException {
+        Path indexFile = tempDir.resolve( "annotations.idx" );
+        Path jar = createJar();
+
+        new AnnotationScanner( indexFile ).scan( jar );
+        ScanResult result = new AnnotationScanner( indexFile ).scan( jar );
+
+        assertEquals( 1, result.getReusedCount() );
+        AnnotationData everything = result.getClasses().get( 0 ).getClassAnnotations().get( 0 );
+        assertEquals( ClassFileAnnotationReaderTest.Annotated.class.getAnnotation( ClassFileAnnotationReaderTest.Everything.class ),
+                everything.create( ClassFileAnnotationReaderTest.Everything.class ) );
+    }
+
+    @Test
+    public void corruptIndexIsRebuilt() throws IOException {
+        Path indexFile = tempDir.resolve( "annotations.idx" );
+        Path jar = createJar();
+
+        new AnnotationScanner( indexFile ).scan( jar );
+
+        // a huge entry count must not be trusted
+        byte[] index = Files.readAllBytes( indexFile );
+        ByteBuffer.wrap( index ).putInt( 8, 0x3FFFFFFF );
+        Files.write( indexFile, index );
+
+        ScanResult result = new AnnotationScanner( indexFile ).scan( jar );
+
+        assertEquals( 1, result.getScannedCount() );
+        assertEquals( 0, result.getReusedCount() );
+        assertEquals( 1, new AnnotationScanner( indexFile ).scan( jar ).getReusedCount() );
+    }
+
+    @Test
+    public void invalidClassFilesAreReportedAsErrors() throws IOException {
+        Path invalid = tempDir.resolve( "Invalid.class" );
+        Files.write( invalid, new byte[]{ 1, 2, 3 } );
+
+        ScanResult result = new AnnotationScanner().scan( invalid );
+
+        assertEquals( 1, result.getErrors().size() );
+        assertTrue( result.getClasses().isEmpty() );
+    }
+
+    @Test
+    public void invalidJarEntriesAreReportedWithAllOtherEntries() throws IOException {
+        Path jar = tempDir.resolve( "big.jar" );
+        int entryCount = 300;
+        try ( OutputStream out = Files.newOutputStream( jar );
+              ZipOutputStream zip = new ZipOutputStream( out ) ) {
+            for (int i = 0; i < entryCount; i++) {
+                zip.putNextEntry( new ZipEntry( "com/athaydes/Annotated" + i + ".class" ) );
+                zip.write( i == 200 ? new byte[]{ 1, 2, 3 } : classFileOf( ClassFileAnnotationReaderTest.Annotated.class ) );
+                zip.closeEntry();
+            }
+        }
+
+        ScanResult result = new AnnotationScanner( null, 4 ).scan( jar );
+
+        assertEquals( 1, result.getErrors().size() );
+        assertTrue( result.getErrors().keySet().iterator().next().endsWith( "big.jar!/com/athaydes/Annotated200.class" ) );
+        assertEquals( entryCount - 1, result.getClasses().size() );
+    }
+
+    private Path createClassesDir() throws IOException {
+        Path dir = Files.createDirectories( tempDir.resolve( "classes" ).resolve( "com" ).resolve( "athaydes" ) );
+        Files.write( dir.resolve( "Annotated.class" ), classFileOf( ClassFileAnnotationReaderTest.Annotated.class ) );
+        Files.write( dir.resolve( "NotAnnotated.class" ), classFileOf( AnnotationScanner.class ) );
+        return tempDir.resolve( "classes" );
+    }
+
+    private Path createJar() throws IOException {
+        Path jar = tempDir.resolve( "test.jar" );
+        try ( OutputStream out = Files.newOutputStream( jar );
+              ZipOutputStream zip = new ZipOutputStream( out ) ) {
+            zip.putNextEntry( new ZipEntry( "com/athaydes/" ) );
+            zip.closeEntry();
+            zip.putNextEntry( new ZipEntry( "com/athaydes/Annotated.class" ) );
+            zip.write( classFileOf( ClassFileAnnotationReaderTest.Annotated.class ) );
+            zip.closeEntry();
+            zip.putNextEntry( new ZipEntry( "META-INF/MANIFEST.MF" ) );
+            zip.write( "Manifest-Version: 1.0\n".getBytes( "UTF-8" ) );
+            zip.closeEntry();
+        }
+        return jar;
+    }
+
+}
@@ -0,0 +1,198 @@
+package com.athaydes.javanna;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ClassFileAnnotationReaderTest {
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface Marker {
+        String value();
+    }
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface Everything {
+        boolean z() default false;
+
+        byte b() default 0;
+
+        char c() default 'a';
+
+        short s() default 0;
+
+        int i() default 0;
+
+        long l() default 0L;
+
+        float f() default 0f;
+
+        double d() default 0.0;
+
+        String string() default "";
+
+        Class<?> type() default Object.class;
+
+        RetentionPolicy policy() default RetentionPolicy.SOURCE;
+
+        Marker marker() default @Marker( "default" );
+
+        int[] ints() default { };
+
+        String[] strings() default { };
+
+        RetentionPolicy[] policies() default { };
+
+        Class<?>[] types() default { };
+
+        Marker[] markers() default { };
+    }
+
+    @Retention( RetentionPolicy.CLASS )
+    @interface Invisible {
+    }
+
+    @Everything( z = true, b = 1, c = 'é', s = 2, i = 3, l = 4L, f = 5.5f, d = 6.5,
+            string = "Hello ☃", type = String[].class, policy = RetentionPolicy.RUNTIME,
+            marker = @Marker( "inner" ), ints = { 7, 8 }, strings = { "x", "y" },
+            policies = { RetentionPolicy.CLASS, RetentionPolicy.SOURCE }, types = { int.class, Map.class },
+            markers = { @Marker( "m1" ), @Marker( "m2" ) } )
+    @Invisible
+    static class Annotated {
+        @Marker( "field" )
+        String field;
+
+        String notAnnotated;
+
+        @Marker( "constructor" )
+        Annotated() {
+        }
+
+        @Marker( "method" )
+        void run( String arg ) {
+        }
+    }
+
+    @Test
+    public void canReadAnnotationsOfClassFieldsAndMethods() throws IOException {
+        ClassFileAnnotations annotations = ClassFileAnnotationReader.read( classFileOf( Annotated.class ) );
+
+        assertEquals( Annotated.class.getName(), annotations.getClassName() );
+        assertEquals( 1, annotations.getClassAnnotations().size() );
+        assertEquals( Everything.class.getName(), annotations.getClassAnnotations().get( 0 ).getTypeName() );
+
+        assertEquals( Collections.singleton( "field" ), annotations.getFieldAnnotations().keySet() );
+        assertEquals( "field", annotations.getFieldAnnotations().get( "field" ).get( 0 ).getValues().get( "value" ) );
+
+        Map<String, List<AnnotationData>> methodAnnotations = annotations.getMethodAnnotations();
+        assertEquals( 2, methodAnnotations.size() );
+        assertEquals( "constructor", methodAnnotations.get( "<init>()V" ).get( 0 ).getValues().get( "value" ) );
+        assertEquals( "method", methodAnnotations.get( "run(Ljava/lang/String;)V" ).get( 0 ).getValues().get( "value" ) );
+    }
+
+    @Test
+    public void valuesAreReadWithoutLoadingClasses() throws IOException {
+        AnnotationData everything = ClassFileAnnotationReader.read( classFileOf( Annotated.class ) )
+                .getClassAnnotations().get( 0 );
+
+        Map<String, Object> values = everything.getValues();
+
+        assertEquals( true, values.get( "z" ) );
+        assertEquals( ( byte ) 1, values.get( "b" ) );
+        assertEquals( 'é', values.get( "c" ) );
+        assertEquals( ( short ) 2, values.get( "s" ) );
+        assertEquals( 3, values.get( "i" ) );
+        assertEquals( 4L, values.get( "l" ) );
+        assertEquals( 5.5f, values.get( "f" ) );
+        assertEquals( 6.5, values.get( "d" ) );
+        assertEquals( "Hello ☃", values.get( "string" ) );
+        assertEquals( "java.lang.String[]", values.get( "type" ) );
+        assertEquals( "RUNTIME", values.get( "policy" ) );
+        assertEquals( Collections.singletonMap( "value", "inner" ), values.get( "marker" ) );
+        assertArrayEquals( new int[]{ 7, 8 }, ( int[] ) values.get( "ints" ) );
+        assertArrayEquals( new String[]{ "x", "y" }, ( String[] ) values.get( "strings" ) );
+        assertEquals( Arrays.asList( "CLASS", "SOURCE" ), Arrays.asList( ( Object[] ) values.get( "policies" ) ) );
+        assertEquals( Arrays.asList( "int", "java.util.Map" ), Arrays.asList( ( Object[] ) values.get( "types" ) ) );
+    }
+
+    @Test
+    public void createdAnnotationIsEqualToTheCompiledAnnotation() throws IOException {
+        AnnotationData everything = ClassFileAnnotationReader.read( ByteBuffer.wrap( classFileOf( Annotated.class ) ) )
+                .getClassAnnotations().get( 0 );
+
+        Everything created = everything.create( Everything.class );
+
+        assertEquals( Annotated.class.getAnnotation( Everything.class ), created );
+        assertEquals( "m2", created.markers()[ 1 ].value() );
+    }
+
+    @Test
+    public void classWithoutAnnotationsHasNoAnnotations() throws IOException {
+        ClassFileAnnotations annotations = ClassFileAnnotationReader.read( classFileOf( ClassFileAnnotationReader.class ) );
+
+        assertTrue( annotations.isEmpty() );
+    }
+
+    @Test
+    public void cannotCreateAnnotationOfAnotherType() throws IOException {
+        AnnotationData everything = ClassFileAnnotationReader.read( classFileOf( Annotated.class ) )
+                .getClassAnnotations().get( 0 );
+        try {
+            everything.create( Marker.class );
+            fail( "Should not be able to create annotation of another type" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "Annotation type mismatch. Expected: com.athaydes.javanna.ClassFileAnnotationReaderTest$Everything. " +
+                    "Found: com.athaydes.javanna.ClassFileAnnotationReaderTest$Marker.", e.getMessage() );
+        }
+    }
+
+    @Test
+    public void cannotReadInvalidClassFile() {
+        try {
+            ClassFileAnnotationReader.read( new byte[]{ ( byte ) 0xCA, ( byte ) 0xFE, ( byte ) 0xBA, ( byte ) 0xBE, 0, 0 } );
+            fail( "Should not be able to read invalid class file" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "Not a valid class file: unexpected end of class file", e.getMessage() );
+        }
+    }
+
+    @Test
+    public void errorsInTruncatedClassFileNameTheClass() throws IOException {
+        byte[] classFile = classFileOf( Annotated.class );
+        try {
+            ClassFileAnnotationReader.read( Arrays.copyOf( classFile, classFile.length - 4 ) );
+            fail( "Should not be able to read truncated class file" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "Not a valid class file of com.athaydes.javanna.ClassFileAnnotationReaderTest$Annotated: " +
+                    "unexpected end of class file", e.getMessage() );
+        }
+    }
+
+    static byte[] classFileOf( Class<?> type ) throws IOException {
+        String name = type.getName();
+        try ( InputStream stream = type.getResourceAsStream( name.substring( name.lastIndexOf( '.' ) + 1 ) + ".class" ) ) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[ 4096 ];
+            int count;
+            while ( ( count = stream.read( buffer ) ) > 0 ) {
+                out.write( buffer, 0, count );
+            }
+            return out.toByteArray();
+        }
+    }
+
+}
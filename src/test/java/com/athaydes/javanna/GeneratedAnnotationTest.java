@@ -0,0 +1,209 @@
+package com.athaydes.javanna;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GeneratedAnnotationTest {
+
+    @Retention( RetentionPolicy.RUNTIME )
+    public @interface Simple {
+        String value();
+    }
+
+    @Retention( RetentionPolicy.RUNTIME )
+    public @interface AllTypes {
+        boolean z() default true;
+
+        byte b() default 1;
+
+        char c() default 'c';
+
+        short s() default 2;
+
+        int i() default 3;
+
+        long l() default 4L;
+
+        float f() default 5.0f;
+
+        double d() default 6.0;
+
+        String string() default "str";
+
+        Class<?> type() default String.class;
+
+        RetentionPolicy policy() default RetentionPolicy.CLASS;
+
+        Simple simple() default @Simple( "simple" );
+
+        int[] ints() default { 1, 2 };
+
+        String[] strings() default { "a", "b" };
+
+        Simple[] simples() default { };
+    }
+
+    @Before
+    public void setup() {
+        Javanna.setEngine( Javanna.Engine.GENERATED );
+    }
+
+    @After
+    public void cleanup() {
+        Javanna.setEngine( Javanna.Engine.PROXY );
+    }
+
+    @Test
+    public void createsInstancesOfGeneratedClass() {
+        Simple simple = Javanna.createAnnotation( Simple.class, Collections.singletonMap( "value", "hi" ) );
+
+        assertTrue( simple instanceof GeneratedAnnotation );
+        assertFalse( Proxy.isProxyClass( simple.getClass() ) );
+        assertEquals( "hi", simple.value() );
+        assertEquals( Simple.class, simple.annotationType() );
+    }
+
+    @Test
+    public void allInstancesOfAnnotationTypeShareTheSameClass() {
+        Simple simple1 = Javanna.createAnnotation( Simple.class, Collections.singletonMap( "value", "hi" ) );
+        Simple simple2 = Javanna.createAnnotation( Simple.class, Collections.singletonMap( "value", "bye" ) );
+
+        assertSame( simple1.getClass(), simple2.getClass() );
+    }
+
+    @Test
+    public void canCreateAnnotationWithDefaultValuesOfAllTypes() {
+        AllTypes allTypes = Javanna.createAnnotation( AllTypes.class, Collections.<String, Object>emptyMap() );
+
+        assertTrue( allTypes instanceof GeneratedAnnotation );
+        assertEquals( true, allTypes.z() );
+        assertEquals( 1, allTypes.b() );
+        assertEquals( 'c', allTypes.c() );
+        assertEquals( 2, allTypes.s() );
+        assertEquals( 3, allTypes.i() );
+        assertEquals( 4L, allTypes.l() );
+        assertEquals( 5.0f, allTypes.f(), 0.0f );
+        assertEquals( 6.0, allTypes.d(), 0.0 );
+        assertEquals( "str", allTypes.string() );
+        assertEquals( String.class, allTypes.type() );
+        assertEquals( RetentionPolicy.CLASS, allTypes.policy() );
+        assertEquals( "simple", allTypes.simple().value() );
+        assertEquals( Arrays.toString( new int[]{ 1, 2 } ), Arrays.toString( allTypes.ints() ) );
+        assertEquals( Arrays.asList( "a", "b" ), Arrays.asList( allTypes.strings() ) );
+        assertEquals( 0, allTypes.simples().length );
+    }
+
+    @Test
+    public void canCreateAnnotationWithValuesOfAllTypes() {
+        final Simple simple = Javanna.createAnnotation( Simple.class, Collections.singletonMap( "value", "other" ) );
+
+        AllTypes allTypes = Javanna.createAnnotation( AllTypes.class, new HashMap<String, Object>() {{
+            put( "z", false );
+            put( "b", ( byte ) 10 );
+            put( "c", 'z' );
+            put( "s", ( short ) 20 );
+            put( "i", 30 );
+            put( "l", 40L );
+            put( "f", 50.5f );
+            put( "d", 60.5 );
+            put( "string", "text" );
+            put( "type", Integer.class );
+            put( "policy", RetentionPolicy.RUNTIME );
+            put( "simple", simple );
+            put( "ints", new int[]{ 7, 8, 9 } );
+            put( "strings", new String[]{ "x" } );
+            put( "simples", new Simple[]{ simple, simple } );
+        }} );
+
+        assertEquals( false, allTypes.z() );
+        assertEquals( 10, allTypes.b() );
+        assertEquals( 'z', allTypes.c() );
+        assertEquals( 20, allTypes.s() );
+        assertEquals( 30, allTypes.i() );
+        assertEquals( 40L, allTypes.l() );
+        assertEquals( 50.5f, allTypes.f(), 0.0f );
+        assertEquals( 60.5, allTypes.d(), 0.0 );
+        assertEquals( "text", allTypes.string() );
+        assertEquals( Integer.class, allTypes.type() );
+        assertEquals( RetentionPolicy.RUNTIME, allTypes.policy() );
+        assertSame( simple, allTypes.simple() );
+        assertEquals( Arrays.toString( new int[]{ 7, 8, 9 } ), Arrays.toString( allTypes.ints() ) );
+        assertEquals( Arrays.asList( "x" ), Arrays.asList( allTypes.strings() ) );
+        assertEquals( Arrays.asList( simple, simple ), Arrays.asList( allTypes.simples() ) );
+    }
+
+    @Test
+    public void generatedAnnotationArraysShouldNeverBeModified() {
+        AllTypes allTypes = Javanna.createAnnotation( AllTypes.class, Collections.<String, Object>emptyMap() );
+
+        allTypes.ints()[ 0 ] = 100;
+        allTypes.strings()[ 0 ] = "z";
+
+        assertEquals( 1, allTypes.ints()[ 0 ] );
+        assertEquals( "a", allTypes.strings()[ 0 ] );
+    }
+
+    @Simple( "jvm" )
+    @Test
+    public void generatedAnnotationEqualsOtherImplementations() throws Exception {
+        Annotation jvmAnnotation = getClass().getMethod( "generatedAnnotationEqualsOtherImplementations" )
+                .getAnnotation( Simple.class );
+        Simple generated = Javanna.createAnnotation( Simple.class, Collections.singletonMap( "value", "jvm" ) );
+
+        Javanna.setEngine( Javanna.Engine.PROXY );
+        Simple proxy = Javanna.createAnnotation( Simple.class, Collections.singletonMap( "value", "jvm" ) );
+
+        assertTrue( Proxy.isProxyClass( proxy.getClass() ) );
+
+        assertTrue( generated.equals( jvmAnnotation ) );
+        assertTrue( jvmAnnotation.equals( generated ) );
+        assertEquals( jvmAnnotation.hashCode(), generated.hashCode() );
+        assertTrue( generated.equals( proxy ) );
+        assertTrue( proxy.equals( generated ) );
+        assertEquals( proxy.hashCode(), generated.hashCode() );
+        assertEquals( proxy.toString(), generated.toString() );
+    }
+
+    @Test
+    public void generatedAnnotationValuesCanBeRead() {
+        Simple simple = Javanna.createAnnotation( Simple.class, Collections.singletonMap( "value", "hi" ) );
+
+        assertEquals( Collections.singletonMap( "value", "hi" ), Javanna.getAnnotationValues( simple ) );
+    }
+
+    @Test
+    public void nonPublicAnnotationsFallBackToProxies() {
+        JavannaTest.HasArrays hasArrays = Javanna.createAnnotation( JavannaTest.HasArrays.class,
+                new LinkedHashMap<String, Object>() {{
+                    put( "numbers", new int[]{ 4, 5 } );
+                    put( "names", new String[ 0 ] );
+                }} );
+
+        assertTrue( Proxy.isProxyClass( hasArrays.getClass() ) );
+        assertEquals( 5, hasArrays.numbers()[ 1 ] );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void subclassesCannotBeCreatedWithoutTheToken() {
+        Simple simple = Javanna.createAnnotation( Simple.class, Collections.singletonMap( "value", "hi" ) );
+
+        new GeneratedAnnotation( ( ( GeneratedAnnotation ) simple ).getHandler(), null ) {
+        };
+    }
+
+}
@@ -8,9 +8,11 @@ import java.lang.annotation.RetentionPolicy;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class JavaAnnotationTest {
@@ -22,6 +24,27 @@ public class JavaAnnotationTest {
         String language() default "english";
     }
 
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface PrimitiveArrays {
+        boolean[] booleans() default { true };
+
+        byte[] bytes() default { 1 };
+
+        char[] chars() default { 'a' };
+
+        short[] shorts() default { 2 };
+
+        int[] ints() default { 3 };
+
+        long[] longs() default { 4L };
+
+        float[] floats() default { 5.0f };
+
+        double[] doubles() default { 6.0 };
+
+        Hello[] hellos() default { @Hello( "hi" ) };
+    }
+
     @Test
     public void annotationCanBeCreatedWithOnlyMandatoryValues() {
         JavaAnnotation<Hello> helloAnnotation = Javanna.parseAnnotation( Hello.class );
@@ -72,6 +95,32 @@ public class JavaAnnotationTest {
         assertFalse( javannaAnnotation.hashCode() == 0 );
     }
 
+    @Hello( value = "Hash", language = "hash-language" )
+    @Test
+    public void javannaAnnotationHashCodeIsTheSameAsJVMAnnotationHashCode() throws Exception {
+        Annotation jvmAnnotation = getClass().getMethod( "javannaAnnotationHashCodeIsTheSameAsJVMAnnotationHashCode" )
+                .getAnnotation( helloClass() );
+        Annotation javannaAnnotation = Javanna.createAnnotation( helloClass(), new LinkedHashMap<String, Object>() {{
+            put( "value", "Hash" );
+            put( "language", "hash-language" );
+        }} );
+
+        assertEquals( jvmAnnotation.hashCode(), javannaAnnotation.hashCode() );
+    }
+
+    @JavannaTest.HasArrays( numbers = { 4, 5 }, names = { "joe" } )
+    @Test
+    public void javannaAnnotationWithArraysHashCodeIsTheSameAsJVMAnnotationHashCode() throws Exception {
+        Annotation jvmAnnotation = getClass().getMethod( "javannaAnnotationWithArraysHashCodeIsTheSameAsJVMAnnotationHashCode" )
+                .getAnnotation( JavannaTest.HasArrays.class );
+        Annotation javannaAnnotation = Javanna.createAnnotation( JavannaTest.HasArrays.class, new LinkedHashMap<String, Object>() {{
+            put( "numbers", new int[]{ 4, 5 } );
+            put( "names", new String[]{ "joe" } );
+        }} );
+
+        assertEquals( jvmAnnotation.hashCode(), javannaAnnotation.hashCode() );
+    }
+
     @Test
     public void javannaAnnotationHasToString() {
         Annotation javannaAnnotation = Javanna.parseAnnotation( helloClass() )
@@ -80,7 +129,21 @@ public class JavaAnnotationTest {
                     put( "language", "português" );
                 }} );
 
-        assertEquals( Hello.class.getName() + "(value=Olá, language=português)", javannaAnnotation.toString() );
+        assertEquals( "@" + Hello.class.getName() + "(" + inMemberOrder( Hello.class, new HashMap<String, String>() {{
+            put( "value", "value=\"Ol\\u00e1\"" );
+            put( "language", "language=\"portugu\\u00eas\"" );
+        }} ) + ")", javannaAnnotation.toString() );
+    }
+
+    @Test
+    public void javannaAnnotationToStringIncludesDefaultValues() {
+        Annotation javannaAnnotation = Javanna.parseAnnotation( helloClass() )
+                .create( Collections.singletonMap( "value", "Hi" ) );
+
+        assertEquals( "@" + Hello.class.getName() + "(" + inMemberOrder( Hello.class, new HashMap<String, String>() {{
+            put( "value", "value=\"Hi\"" );
+            put( "language", "language=\"english\"" );
+        }} ) + ")", javannaAnnotation.toString() );
     }
 
     @Test
@@ -91,8 +154,67 @@ public class JavaAnnotationTest {
             put( "states", new boolean[]{ true, true, false, true } );
         }} );
 
-        assertEquals( JavannaTest.HasArrays.class.getName() +
-                "(numbers={10, 5, 0}, names={hi, bye}, states={true, true, false, true})", hasArrays.toString() );
+        assertEquals( "@" + JavannaTest.HasArrays.class.getName() + "(" +
+                inMemberOrder( JavannaTest.HasArrays.class, new HashMap<String, String>() {{
+                    put( "numbers", "numbers={10, 5, 0}" );
+                    put( "names", "names={\"hi\", \"bye\"}" );
+                    put( "states", "states={true, true, false, true}" );
+                }} ) + ")", hasArrays.toString() );
+    }
+
+    @Test
+    public void javannaAnnotationWithSingleValueMemberHasToString() {
+        Annotation simple = Javanna.createAnnotation( JavannaTest.Simple.class,
+                Collections.singletonMap( "value", "it's \"quoted\"\n" ) );
+
+        assertEquals( "@" + JavannaTest.Simple.class.getName() + "(\"it\\'s \\\"quoted\\\"\\n\")",
+                simple.toString() );
+    }
+
+    @Test
+    public void javannaAnnotationToStringIsCached() {
+        Annotation simple = Javanna.createAnnotation( JavannaTest.Simple.class,
+                Collections.singletonMap( "value", "hi" ) );
+
+        assertSame( simple.toString(), simple.toString() );
+    }
+
+    @PrimitiveArrays( booleans = { false, true }, bytes = { 10, -1 }, chars = { 'a', '\'' }, shorts = { 2, 3 },
+            ints = { }, longs = { 5L, 6L }, floats = { 1.5f, Float.NaN }, doubles = { 2.5, Double.POSITIVE_INFINITY },
+            hellos = { @Hello( value = "a", language = "b" ) } )
+    @Test
+    public void canAppendAnyAnnotationToAppendable() throws Exception {
+        final Annotation jvmAnnotation = getClass().getMethod( "canAppendAnyAnnotationToAppendable" )
+                .getAnnotation( PrimitiveArrays.class );
+        Annotation javannaAnnotation = Javanna.createAnnotation( PrimitiveArrays.class,
+                Javanna.getAnnotationValues( jvmAnnotation ) );
+
+        String expected = "@" + PrimitiveArrays.class.getName() + "(" +
+                inMemberOrder( PrimitiveArrays.class, new HashMap<String, String>() {{
+                    put( "booleans", "booleans={false, true}" );
+                    put( "bytes", "bytes={(byte)0x0a, (byte)0xff}" );
+                    put( "chars", "chars={'a', '\\''}" );
+                    put( "shorts", "shorts={2, 3}" );
+                    put( "ints", "ints={}" );
+                    put( "longs", "longs={5L, 6L}" );
+                    put( "floats", "floats={1.5f, 0.0f/0.0f}" );
+                    put( "doubles", "doubles={2.5, 1.0/0.0}" );
+                    put( "hellos", "hellos={@" + Hello.class.getName() + "(" +
+                            inMemberOrder( Hello.class, new HashMap<String, String>() {{
+                                put( "value", "value=\"a\"" );
+                                put( "language", "language=\"b\"" );
+                            }} ) + ")}" );
+                }} ) + ")";
+
+        StringBuilder jvmBuilder = new StringBuilder();
+        Javanna.appendTo( jvmAnnotation, jvmBuilder );
+
+        StringBuilder javannaBuilder = new StringBuilder();
+        Javanna.appendTo( javannaAnnotation, javannaBuilder );
+
+        assertEquals( expected, jvmBuilder.toString() );
+        assertEquals( expected, javannaBuilder.toString() );
+        assertEquals( expected, javannaAnnotation.toString() );
     }
 
     @Test
@@ -132,6 +254,18 @@ public class JavaAnnotationTest {
         assertFalse( javannaAnnotation.equals( jvmAnnotation ) );
     }
 
+    @Hello( "Hi" )
+    @Test
+    public void annotationCreatedByJVMEqualsJavannaWithSameValueUsingDefaults() throws Exception {
+        Annotation jvmAnnotation = getClass().getMethod( "annotationCreatedByJVMEqualsJavannaWithSameValueUsingDefaults" )
+                .getAnnotation( helloClass() );
+        Annotation javannaAnnotation = Javanna.createAnnotation( helloClass(),
+                Collections.singletonMap( "value", "Hi" ) );
+
+        assertTrue( jvmAnnotation.equals( javannaAnnotation ) );
+        assertTrue( javannaAnnotation.equals( jvmAnnotation ) );
+    }
+
     @JavannaTest.HasArrays( numbers = { 4, 5 }, names = { "joe" }, states = { } )
     @Test
     public void annotationCreatedByJVMEqualsJavannaWithSameValueWithArray() throws Exception {
@@ -162,6 +296,42 @@ public class JavaAnnotationTest {
         assertFalse( javannaAnnotation.equals( jvmAnnotation ) );
     }
 
+    @PrimitiveArrays
+    @Test
+    public void javannaAnnotationsWithArraysOfAllTypesCanBeCompared() throws Exception {
+        Annotation jvmAnnotation = getClass().getMethod( "javannaAnnotationsWithArraysOfAllTypesCanBeCompared" )
+                .getAnnotation( PrimitiveArrays.class );
+        Annotation javannaAnnotation1 = Javanna.createAnnotation( PrimitiveArrays.class,
+                Collections.<String, Object>emptyMap() );
+        Annotation javannaAnnotation2 = Javanna.createAnnotation( PrimitiveArrays.class,
+                Collections.<String, Object>emptyMap() );
+        Annotation differentAnnotation = Javanna.createAnnotation( PrimitiveArrays.class,
+                Collections.singletonMap( "doubles", new double[]{ 6.0, 7.0 } ) );
+
+        assertTrue( javannaAnnotation1.equals( javannaAnnotation1 ) );
+        assertTrue( javannaAnnotation1.equals( javannaAnnotation2 ) );
+        assertTrue( javannaAnnotation2.equals( javannaAnnotation1 ) );
+        assertTrue( javannaAnnotation1.equals( jvmAnnotation ) );
+        assertTrue( jvmAnnotation.equals( javannaAnnotation1 ) );
+        assertFalse( javannaAnnotation1.equals( differentAnnotation ) );
+        assertFalse( differentAnnotation.equals( javannaAnnotation1 ) );
+        assertFalse( differentAnnotation.equals( jvmAnnotation ) );
+        assertFalse( javannaAnnotation1.equals( null ) );
+        assertFalse( javannaAnnotation1.equals( "PrimitiveArrays" ) );
+    }
+
+    @Test
+    public void javannaAnnotationsCreatedBeforeAndAfterCacheInvalidationAreEqual() {
+        Annotation before = Javanna.createAnnotation( helloClass(), Collections.singletonMap( "value", "Hi" ) );
+
+        Javanna.invalidateCache( helloClass() );
+
+        Annotation after = Javanna.createAnnotation( helloClass(), Collections.singletonMap( "value", "Hi" ) );
+
+        assertTrue( before.equals( after ) );
+        assertTrue( after.equals( before ) );
+    }
+
     @Test
     public void annotationArraysShouldNeverBeModified() {
         JavannaTest.HasArrays hasArrays = Javanna.createAnnotation( JavannaTest.HasArrays.class, new LinkedHashMap<String, Object>() {{
@@ -180,6 +350,39 @@ public class JavaAnnotationTest {
         assertEquals( 5, hasArrays.numbers()[ 1 ] );
     }
 
+    @Test
+    public void memberKindsAndValuesCanBeReadByIndex() {
+        JavaAnnotation<PrimitiveArrays> arraysAnnotation = Javanna.parseAnnotation( PrimitiveArrays.class );
+        PrimitiveArrays arrays = arraysAnnotation.create( Collections.<String, Object>emptyMap() );
+
+        int index = 0;
+        for (String member : arraysAnnotation.getMembers()) {
+            Object value = arraysAnnotation.getMemberValue( arrays, index );
+            if ( member.equals( "ints" ) ) {
+                assertEquals( MemberKind.INT, arraysAnnotation.getMemberKind( index ) );
+                assertEquals( 3, ( ( int[] ) value )[ 0 ] );
+            } else if ( member.equals( "hellos" ) ) {
+                assertEquals( MemberKind.ANNOTATION, arraysAnnotation.getMemberKind( index ) );
+                assertEquals( "hi", ( ( Hello[] ) value )[ 0 ].value() );
+            }
+            index++;
+        }
+    }
+
+    /**
+     * The order of annotation members depends on the JVM, so use this method to create expected Strings.
+     */
+    static String inMemberOrder( Class<? extends Annotation> annotationType, Map<String, String> textByMember ) {
+        StringBuilder builder = new StringBuilder();
+        for (String member : Javanna.parseAnnotation( annotationType ).getMembers()) {
+            if ( builder.length() > 0 ) {
+                builder.append( ", " );
+            }
+            builder.append( textByMember.get( member ) );
+        }
+        return builder.toString();
+    }
+
     private static Class<? extends Annotation> helloClass() {
         return Hello.class;
     }
@@ -10,11 +10,14 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -112,6 +115,40 @@ public class JavannaTest {
         assertEquals( new HashSet<>( Arrays.asList( "numbers", "names", "states" ) ), annotation.getMembers() );
     }
 
+    @Test
+    public void parsedAnnotationsAreCached() {
+        JavaAnnotation<Complex> annotation = Javanna.parseAnnotation( Complex.class );
+
+        assertSame( annotation, Javanna.parseAnnotation( Complex.class ) );
+    }
+
+    @Test
+    public void canInvalidateCachedAnnotation() {
+        JavaAnnotation<Complex> annotation = Javanna.parseAnnotation( Complex.class );
+
+        Javanna.invalidateCache( Complex.class );
+
+        JavaAnnotation<Complex> newAnnotation = Javanna.parseAnnotation( Complex.class );
+
+        assertNotSame( annotation, newAnnotation );
+        assertEquals( annotation, newAnnotation );
+        assertEquals( annotation.getTypeByMember(), newAnnotation.getTypeByMember() );
+        assertSame( newAnnotation, Javanna.parseAnnotation( Complex.class ) );
+    }
+
+    @Test
+    public void cachedAnnotationDefaultArraysCannotBeModified() {
+        boolean[] states = ( boolean[] ) Javanna.parseAnnotation( HasArrays.class )
+                .getDefaultValueByMember().get( "states" );
+
+        states[ 0 ] = false;
+
+        boolean[] otherStates = ( boolean[] ) Javanna.parseAnnotation( HasArrays.class )
+                .getDefaultValueByMember().get( "states" );
+
+        assertEquals( Arrays.toString( new boolean[]{ true, false } ), Arrays.toString( otherStates ) );
+    }
+
     @Test
     public void canCreateEmptyAnnotation() throws Exception {
         Empty empty = Javanna.createAnnotation( Empty.class, Collections.<String, Object>emptyMap() );
@@ -332,6 +369,78 @@ public class JavannaTest {
         }
     }
 
+    @Test
+    public void canReadArrayValuesWithoutCopying() {
+        HasArrays hasArrays = Javanna.createAnnotation( HasArrays.class, new HashMap<String, Object>() {{
+            put( "numbers", new int[]{ 10, 5, 0 } );
+            put( "names", new String[]{ "hi", "bye" } );
+        }} );
+
+        List<String> names = Javanna.readArray( hasArrays, "names" );
+        List<Integer> numbers = Javanna.readArray( hasArrays, "numbers" );
+        List<Boolean> states = Javanna.readArray( hasArrays, "states" );
+        IntArrayView numbersView = Javanna.readIntArray( hasArrays, "numbers" );
+
+        assertEquals( Arrays.asList( "hi", "bye" ), names );
+        assertEquals( Arrays.asList( 10, 5, 0 ), numbers );
+        assertEquals( Arrays.asList( true, false ), states );
+        assertEquals( 3, numbersView.size() );
+        assertEquals( 10, numbersView.get( 0 ) );
+        assertEquals( 5, numbersView.get( 1 ) );
+        assertEquals( 0, numbersView.get( 2 ) );
+        assertEquals( Arrays.toString( new int[]{ 10, 5, 0 } ), Arrays.toString( numbersView.toArray() ) );
+    }
+
+    @Test( expected = UnsupportedOperationException.class )
+    public void arrayViewsCannotBeModified() {
+        HasArrays hasArrays = Javanna.createAnnotation( HasArrays.class, new HashMap<String, Object>() {{
+            put( "numbers", new int[ 0 ] );
+            put( "names", new String[]{ "hi", "bye" } );
+        }} );
+
+        List<String> names = Javanna.readArray( hasArrays, "names" );
+
+        names.set( 0, "changed" );
+    }
+
+    @JavaAnnotationTest.PrimitiveArrays( longs = { 1L, 2L, 3L } )
+    @Test
+    public void canReadArrayValuesOfJVMAnnotation() throws Exception {
+        Annotation annotation = getClass().getMethod( "canReadArrayValuesOfJVMAnnotation" )
+                .getAnnotation( JavaAnnotationTest.PrimitiveArrays.class );
+
+        LongArrayView longs = Javanna.readLongArray( annotation, "longs" );
+        List<Character> chars = Javanna.readArray( annotation, "chars" );
+
+        assertEquals( 3, longs.size() );
+        assertEquals( 1L, longs.get( 0 ) );
+        assertEquals( 3L, longs.get( 2 ) );
+        assertEquals( Collections.singletonList( 'a' ), chars );
+    }
+
+    @Test
+    public void cannotReadArrayOfWrongType() {
+        HasArrays hasArrays = Javanna.createAnnotation( HasArrays.class, new HashMap<String, Object>() {{
+            put( "numbers", new int[ 0 ] );
+            put( "names", new String[ 0 ] );
+        }} );
+
+        try {
+            Javanna.readLongArray( hasArrays, "numbers" );
+            fail( "Should have failed" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "member 'numbers' has invalid type. Expected: [J. Found: [I.", e.getMessage() );
+        }
+
+        try {
+            Javanna.readArray( hasArrays, "other" );
+            fail( "Should have failed" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "Not a member of annotation [com.athaydes.javanna.JavannaTest$HasArrays]: other",
+                    e.getMessage() );
+        }
+    }
+
     @Simple( "hi" )
     @Test
     public void canReadSimpleAnnotationValues() throws Exception {
@@ -380,6 +489,21 @@ public class JavannaTest {
         assertEquals( expectedValues, Javanna.getAnnotationValues( complex ) );
     }
 
+    @Test
+    public void arraysReadFromJavannaAnnotationValuesCannotModifyTheAnnotation() {
+        HasArrays hasArrays = Javanna.createAnnotation( HasArrays.class, new HashMap<String, Object>() {{
+            put( "numbers", new int[]{ 1, 2 } );
+            put( "names", new String[]{ "a" } );
+        }} );
+
+        int[] numbers = ( int[] ) Javanna.getAnnotationValues( hasArrays ).get( "numbers" );
+        numbers[ 0 ] = 100;
+
+        assertEquals( Arrays.toString( new int[]{ 1, 2 } ),
+                Arrays.toString( ( int[] ) Javanna.getAnnotationValues( hasArrays ).get( "numbers" ) ) );
+        assertEquals( Arrays.toString( new int[]{ 1, 2 } ), Arrays.toString( hasArrays.numbers() ) );
+    }
+
     @Test
     public void canReadComplexAnnotationValuesFromJavannaAnnotationRecursively() throws Exception {
         final Simple simple = Javanna.createAnnotation( Simple.class, new LinkedHashMap<String, Object>() {{
@@ -0,0 +1,176 @@
+package com.athaydes.javanna;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class MemberConverterTest {
+
+    @Test
+    public void arraysOfTheMemberTypeAreCopied() {
+        int[] value = { 1, 2, 3 };
+        Object result = new MemberConverter( "m", int[].class ).convert( value );
+
+        assertNotSame( value, result );
+        assertArrayEquals( value, ( int[] ) result );
+    }
+
+    @Test
+    public void intArrayCanBeConvertedToLongArray() {
+        Object result = new MemberConverter( "m", long[].class ).convert( new int[]{ 1, -2, Integer.MAX_VALUE } );
+
+        assertArrayEquals( new long[]{ 1L, -2L, Integer.MAX_VALUE }, ( long[] ) result );
+    }
+
+    @Test
+    public void longArrayCanBeConvertedToIntArrayIfValuesFit() {
+        MemberConverter converter = new MemberConverter( "m", int[].class );
+
+        assertArrayEquals( new int[]{ 1, 2 }, ( int[] ) converter.convert( new long[]{ 1L, 2L } ) );
+        assertSame( MemberConverter.INVALID, converter.convert( new long[]{ 1L, 5_000_000_000L } ) );
+        assertEquals( "member 'm' has invalid type. Expected: [I. Found: [J.",
+                converter.describeFailure( new long[]{ 1L, 5_000_000_000L } ) );
+    }
+
+    @Test
+    public void integralArraysAreNarrowedIfValuesAreInRange() {
+        MemberConverter toInt = new MemberConverter( "m", int[].class );
+        MemberConverter toShort = new MemberConverter( "m", short[].class );
+        MemberConverter toByte = new MemberConverter( "m", byte[].class );
+
+        assertArrayEquals( new int[]{ Integer.MIN_VALUE, Integer.MAX_VALUE },
+                ( int[] ) toInt.convert( new long[]{ Integer.MIN_VALUE, Integer.MAX_VALUE } ) );
+        assertSame( MemberConverter.INVALID, toInt.convert( new long[]{ Integer.MIN_VALUE - 1L } ) );
+        assertSame( MemberConverter.INVALID, toInt.convert( new long[]{ Integer.MAX_VALUE + 1L } ) );
+
+        assertArrayEquals( new short[]{ Short.MIN_VALUE, Short.MAX_VALUE },
+                ( short[] ) toShort.convert( new int[]{ Short.MIN_VALUE, Short.MAX_VALUE } ) );
+        assertSame( MemberConverter.INVALID, toShort.convert( new int[]{ Short.MIN_VALUE - 1 } ) );
+        assertSame( MemberConverter.INVALID, toShort.convert( new int[]{ Short.MAX_VALUE + 1 } ) );
+        assertSame( MemberConverter.INVALID, toShort.convert( new int[]{ -40000 } ) );
+
+        assertArrayEquals( new byte[]{ Byte.MIN_VALUE, Byte.MAX_VALUE },
+                ( byte[] ) toByte.convert( new short[]{ Byte.MIN_VALUE, Byte.MAX_VALUE } ) );
+        assertSame( MemberConverter.INVALID, toByte.convert( new short[]{ Byte.MIN_VALUE - 1 } ) );
+        assertSame( MemberConverter.INVALID, toByte.convert( new short[]{ Byte.MAX_VALUE + 1 } ) );
+    }
+
+    @Test
+    public void floatingPointArraysAreNarrowedIfValuesAreInRange() {
+        MemberConverter toLong = new MemberConverter( "m", long[].class );
+        MemberConverter toInt = new MemberConverter( "m", int[].class );
+        MemberConverter toShort = new MemberConverter( "m", short[].class );
+        MemberConverter toByte = new MemberConverter( "m", byte[].class );
+        MemberConverter toFloat = new MemberConverter( "m", float[].class );
+
+        assertArrayEquals( new long[]{ Long.MIN_VALUE, 1L << 62 },
+                ( long[] ) toLong.convert( new double[]{ -0x1p63, 0x1p62 } ) );
+        assertSame( MemberConverter.INVALID, toLong.convert( new double[]{ 0x1p63 } ) );
+        assertSame( MemberConverter.INVALID, toLong.convert( new double[]{ -0x1p64 } ) );
+
+        assertArrayEquals( new int[]{ Integer.MIN_VALUE, Integer.MAX_VALUE },
+                ( int[] ) toInt.convert( new double[]{ Integer.MIN_VALUE, Integer.MAX_VALUE } ) );
+        assertSame( MemberConverter.INVALID, toInt.convert( new double[]{ Integer.MIN_VALUE - 1.0 } ) );
+        assertSame( MemberConverter.INVALID, toInt.convert( new double[]{ Integer.MAX_VALUE + 1.0 } ) );
+
+        assertArrayEquals( new short[]{ Short.MIN_VALUE, Short.MAX_VALUE },
+                ( short[] ) toShort.convert( new float[]{ Short.MIN_VALUE, Short.MAX_VALUE } ) );
+        assertSame( MemberConverter.INVALID, toShort.convert( new float[]{ Short.MIN_VALUE - 1 } ) );
+        assertSame( MemberConverter.INVALID, toShort.convert( new float[]{ Short.MAX_VALUE + 1 } ) );
+
+        assertArrayEquals( new byte[]{ Byte.MIN_VALUE, Byte.MAX_VALUE },
+                ( byte[] ) toByte.convert( new double[]{ Byte.MIN_VALUE, Byte.MAX_VALUE } ) );
+        assertSame( MemberConverter.INVALID, toByte.convert( new double[]{ Byte.MIN_VALUE - 1 } ) );
+        assertSame( MemberConverter.INVALID, toByte.convert( new double[]{ Byte.MAX_VALUE + 1 } ) );
+
+        assertArrayEquals( new float[]{ -Float.MAX_VALUE, Float.MAX_VALUE },
+                ( float[] ) toFloat.convert( new double[]{ -Float.MAX_VALUE, Float.MAX_VALUE } ), 0.0f );
+        assertSame( MemberConverter.INVALID, toFloat.convert( new double[]{ -Double.MAX_VALUE } ) );
+        assertSame( MemberConverter.INVALID, toFloat.convert( new double[]{ Double.MAX_VALUE } ) );
+    }
+
+    @Test
+    public void numbersAreNarrowedIfValuesAreInRange() {
+        MemberConverter toShort = new MemberConverter( "m", short.class );
+
+        assertEquals( Short.MIN_VALUE, toShort.convert( ( int ) Short.MIN_VALUE ) );
+        assertEquals( Short.MAX_VALUE, toShort.convert( ( int ) Short.MAX_VALUE ) );
+        assertSame( MemberConverter.INVALID, toShort.convert( -40000 ) );
+        assertSame( MemberConverter.INVALID, toShort.convert( 40000 ) );
+    }
+
+    @Test
+    public void floatingPointArraysCanBeConvertedToIntegralArraysIfValuesAreIntegral() {
+        MemberConverter converter = new MemberConverter( "m", short[].class );
+
+        assertArrayEquals( new short[]{ 4, 5 }, ( short[] ) converter.convert( new double[]{ 4.0, 5.0 } ) );
+        assertSame( MemberConverter.INVALID, converter.convert( new float[]{ 4.5f } ) );
+    }
+
+    @Test
+    public void listOfDoublesCanBeConvertedToIntArray() {
+        Object result = new MemberConverter( "m", int[].class ).convert( Arrays.asList( 1.0, 2.0, 3.0 ) );
+
+        assertArrayEquals( new int[]{ 1, 2, 3 }, ( int[] ) result );
+    }
+
+    @Test
+    public void boxedArrayCanBeConvertedToPrimitiveArray() {
+        Object result = new MemberConverter( "m", double[].class ).convert( new Integer[]{ 1, 2 } );
+
+        assertArrayEquals( new double[]{ 1.0, 2.0 }, ( double[] ) result, 0.0 );
+    }
+
+    @Test
+    public void collectionOfStringsCanBeConvertedToStringArray() {
+        Object result = new MemberConverter( "m", String[].class )
+                .convert( new LinkedHashSet<>( Arrays.asList( "a", "b" ) ) );
+
+        assertArrayEquals( new String[]{ "a", "b" }, ( String[] ) result );
+    }
+
+    @Test
+    public void invalidItemIsReportedWithItsIndex() {
+        MemberConverter converter = new MemberConverter( "m", int[].class );
+
+        assertSame( MemberConverter.INVALID, converter.convert( Arrays.asList( 1, 2.5, 3 ) ) );
+        assertEquals( "member 'm[1]' has invalid type. Expected: java.lang.Integer. Found: java.lang.Double.",
+                converter.describeFailure( Arrays.asList( 1, 2.5, 3 ) ) );
+    }
+
+    @Test
+    public void nullItemIsReportedWithItsIndex() {
+        MemberConverter converter = new MemberConverter( "m", long[].class );
+
+        assertSame( MemberConverter.INVALID, converter.convert( Arrays.asList( 1L, null ) ) );
+        assertEquals( "member 'm[1]' contains illegal null item.",
+                converter.describeFailure( Arrays.asList( 1L, null ) ) );
+    }
+
+    @Test
+    public void collectionCannotBeConvertedToSimpleValue() {
+        MemberConverter converter = new MemberConverter( "m", int.class );
+
+        assertSame( MemberConverter.INVALID, converter.convert( Collections.singletonList( 1 ) ) );
+        assertEquals( "member 'm' has invalid type. Expected: int. Found: java.util.Collections$SingletonList.",
+                converter.describeFailure( Collections.singletonList( 1 ) ) );
+    }
+
+    @Test
+    public void numbersAreCoercedIntoSimpleValues() {
+        MemberConverter converter = new MemberConverter( "m", byte.class );
+
+        assertEquals( ( byte ) 10, converter.convert( 10L ) );
+        assertSame( MemberConverter.INVALID, converter.convert( 1000 ) );
+        assertEquals( "member 'm' has invalid type. Expected: java.lang.Byte. Found: java.lang.Integer.",
+                converter.describeFailure( 1000 ) );
+    }
+
+}
@@ -0,0 +1,243 @@
+package com.athaydes.javanna;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MetricsRegistryTest {
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface Server {
+        String name();
+
+        int port() default 80;
+
+        int[] ports() default { };
+    }
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Before
+    public void setup() {
+        Javanna.invalidateCache( Server.class );
+        Javanna.setMetricsListener( registry );
+    }
+
+    @After
+    public void cleanup() {
+        Javanna.setMetricsListener( null );
+    }
+
+    @Test
+    public void metricsAreDisabledByDefault() {
+        Javanna.setMetricsListener( null );
+        assertNull( Javanna.getMetricsListener() );
+
+        Javanna.createAnnotation( Server.class, values( "name", "a" ) );
+
+        assertEquals( 0, registry.snapshot().getHistograms().size() );
+    }
+
+    @Test
+    public void canRecordAnnotationParsingAndCreation() {
+        assertSame( registry, Javanna.getMetricsListener() );
+
+        Javanna.createAnnotation( Server.class, values( "name", "a" ) );
+        Javanna.createAnnotation( Server.class, values( "name", "b" ) );
+        Javanna.parseAnnotation( Server.class ).builder().set( "name", "c" ).build();
+
+        MetricsSnapshot snapshot = registry.snapshot();
+        HistogramSnapshot parse = snapshot.getHistogram( "parse[" + Server.class.getName() + "]" );
+        HistogramSnapshot create = snapshot.getHistogram( "create[" + Server.class.getName() + "]" );
+
+        assertNotNull( parse );
+        assertEquals( 1L, parse.getCount() );
+        assertNotNull( create );
+        assertEquals( 3L, create.getCount() );
+        assertTrue( create.getMin() <= create.getPercentile( 50.0 ) );
+        assertTrue( create.getPercentile( 50.0 ) <= create.getMax() );
+        assertTrue( create.getSum() >= create.getMax() );
+
+        assertEquals( 1L, snapshot.getCounter( "cacheMiss[" + MetricsListener.ANNOTATION_TYPE_CACHE + "]" ) );
+        assertTrue( snapshot.getCacheHitRate( MetricsListener.ANNOTATION_TYPE_CACHE ) > 0.5 );
+    }
+
+    @Test
+    public void annotationTypesParsedWithoutMetricsAreCacheHitsOnceMetricsAreEnabled() {
+        Javanna.setMetricsListener( null );
+        Javanna.parseAnnotation( Server.class );
+        Javanna.setMetricsListener( registry );
+
+        Javanna.parseAnnotation( Server.class );
+        Javanna.parseAnnotation( Server.class );
+
+        MetricsSnapshot snapshot = registry.snapshot();
+        assertEquals( 2L, snapshot.getCounter( "cacheHit[" + MetricsListener.ANNOTATION_TYPE_CACHE + "]" ) );
+        assertEquals( 0L, snapshot.getCounter( "cacheMiss[" + MetricsListener.ANNOTATION_TYPE_CACHE + "]" ) );
+    }
+
+    @Test
+    public void canRecordValidationFailuresByReason() {
+        failToCreate( Collections.<String, Object>emptyMap() );
+        failToCreate( values( "name", "a", "other", 1 ) );
+        failToCreate( values( "name", "a", "port", "not a number" ) );
+        failToCreate( values( "name", "b", "port", new Object() ) );
+
+        MetricsSnapshot snapshot = registry.snapshot();
+
+        assertEquals( 1L, snapshot.getCounter( "validationFailure[MISSING_MEMBERS]" ) );
+        assertEquals( 1L, snapshot.getCounter( "validationFailure[NON_EXISTING_MEMBERS]" ) );
+        assertEquals( 2L, snapshot.getCounter( "validationFailure[INVALID_VALUES]" ) );
+        assertNull( snapshot.getHistogram( "create[" + Server.class.getName() + "]" ) );
+    }
+
+    @Test
+    public void canRecordConversionsByTypePair() {
+        Javanna.createAnnotation( Server.class, values( "name", "a", "port", "8080" ) );
+        Javanna.createAnnotation( Server.class, values( "name", "b", "port", "8081" ) );
+        failToCreate( values( "name", "c", "port", "eighty" ) );
+
+        MetricsSnapshot snapshot = registry.snapshot();
+
+        assertEquals( 2L, snapshot.getCounter( "conversion[java.lang.String->java.lang.Integer]" ) );
+        assertEquals( 1L, snapshot.getCounter( "conversionFailure[java.lang.String->java.lang.Integer]" ) );
+    }
+
+    @Test
+    public void canRecordReadingAnnotationValues() {
+        Server server = Javanna.createAnnotation( Server.class, values( "name", "a" ) );
+
+        Javanna.getAnnotationValues( server );
+        Javanna.getAnnotationValues( server, true );
+
+        HistogramSnapshot histogram = registry.snapshot()
+                .getHistogram( "getAnnotationValues[" + Server.class.getName() + "]" );
+
+        assertNotNull( histogram );
+        assertEquals( 2L, histogram.getCount() );
+    }
+
+    @Test
+    public void canRecordInternerHitsAndMisses() {
+        AnnotationInterner interner = new AnnotationInterner();
+        interner.intern( Javanna.createAnnotation( Server.class, values( "name", "a" ) ) );
+        interner.intern( Javanna.createAnnotation( Server.class, values( "name", "a" ) ) );
+        interner.intern( Javanna.createAnnotation( Server.class, values( "name", "a" ) ) );
+        interner.intern( Javanna.createAnnotation( Server.class, values( "name", "b" ) ) );
+
+        assertEquals( 0.5, registry.snapshot().getCacheHitRate( MetricsListener.INTERNER_CACHE ), 0.0 );
+    }
+
+    @Test
+    public void canRecordSerializationByFormat() {
+        registry.annotationDeserialized( Server.class, "json", 100L );
+        registry.annotationDeserialized( Server.class, "json", 300L );
+        registry.annotationSerialized( Server.class, "binary", 50L );
+
+        MetricsSnapshot snapshot = registry.snapshot();
+        HistogramSnapshot deserialized = snapshot.getHistogram( "deserialize[json:" + Server.class.getName() + "]" );
+        HistogramSnapshot serialized = snapshot.getHistogram( "serialize[binary:" + Server.class.getName() + "]" );
+
+        assertNotNull( deserialized );
+        assertEquals( 200.0, deserialized.getMean(), 0.0 );
+        assertNotNull( serialized );
+        assertEquals( 1L, serialized.getCount() );
+        assertNull( snapshot.getHistogram( "serialize[json:" + Server.class.getName() + "]" ) );
+    }
+
+    @Test
+    public void listenerIsToldAboutTheSizeOfCreatedAnnotations() {
+        final int[] sizes = new int[ 2 ];
+        Javanna.setMetricsListener( new MetricsListener() {
+            @Override
+            public void annotationParsed( Class<? extends java.lang.annotation.Annotation> annotationType,
+                                          long durationNanos ) {
+            }
+
+            @Override
+            public void annotationCreated( Class<? extends java.lang.annotation.Annotation> annotationType,
+                                           int memberCount, int largestArraySize, long durationNanos ) {
+                sizes[ 0 ] = memberCount;
+                sizes[ 1 ] = largestArraySize;
+            }
+
+            @Override
+            public void validationFailed( Class<? extends java.lang.annotation.Annotation> annotationType,
+                                          ValidationFailure reason, long durationNanos ) {
+            }
+
+            @Override
+            public void valueConverted( Class<?> sourceType, Class<?> targetType, boolean converted ) {
+            }
+
+            @Override
+            public void annotationValuesRead( Class<? extends java.lang.annotation.Annotation> annotationType,
+                                              long durationNanos ) {
+            }
+
+            @Override
+            public void annotationDeserialized( Class<? extends java.lang.annotation.Annotation> annotationType,
+                                                String format, long durationNanos ) {
+            }
+
+            @Override
+            public void annotationSerialized( Class<? extends java.lang.annotation.Annotation> annotationType,
+                                              String format, long durationNanos ) {
+            }
+
+            @Override
+            public void cacheAccessed( String cache, boolean hit ) {
+            }
+        } );
+
+        Javanna.createAnnotation( Server.class, values( "name", "a", "ports", new int[]{ 1, 2, 3 } ) );
+
+        assertEquals( 3, sizes[ 0 ] );
+        assertEquals( 3, sizes[ 1 ] );
+    }
+
+    @Test
+    public void histogramPercentilesAreApproximate() {
+        long[] buckets = new long[ HistogramSnapshot.BUCKET_COUNT ];
+        for (long value = 1; value <= 1000; value++) {
+            buckets[ HistogramSnapshot.bucketOf( value ) ]++;
+        }
+        HistogramSnapshot histogram = new HistogramSnapshot( buckets, 1000, 500500, 1, 1000 );
+
+        assertEquals( 500.5, histogram.getMean(), 0.0 );
+        assertEquals( 511L, histogram.getPercentile( 50.0 ) );
+        assertEquals( 1000L, histogram.getPercentile( 99.0 ) );
+        assertEquals( 1L, histogram.getPercentile( 0.0 ) );
+    }
+
+    private static void failToCreate( Map<String, Object> values ) {
+        try {
+            Javanna.createAnnotation( Server.class, values );
+            fail( "Should not be able to create annotation with values " + values );
+        } catch ( IllegalArgumentException e ) {
+            // expected
+        }
+    }
+
+    private static Map<String, Object> values( Object... namesAndValues ) {
+        Map<String, Object> result = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            result.put( ( String ) namesAndValues[ i ], namesAndValues[ i + 1 ] );
+        }
+        return result;
+    }
+
+}
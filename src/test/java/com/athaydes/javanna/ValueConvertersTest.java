@@ -0,0 +1,145 @@
+package com.athaydes.javanna;
+
+import org.junit.Test;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class ValueConvertersTest {
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface Config {
+        String name();
+
+        int port();
+
+        double ratio();
+
+        boolean enabled();
+
+        char separator();
+
+        TimeUnit unit();
+
+        Class<?> type();
+
+        long[] timeouts();
+    }
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @interface Timeout {
+        long value();
+    }
+
+    static final class Millis {
+        final long value;
+
+        Millis( long value ) {
+            this.value = value;
+        }
+    }
+
+    @Test
+    public void canCreateAnnotationFromStringValues() {
+        Config config = Javanna.createAnnotation( Config.class, new LinkedHashMap<String, Object>() {{
+            put( "name", "server" );
+            put( "port", "8080" );
+            put( "ratio", "0.75" );
+            put( "enabled", "TRUE" );
+            put( "separator", ";" );
+            put( "unit", "SECONDS" );
+            put( "type", "java.lang.String[]" );
+            put( "timeouts", Arrays.asList( "10", "20" ) );
+        }} );
+
+        assertEquals( 8080, config.port() );
+        assertEquals( 0.75, config.ratio(), 0.0 );
+        assertEquals( true, config.enabled() );
+        assertEquals( ';', config.separator() );
+        assertEquals( TimeUnit.SECONDS, config.unit() );
+        assertEquals( String[].class, config.type() );
+        assertArrayEquals( new long[]{ 10L, 20L }, config.timeouts() );
+    }
+
+    @Test
+    public void numbersCanBeConvertedToChars() {
+        assertEquals( 'A', ValueConverters.convert( 65, Character.class ) );
+        assertEquals( 'B', ValueConverters.convert( 66L, Character.class ) );
+        assertNull( ValueConverters.convert( -1, Character.class ) );
+        assertNull( ValueConverters.convert( 65.5, Character.class ) );
+    }
+
+    @Test
+    public void largeIntegersAreConvertedToLongsExactly() {
+        assertEquals( Long.MAX_VALUE, ValueConverters.convert( "9223372036854775807", Long.class ) );
+        assertEquals( Long.MIN_VALUE, ValueConverters.convert( Long.MIN_VALUE, Long.class ) );
+        assertEquals( Long.MAX_VALUE, ValueConverters.convert( BigInteger.valueOf( Long.MAX_VALUE ), Long.class ) );
+        assertEquals( Long.MAX_VALUE - 1, ValueConverters.convert(
+                new BigDecimal( Long.MAX_VALUE - 1 ), Long.class ) );
+        assertNull( ValueConverters.convert( BigInteger.valueOf( Long.MAX_VALUE ).add( BigInteger.ONE ), Long.class ) );
+        assertNull( ValueConverters.convert( new BigDecimal( "9007199254740993.5" ), Long.class ) );
+        assertNull( ValueConverters.convert( new BigDecimal( "100.000000000000000001" ), Integer.class ) );
+        assertEquals( 100, ValueConverters.convert( new BigDecimal( "100.000" ), Integer.class ) );
+        assertEquals( 1L << 62, ValueConverters.convert( 0x1p62, Long.class ) );
+        assertNull( ValueConverters.convert( 0x1p63, Long.class ) );
+    }
+
+    @Test
+    public void classNamesMayUseAnnotationFormat() {
+        assertEquals( int[][].class, ValueConverters.convert( "int[][].class", Class.class ) );
+        assertEquals( TimeUnit.class, ValueConverters.convert( "java.util.concurrent.TimeUnit", Class.class ) );
+        assertNull( ValueConverters.convert( "not.a.Class", Class.class ) );
+    }
+
+    @Test
+    public void invalidStringsAreNotConverted() {
+        assertNull( ValueConverters.convert( "yes", Boolean.class ) );
+        assertNull( ValueConverters.convert( "ab", Character.class ) );
+        assertNull( ValueConverters.convert( "MINUTE", TimeUnit.class ) );
+        assertNull( ValueConverters.convert( "1.5", Integer.class ) );
+        assertNull( ValueConverters.convert( "one", Long.class ) );
+    }
+
+    @Test
+    public void valueWithoutConverterIsReportedAsInvalidType() {
+        try {
+            Javanna.createAnnotation( Timeout.class, new LinkedHashMap<String, Object>() {{
+                put( "value", new Object() );
+            }} );
+            fail( "Should not be able to convert value without a converter" );
+        } catch ( IllegalArgumentException e ) {
+            assertEquals( "Errors:\n* member 'value' has invalid type. " +
+                    "Expected: java.lang.Long. Found: java.lang.Object.", e.getMessage() );
+        }
+    }
+
+    @Test
+    public void canRegisterCustomConverter() {
+        // not convertible before the converter is registered
+        assertNull( ValueConverters.convert( new Millis( 10L ), Long.class ) );
+
+        ValueConverters.register( Millis.class, Long.class, new ValueConverter<Millis, Long>() {
+            @Override
+            public Long convert( Millis value, Class<? extends Long> targetType ) {
+                return value.value;
+            }
+        } );
+
+        Timeout timeout = Javanna.createAnnotation( Timeout.class, new LinkedHashMap<String, Object>() {{
+            put( "value", new Millis( 250L ) );
+        }} );
+
+        assertEquals( 250L, timeout.value() );
+    }
+
+}